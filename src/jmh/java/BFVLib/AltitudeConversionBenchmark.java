@@ -0,0 +1,56 @@
+package BFVLib;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pressure to altitude conversion in lookup and exact mode, run with 'gradle jmh -Pjmh.includes=AltitudeConversion'
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AltitudeConversionBenchmark {
+    private static final int SAMPLES = 1024;
+
+    @Param({"0", "1"})
+    public int mode;
+
+    private AltitudeConverter converter;
+    private final int[] pressures = new int[SAMPLES];
+
+    @Setup
+    public void setup() {
+        converter = new AltitudeConverter(101325.0);
+        converter.setMode(mode);
+        // slow climb from 1000 m with sensor noise
+        for (int i = 0; i < SAMPLES; i++) {
+            pressures[i] = 89876 - i / 8 + (i * 7919) % 5 - 2;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public double toAltitude() {
+        double sum = 0;
+        for (int pressure : pressures) {
+            sum += converter.toAltitude(pressure);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,56 @@
+package BFVLib;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading latest altitude, run with 'gradle jmh -Pjmh.includes=AltitudeRead'.
+ *
+ * gc.alloc.rate.norm reported by gc profiler must stay 0 B/op for readAltitude and
+ * parseAndReadAltitude, readBoxedAltitude is kept as reference of the boxing cost.
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AltitudeReadBenchmark {
+    private BFV device;
+    private byte[] line;
+
+    @Setup
+    public void setup() {
+        device = new BFV();
+        line = "PRS 18A3C\r\n".getBytes(StandardCharsets.US_ASCII);
+        device.parseLine(line, 0, line.length);
+    }
+
+    @Benchmark
+    public double readAltitude() {
+        return device.getAltitudeValue();
+    }
+
+    @Benchmark
+    public Double readBoxedAltitude() {
+        return device.getAltitude();
+    }
+
+    @Benchmark
+    public double parseAndReadAltitude() {
+        device.parseLine(line, 0, line.length);
+        return device.getAltitudeValue();
+    }
+}
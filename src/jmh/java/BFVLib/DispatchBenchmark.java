@@ -0,0 +1,92 @@
+package BFVLib;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Line code dispatch with CodeTable against the String switch previously used in BFV.parseLine,
+ * run with 'gradle jmh -Pjmh.includes=Dispatch'
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatchBenchmark {
+    private static final String[] LINES = {
+            "PRS 17CBA", "PRS 17CB9", "PRS 17CBB", "TMP 235", "PRS 17CBA", "BAT F82",
+            "PRS 17CBC", "BFV 12", "PRS 17CBA", "BST BFK BFL BFP", "PRS 17CB8", "SET 0 100 20 1" };
+
+    private static final CodeTable LINE_CODES = new CodeTable(new String[] {"PRS", "TMP", "BAT", "BFV", "BST", "SET"});
+
+    private String[] lines;
+    private byte[][] bytes;
+
+    @Setup
+    public void setup() {
+        lines = LINES.clone();
+        bytes = new byte[LINES.length][];
+        for (int i = 0; i < LINES.length; i++) {
+            bytes[i] = LINES[i].getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(12)
+    public int stringSwitch() {
+        int sum = 0;
+        for (String line : lines) {
+            String[] split = line.split(" ");
+            if (split.length > 1) {
+                switch (split[0]) {
+                    case "PRS":
+                        sum += 1;
+                        break;
+                    case "TMP":
+                        sum += 2;
+                        break;
+                    case "BAT":
+                        sum += 3;
+                        break;
+                    case "BFV":
+                        sum += 4;
+                        break;
+                    case "BST":
+                        sum += 5;
+                        break;
+                    case "SET":
+                        sum += 6;
+                        break;
+                }
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(12)
+    public int codeTable() {
+        int sum = 0;
+        for (byte[] line : bytes) {
+            int space = Ascii.indexOf(line, 0, line.length, (byte) ' ');
+            if (space == 3) {
+                sum += LINE_CODES.get(line, 0) + 1;
+            }
+        }
+        return sum;
+    }
+}
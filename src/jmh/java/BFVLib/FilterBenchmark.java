@@ -0,0 +1,41 @@
+package BFVLib;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost per pressure sample of filter chain used for 10Hz output (median spike rejection,
+ * decimation by 5 and Butterworth low pass), run with 'gradle jmh -Pjmh.includes=FilterBenchmark'
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FilterBenchmark {
+    private final FilterChain chain = new FilterChain(
+            new MedianFilter(5), new Decimator(5), new BiquadFilter(1, 10));
+    private final MedianFilter median = new MedianFilter(5);
+    private int sample = 0;
+
+    @Benchmark
+    public double chain() {
+        return chain.filter(101325.0 + (sample++ & 7));
+    }
+
+    @Benchmark
+    public double median() {
+        return median.filter(101325.0 + (sample++ & 7));
+    }
+}
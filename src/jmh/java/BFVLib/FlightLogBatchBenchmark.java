@@ -0,0 +1,73 @@
+package BFVLib;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parallel reprocessing of recorded flight logs on pools of different size,
+ * run with 'gradle jmh -Pjmh.includes=FlightLogBatch'
+ *
+ * One operation is the whole batch of FILES copies of flight-50hz.log, time of batch should drop
+ * about linearly with pool size up to the number of cores.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FlightLogBatchBenchmark {
+    private static final RecordedStream FLIGHT = new RecordedStream("flight-50hz.log");
+    private static final int FILES = 16;
+
+    @Param({"1", "2", "4", "8"})
+    public int poolSize;
+
+    private ForkJoinPool pool;
+    private FlightLogBatch batch;
+    private final List<Path> files = new ArrayList<>();
+
+    @Setup
+    public void setup() throws IOException {
+        for (int i = 0; i < FILES; i++) {
+            Path path = Files.createTempFile("flight", ".log");
+            Files.write(path, FLIGHT.bytes);
+            files.add(path);
+        }
+        pool = new ForkJoinPool(poolSize);
+        batch = new FlightLogBatch(pool, BFV::new);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        pool.shutdown();
+        for (Path path : files) {
+            Files.deleteIfExists(path);
+        }
+        files.clear();
+    }
+
+    @Benchmark
+    public List<FlightLogResult> process() {
+        return batch.process(files);
+    }
+}
@@ -0,0 +1,42 @@
+package BFVLib;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per sample cost of vertical speed estimation, run with 'gradle jmh -Pjmh.includes=KalmanVario'
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KalmanVarioBenchmark {
+    private KalmanVario vario;
+    private double altitude;
+
+    @Setup
+    public void setup() {
+        vario = new KalmanVario();
+        altitude = 1000.0;
+    }
+
+    @Benchmark
+    public double update() {
+        altitude += 0.02;
+        vario.update(altitude, 0.02);
+        return vario.getVerticalSpeed();
+    }
+}
@@ -0,0 +1,59 @@
+package BFVLib;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Host side compensation of raw MS5611 values against decoding of pressure calculated by the device (PRS line),
+ * run with 'gradle jmh -Pjmh.includes=MS5611Benchmark'
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MS5611Benchmark {
+    private static final byte[] PRS_LINE = "PRS 186A9".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] RAW_LINE = "MS5611 9085466 8569150".getBytes(StandardCharsets.US_ASCII);
+
+    private final BFV device = new BFV();
+    private final MS5611Decoder decoder = new MS5611Decoder();
+    private long d1 = 9085466;
+
+    {
+        decoder.setCalibration(40127, 36924, 23317, 23282, 33464, 28312);
+        device.getMS5611Decoder().setCalibration(40127, 36924, 23317, 23282, 33464, 28312);
+    }
+
+    @Benchmark
+    public double prsLine() {
+        device.parseLine(PRS_LINE, 0, PRS_LINE.length);
+        return device.getAltitudeValue();
+    }
+
+    @Benchmark
+    public int rawLine() {
+        device.parseLine(RAW_LINE, 0, RAW_LINE.length);
+        return device.getMS5611Decoder().getPressure();
+    }
+
+    @Benchmark
+    public int compensate() {
+        // vary pressure so that compensation is not folded
+        d1 = d1 == 9085466 ? 9085467 : 9085466;
+        decoder.compensate(d1, 8569150);
+        return decoder.getPressure();
+    }
+}
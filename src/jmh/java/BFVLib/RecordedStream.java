@@ -0,0 +1,85 @@
+package BFVLib;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * RecordedStream holds raw bytes of device output recorded in src/jmh/resources
+ * and offsets of its lines, so benchmarks don't measure file I/O.
+ *
+ * flight-50hz.log - 5 minutes of native output at outputFrequency 1 (PRS every 20ms, TMP every 1s, BAT every 10s)
+ * settings.log - response to $BST* (BFV, BST and SET lines)
+ * locus.mtk - LOCUS flash download ($PMTKLOX header, 600 data lines of 6 records, footer)
+ *
+ */
+final class RecordedStream {
+    final byte[] bytes;
+    final int[] lineOffsets;
+    final int[] lineLengths;
+
+    /**
+     * Loads recorded stream from resources
+     *
+     * @param name of resource next to this class
+     */
+    RecordedStream(String name) {
+        try (InputStream input = RecordedStream.class.getResourceAsStream(name)) {
+            if (input == null) {
+                throw new IllegalArgumentException("Missing recorded stream: " + name);
+            }
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            byte[] chunk = new byte[8192];
+            int read;
+            while ((read = input.read(chunk)) > 0) {
+                output.write(chunk, 0, read);
+            }
+            bytes = output.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        int lines = 0;
+        for (byte b : bytes) {
+            if (b == '\n') {
+                lines++;
+            }
+        }
+        lineOffsets = new int[lines];
+        lineLengths = new int[lines];
+        int start = 0;
+        int line = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] == '\n') {
+                lineOffsets[line] = start;
+                lineLengths[line] = i - start + 1;
+                line++;
+                start = i + 1;
+            }
+        }
+    }
+
+    /**
+     * Parses every line of the stream with provided device
+     *
+     * @param device to parse lines with
+     */
+    void parseLines(BFV device) {
+        for (int i = 0; i < lineOffsets.length; i++) {
+            device.parseLine(bytes, lineOffsets[i], lineLengths[i]);
+        }
+    }
+
+    /**
+     * Feeds whole stream to framer in chunks of provided size
+     *
+     * @param framer to feed
+     * @param chunkSize number of bytes per chunk, ie. size of bluetooth packet
+     */
+    void feed(LineFramer framer, int chunkSize) {
+        for (int offset = 0; offset < bytes.length; offset += chunkSize) {
+            framer.feed(bytes, offset, Math.min(chunkSize, bytes.length - offset));
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package BFVLib;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of all commands and all parameters (with values from recorded settings),
+ * one operation serializes every command once, run with 'gradle jmh -Pjmh.includes=SerializeBenchmark'
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializeBenchmark {
+    private Command[] commands;
+    private Command[] parameters;
+    private final ByteBuffer buffer = ByteBuffer.allocate(1024);
+
+    @Setup
+    public void setup() {
+        BFV device = new BFV();
+        new RecordedStream("settings.log").parseLines(device);
+        commands = device.getAllCommands().values().toArray(new Command[0]);
+        parameters = device.getAllParameters().values().toArray(new Command[0]);
+    }
+
+    @Benchmark
+    public void commands(Blackhole blackhole) {
+        for (Command command : commands) {
+            blackhole.consume(command.serializeCommand());
+        }
+    }
+
+    @Benchmark
+    public void parameters(Blackhole blackhole) {
+        for (Command parameter : parameters) {
+            blackhole.consume(parameter.serializeCommand());
+        }
+    }
+
+    @Benchmark
+    public int commandsInto() {
+        buffer.clear();
+        for (Command command : commands) {
+            command.serializeInto(buffer);
+        }
+        return buffer.position();
+    }
+
+    @Benchmark
+    public int parametersInto() {
+        buffer.clear();
+        for (Command parameter : parameters) {
+            parameter.serializeInto(buffer);
+        }
+        return buffer.position();
+    }
+}
@@ -0,0 +1,92 @@
+package BFVLib;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of recorded device streams, one operation is the whole recorded stream,
+ * run with 'gradle jmh -Pjmh.includes=StreamBenchmark'
+ *
+ * flight* - 5 minutes of 50 Hz PRS with TMP and BAT lines (15330 lines)
+ * settings - BFV, BST and SET response
+ * locus - LOCUS download of 3600 records
+ * locusImport - the same LOCUS download imported from .mtk file into memory
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StreamBenchmark {
+    private static final RecordedStream FLIGHT = new RecordedStream("flight-50hz.log");
+    private static final RecordedStream SETTINGS = new RecordedStream("settings.log");
+    private static final RecordedStream LOCUS = new RecordedStream("locus.mtk");
+
+    private BFV device;
+    private LineFramer framer;
+    private Path locusFile;
+    private LocusMemorySink locusSink;
+    private LocusImporter importer;
+
+    @Setup
+    public void setup() throws IOException {
+        device = new BFV();
+        framer = new LineFramer(device);
+        locusFile = Files.createTempFile("locus", ".mtk");
+        Files.write(locusFile, LOCUS.bytes);
+        locusSink = new LocusMemorySink(4096);
+        importer = new LocusImporter(locusSink);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(locusFile);
+    }
+
+    @Benchmark
+    public double flightLines() {
+        FLIGHT.parseLines(device);
+        return device.getAltitudeValue();
+    }
+
+    @Benchmark
+    public double flightFramed() {
+        // bluetooth SPP delivers data in chunks of up to a few hundred bytes
+        FLIGHT.feed(framer, 256);
+        return device.getAltitudeValue();
+    }
+
+    @Benchmark
+    public boolean settings() {
+        SETTINGS.parseLines(device);
+        return device.checkUpdatedValues();
+    }
+
+    @Benchmark
+    public BFV locus() {
+        LOCUS.parseLines(device);
+        return device;
+    }
+
+    @Benchmark
+    public long locusImport() throws IOException {
+        locusSink.clear();
+        return importer.importFile(locusFile);
+    }
+}
@@ -0,0 +1,46 @@
+package BFVLib;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Synthesis of one 10ms block of lift beeps at 48kHz, must stay well below 1ms,
+ * run with 'gradle jmh -Pjmh.includes=ToneBenchmark'
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ToneBenchmark {
+    private final ToneGenerator tone = new ToneGenerator(48000);
+    private final short[] pcm16 = new short[480];
+    private final float[] pcmFloat = new float[480];
+
+    {
+        tone.setVerticalSpeed(1.5);
+    }
+
+    @Benchmark
+    public short[] fillShort() {
+        tone.fill(pcm16, 0, pcm16.length);
+        return pcm16;
+    }
+
+    @Benchmark
+    public float[] fillFloat() {
+        tone.fill(pcmFloat, 0, pcmFloat.length);
+        return pcmFloat;
+    }
+}
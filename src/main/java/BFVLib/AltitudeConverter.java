@@ -0,0 +1,143 @@
+package BFVLib;
+
+/**
+ * AltitudeConverter converts pressure to altitude using international barometric formula
+ * altitude = 44330 * (1 - (pressure / qnh) ^ 0.190295)
+ *
+ * In MODE_LOOKUP (default) altitude is linearly interpolated from table of exact values
+ * precomputed for current qnh every TABLE_STEP Pascals between TABLE_MIN_PRESSURE and TABLE_MAX_PRESSURE,
+ * table is rebuilt lazily on first conversion after qnh changes. Table nodes are aligned to qnh
+ * so pressure equal to (integer) qnh converts to exactly 0 m. Pressures outside of table range,
+ * and all pressures in MODE_EXACT, are converted using the exact formula.
+ *
+ * Interpolation error is bounded by TABLE_STEP^2 / 8 * max|altitude''(pressure)|, for qnh between
+ * 90000 and 110000 Pa it is less than 4 mm at 10 kPa (about 16 km) and less than 0.1 mm above 70 kPa
+ * (about 3 km), which is well below resolution of the pressure sensor (about 1 Pa = 8 cm at sea level).
+ *
+ */
+public class AltitudeConverter {
+    public static final int MODE_LOOKUP = 0;
+    public static final int MODE_EXACT = 1;
+
+    public static final int TABLE_MIN_PRESSURE = 10000;
+    public static final int TABLE_MAX_PRESSURE = 120000;
+    public static final int TABLE_STEP = 16;
+
+    private static final double INVERSE_TABLE_STEP = 1.0 / TABLE_STEP;
+
+    private double qnh;
+    private int mode = MODE_LOOKUP;
+
+    private boolean stale = true;
+    private boolean useTable = false;
+    private double tableBase;
+    private double tableRange;
+    private double[] table;
+
+    /**
+     * Creates converter for provided qnh in MODE_LOOKUP
+     *
+     * @param qnh sea level pressure in Pascals
+     */
+    public AltitudeConverter(double qnh) {
+        this.qnh = qnh;
+    }
+
+    /**
+     * Returns altitude calculated from pressure using the exact formula
+     *
+     * @param pressure in Pascals
+     * @param qnh in Pascals
+     * @return calculated altitude
+     */
+    public static double exactAltitude(double pressure, double qnh) {
+        return 44330.0 * (1 - Math.pow((pressure / qnh), 0.190295));
+    }
+
+    /**
+     * Returns altitude calculated from pressure for current qnh and mode
+     *
+     * @param pressure in Pascals
+     * @return calculated altitude
+     */
+    public double toAltitude(double pressure) {
+        if (stale) {
+            rebuild();
+        }
+        if (useTable) {
+            double position = (pressure - tableBase);
+            if (position >= 0 && position < tableRange) {
+                position *= INVERSE_TABLE_STEP;
+                int index = (int) position;
+                double lower = table[index];
+                return lower + (table[index + 1] - lower) * (position - index);
+            }
+        }
+        return exactAltitude(pressure, qnh);
+    }
+
+    /**
+     * Sets qnh used in conversion, lookup table is rebuilt on next conversion
+     *
+     * @param qnh sea level pressure in Pascals
+     */
+    public void setQnh(double qnh) {
+        if (Double.compare(this.qnh, qnh) != 0) {
+            this.qnh = qnh;
+            this.stale = true;
+        }
+    }
+
+    /**
+     * @return qnh used in conversion
+     */
+    public double getQnh() {
+        return qnh;
+    }
+
+    /**
+     * Sets conversion mode
+     *
+     * @param mode one of: MODE_LOOKUP, MODE_EXACT
+     */
+    public void setMode(int mode) {
+        assert (mode == MODE_LOOKUP || mode == MODE_EXACT);
+        this.mode = mode;
+        this.stale = true;
+    }
+
+    /**
+     * One of: MODE_LOOKUP, MODE_EXACT
+     *
+     * @return conversion mode
+     */
+    public int getMode() {
+        return mode;
+    }
+
+    /**
+     * Rebuilds lookup table for current qnh, table is kept and reused if qnh
+     * is not suitable for lookup (not positive or not finite) or mode is MODE_EXACT
+     *
+     */
+    private void rebuild() {
+        stale = false;
+        useTable = mode == MODE_LOOKUP && qnh > 0 && !Double.isInfinite(qnh) && !Double.isNaN(qnh);
+        if (!useTable) {
+            return;
+        }
+
+        // align nodes so that rounded qnh is one of them
+        long aligned = Math.round(qnh);
+        tableBase = aligned - TABLE_STEP * (long) Math.ceil((aligned - TABLE_MIN_PRESSURE) / (double) TABLE_STEP);
+        int nodes = (int) Math.ceil((TABLE_MAX_PRESSURE - tableBase) / TABLE_STEP) + 1;
+        tableRange = (nodes - 1) * (double) TABLE_STEP;
+
+        if (table == null || table.length != nodes) {
+            table = new double[nodes];
+        }
+        for (int i = 0; i < nodes; i++) {
+            table[i] = exactAltitude(tableBase + i * (double) TABLE_STEP, qnh);
+        }
+    }
+}
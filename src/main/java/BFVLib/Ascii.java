@@ -0,0 +1,248 @@
+package BFVLib;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Ascii contains helpers for decoding values straight from ASCII encoded bytes
+ * received from BlueFlyVario device without creating intermediate Strings
+ *
+ */
+final class Ascii {
+    private Ascii() {
+    }
+
+    /**
+     * Returns index of first occurrence of value in line between from (inclusive) and to (exclusive)
+     *
+     * @param line to search in
+     * @param from index to start search at
+     * @param to index to stop search at
+     * @param value to search for
+     * @return index of value, -1 if not found
+     */
+    static int indexOf(byte[] line, int from, int to, byte value) {
+        for (int i = from; i < to; i++) {
+            if (line[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Check if line starting at offset starts with provided prefix
+     *
+     * @param line to check
+     * @param offset of line start
+     * @param length of line
+     * @param prefix to look for
+     * @return true if line starts with prefix, false otherwise
+     */
+    static boolean startsWith(byte[] line, int offset, int length, byte[] prefix) {
+        if (length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (line[offset + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Validates NMEA style checksum of line '$DATA*HH' where HH is hex XOR of all DATA bytes
+     *
+     * @param line bytes holding line starting with '$'
+     * @param from index of '$'
+     * @param to index after last checksum character
+     * @return index of '*' if checksum is valid, -1 if line is malformed or checksum is invalid
+     */
+    static int nmeaChecksumEnd(byte[] line, int from, int to) {
+        if (from >= to || line[from] != '$') {
+            return -1;
+        }
+        int checksum = 0;
+        for (int i = from + 1; i < to; i++) {
+            byte c = line[i];
+            if (c == '*') {
+                if (to - i < 3) {
+                    return -1;
+                }
+                int high = hexDigit(line[i + 1]);
+                int low = hexDigit(line[i + 2]);
+                return (high >= 0 && low >= 0 && ((high << 4) | low) == checksum) ? i : -1;
+            }
+            checksum ^= c;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns value of single hex digit or -1 if provided byte is not hex digit
+     *
+     * @param value byte to convert
+     * @return value of hex digit (0-15), -1 otherwise
+     */
+    static int hexDigit(byte value) {
+        if (value >= '0' && value <= '9') {
+            return value - '0';
+        }
+        if (value >= 'A' && value <= 'F') {
+            return value - 'A' + 10;
+        }
+        if (value >= 'a' && value <= 'f') {
+            return value - 'a' + 10;
+        }
+        return -1;
+    }
+
+    /**
+     * Decodes unsigned hex integer from line between from (inclusive) and to (exclusive)
+     *
+     * @param line to decode from
+     * @param from index of first digit
+     * @param to index after last digit
+     * @return decoded value
+     * @throws NumberFormatException if range is empty, contains non hex characters or overflows int
+     */
+    static int parseHex(byte[] line, int from, int to) {
+        if (from >= to || to - from > 8) {
+            throw invalid(line, from, to);
+        }
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = hexDigit(line[i]);
+            if (digit < 0) {
+                throw invalid(line, from, to);
+            }
+            value = (value << 4) | digit;
+        }
+        if (value > Integer.MAX_VALUE) {
+            throw invalid(line, from, to);
+        }
+        return (int) value;
+    }
+
+    /**
+     * Decodes signed decimal integer from line between from (inclusive) and to (exclusive)
+     *
+     * @param line to decode from
+     * @param from index of first character
+     * @param to index after last character
+     * @return decoded value
+     * @throws NumberFormatException if range is empty, contains non digit characters or overflows int
+     */
+    static int parseInt(byte[] line, int from, int to) {
+        int i = from;
+        boolean negative = false;
+        if (i < to && (line[i] == '-' || line[i] == '+')) {
+            negative = line[i] == '-';
+            i++;
+        }
+        if (i >= to || to - i > 10) {
+            throw invalid(line, from, to);
+        }
+        long value = 0;
+        for (; i < to; i++) {
+            int digit = line[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw invalid(line, from, to);
+            }
+            value = value * 10 + digit;
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE || value < Integer.MIN_VALUE) {
+            throw invalid(line, from, to);
+        }
+        return (int) value;
+    }
+
+    /**
+     * Decodes signed decimal number with optional fraction ie. '-12.5' from line
+     * between from (inclusive) and to (exclusive)
+     *
+     * @param line to decode from
+     * @param from index of first character
+     * @param to index after last character
+     * @return decoded value
+     * @throws NumberFormatException if range is empty, malformed or has more than 18 digits
+     */
+    static double parseDecimal(byte[] line, int from, int to) {
+        int i = from;
+        boolean negative = false;
+        if (i < to && (line[i] == '-' || line[i] == '+')) {
+            negative = line[i] == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+        for (; i < to; i++) {
+            byte c = line[i];
+            if (c == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+                continue;
+            }
+            int digit = c - '0';
+            if (digit < 0 || digit > 9 || ++digits > 18) {
+                throw invalid(line, from, to);
+            }
+            mantissa = mantissa * 10 + digit;
+            if (fractionDigits >= 0) {
+                fractionDigits++;
+            }
+        }
+        if (digits == 0) {
+            throw invalid(line, from, to);
+        }
+        double value = fractionDigits > 0 ? mantissa / POWERS_OF_TEN[fractionDigits] : mantissa;
+        return negative ? -value : value;
+    }
+
+    /**
+     * Returns number of decimal digits of non negative value
+     *
+     * @param value to count digits of, must be >= 0
+     * @return number of digits, 1 for 0
+     */
+    static int digitCount(int value) {
+        int digits = 1;
+        while (value >= 10) {
+            value /= 10;
+            digits++;
+        }
+        return digits;
+    }
+
+    /**
+     * Writes non negative value as decimal ASCII digits at position of buffer and advances it
+     *
+     * @param buffer to write to
+     * @param value to write, must be >= 0
+     */
+    static void putInt(ByteBuffer buffer, int value) {
+        int end = buffer.position() + digitCount(value);
+        for (int i = end - 1; i >= buffer.position(); i--) {
+            buffer.put(i, (byte) ('0' + value % 10));
+            value /= 10;
+        }
+        buffer.position(end);
+    }
+
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9,
+            1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18 };
+
+    /**
+     * Creates exception for malformed number, only called on error path
+     *
+     */
+    private static NumberFormatException invalid(byte[] line, int from, int to) {
+        StringBuilder value = new StringBuilder(to - from);
+        for (int i = from; i < to; i++) {
+            value.append((char) (line[i] & 0xFF));
+        }
+        return new NumberFormatException("For input string: \"" + value + "\"");
+    }
+}
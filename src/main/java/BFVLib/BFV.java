@@ -1,12 +1,13 @@
 package BFVLib;
 
+import java.nio.ByteBuffer;
 import java.util.*;
 
 /**
  * BFV object contains methods to parse and decode data from BlueFlyVario device
  *
  */
-public class BFV {
+public class BFV implements LineParser {
     /*
         int: Converted value = Integer value
         Boolean: Converted value = FALSE if Integer value = 0, and TRUE otherwise
@@ -20,294 +21,91 @@ public class BFV {
     public static final int TYPE_BOOLEAN = 4;
     public static final int TYPE_INTLIST = 5;
 
-    private double qnh;
+    // values of outputMode parameter
+    public static final int OUTPUT_MODE_BLUEFLYVARIO = 0;
+    public static final int OUTPUT_MODE_LK8EX1 = 1;
+    public static final int OUTPUT_MODE_LX = 2;
+    public static final int OUTPUT_MODE_FLYNET = 3;
+    public static final int OUTPUT_MODE_NONE = 4;
+    public static final int OUTPUT_MODE_BFVLIB = 5;
+    public static final int OUTPUT_MODE_BFX = 6;
+    public static final int OUTPUT_MODE_OPENVARIO = 7;
+
+    // device measures pressure every 20ms, outputFrequency parameter divides output rate
+    static final double SAMPLE_PERIOD = 0.02;
+
+    private final AltitudeConverter altitudeConverter;
+    private final KalmanVario vario = new KalmanVario();
+    private final PMTKParser pmtkParser = new PMTKParser();
+    private final MS5611Decoder ms5611Decoder = new MS5611Decoder();
+    // receives values decoded by LineDecoder
+    private final DeviceValues decodedValues = new DecodedValues();
+    private double samplePeriod;
+
+    // optional processing of decoded pressure before altitude conversion, null if there is none
+    private PressureFilter pressureFilter;
+    private int pressureDecimation = 1;
+
+    // recovers device time of samples from arrival time of line being parsed, NO_TIME if not known
+    private final SampleClock sampleClock = new SampleClock();
+    private long arrivalNanos = SampleClock.NO_TIME;
+
+    private int outputMode = OUTPUT_MODE_BLUEFLYVARIO;
+    // true if output mode was set by setOutputMode, received outputMode parameter is then ignored
+    private boolean outputModeSelected = false;
+    private OutputDecoder outputDecoder = null;
+    private long checksumErrorCount = 0;
+
+    private SampleHistory pressureHistory;
+    private SampleHistory altitudeHistory;
 
     private double battery;
     private double temperature;
     private double altitude;
     private String hardwareVersion;
 
-    private final TreeMap<String, Command> COMMANDS = new TreeMap<>();
-    private final TreeMap<String, Command> PARAMETERS = new TreeMap<>();
+    // views of shared definitions created on first request, their values are kept in parameterValues
+    private TreeMap<String, Command> COMMANDS;
+    private TreeMap<String, Command> PARAMETERS;
 
-    private final HashMap<String, String> parameterCodeToName = new HashMap<>();
+    // value of every parameter by its ordinal in CommandRegistry.PARAMETER_LIST, -1 if not set
+    private final int[] parameterValues = new int[CommandRegistry.PARAMETER_LIST.length];
+    private final CodeTable parameterCodes = CommandRegistry.PARAMETER_CODES;
 
     private boolean hasParameterKeys = false;
-    private String[] parameterKeys;
-    private boolean hasValues = false;
+    private int[] parameterIndices;
+    // true if BST line lists parameters in order of their ordinals, so SET values are copied at once
+    private boolean parameterKeysInOrder = false;
+    // values of last SET line in order of BST codes, reallocated only when number of BST codes changes
     private int[] userValues;
+    // number of SET lines applied since creation, incremented after values of SET line are stored,
+    // other threads (ConfigurationWriter) read it before reading parameterValues
+    private volatile int settingsCount = 0;
 
-    private boolean updatedAltitude = false;
-    private boolean updatedBattery = false;
-    private boolean updatedTemperature = false;
-    private boolean updatedHardwareVersion = false;
-    private boolean updatedValues = false;
+    // volatile so that flags set by parser thread are seen by threads polling isUpdated*()
+    private volatile boolean updatedAltitude = false;
+    private volatile boolean updatedBattery = false;
+    private volatile boolean updatedTemperature = false;
+    private volatile boolean updatedHardwareVersion = false;
+    private volatile boolean updatedValues = false;
 
+    // published snapshot for reader threads, null until enableConcurrentReads is called
+    private volatile BFVState state;
+
+    private byte[] lineBuffer = new byte[128];
+
+    private static final BFVListener[] NO_LISTENERS = new BFVListener[0];
+    private BFVListener[] listeners = NO_LISTENERS;
 
     public BFV() {
         this.hardwareVersion = "";
         this.altitude = Double.NaN;
         this.temperature = Double.NaN;
         this.battery = Double.NaN;
-        this.qnh = 101325.0; // sea level pressure "101.325 kPa 1013.25hPa"
-
-        // bfv commands
-        COMMANDS.put("volumeUp", Command.Builder("BVU", "Volume Up (x2)")
-                .build());
+        this.altitudeConverter = new AltitudeConverter(101325.0); // sea level pressure "101.325 kPa 1013.25hPa"
 
-        COMMANDS.put("volumeDown", Command.Builder("BVD", "Volume Down (/2)")
-                .build());
-
-        COMMANDS.put("getSettings", Command.Builder("BST", "Get Settings")
-                .build());
-
-        COMMANDS.put("getTemp", Command.Builder("TMP", "Get Temperature")
-                .build());
-
-        COMMANDS.put("reset", Command.Builder("RST", "Simple Reset")
-                .build());
-
-        COMMANDS.put("restoreDefaults", Command.Builder("RSX", "Reset and restore default settings")
-                .build());
-
-        COMMANDS.put("sleep", Command.Builder("SLP", "Go To Sleep")
-                .build());
-
-        COMMANDS.put("sleepNoWake", Command.Builder("SLX", "Sleep - No UART wake")
-                .build());
-
-        COMMANDS.put("simulateButton", Command.Builder("BTN", "Simulate Button Press")
-                .build());
-
-        COMMANDS.put("playSound", Command.Builder("BSD", "Play Sound")
-                .setAcceptsArguments(true)
-                .setDefaultArguments("800 500 400 500")
-                .build());
-
-
-        // pmtk commands
-        COMMANDS.put( "eraseLocus", Command.Builder("PMTK184,1","Erase Locus")
-                .build());
-
-        COMMANDS.put( "queryLocus", Command.Builder("PMTK183","Query Locus")
-                .build());
-
-        COMMANDS.put( "queryLocusData", Command.Builder("PMTK622,0","Query Locus Data")
-                .build());
-
-
-        // bluetooth commands
-        COMMANDS.put( "setBluetoothName", Command.Builder("RNC SN,","Set bluetooth name(max 16 characters)")
-                .setMinHwVersion(12)
-                .setAcceptsArguments(true)
-                .setDefaultArguments("BlueFly-")
-                .build());
-
-
-        // bfv parameters
-        PARAMETERS.put("useAudioWhenConnected", Command.Builder("BAC", "Enable hardware audio when connected.")
-                .setParameters(TYPE_BOOLEAN, 0, 1, 1.0)
-                .setMinHwVersion(6)
-                .setDefaultValue(0)
-                .build());
-
-        PARAMETERS.put("useAudioWhenDisconnected", Command.Builder("BAD", "Enable hardware audio when disconnected.")
-                .setParameters(TYPE_BOOLEAN, 0, 1, 1.0)
-                .setMinHwVersion(6)
-                .setDefaultValue(1)
-                .build());
-
-        PARAMETERS.put("positionNoise", Command.Builder("BFK", "Kalman filter position noise.")
-                .setParameters(TYPE_DOUBLE, 10, 10000, 1000.0)
-                .setMinHwVersion(6)
-                .setDefaultValue(100)
-                .build());
-
-        PARAMETERS.put("liftThreshold", Command.Builder("BFL", "Value in m/s of lift when the audio beeping will start.")
-                .setParameters(TYPE_DOUBLE, 0, 1000, 100.0)
-                .setMinHwVersion(6)
-                .setDefaultValue(20)
-                .build());
-
-        PARAMETERS.put("liftOffThreshold", Command.Builder("BOL", "Value in m/s of lift when the audio beeping will stop.")
-                .setParameters(TYPE_DOUBLE, 0, 1000, 100.0)
-                .setMinHwVersion(6)
-                .setDefaultValue(5)
-                .build());
-
-        PARAMETERS.put("liftFreqBase", Command.Builder("BFQ", "Audio frequency for lift beeps in Hz of 0 m/s.")
-                .setParameters(TYPE_INT, 500, 2000, 1.0)
-                .setMinHwVersion(6)
-                .setDefaultValue(1000)
-                .build());
-
-        PARAMETERS.put("liftFreqIncrement", Command.Builder("BFI", "Increase in audio frequency for lift beeps in Hz for each 1 m/s.")
-                .setParameters(TYPE_INT, 0, 1000, 1.0)
-                .setMinHwVersion(6)
-                .setDefaultValue(100)
-                .build());
-
-        PARAMETERS.put("sinkThreshold", Command.Builder("BFS", "Value in -m/s of sink when the sink tone will start.")
-                .setParameters(TYPE_DOUBLE, 0, 1000, 100.0)
-                .setMinHwVersion(6)
-                .setDefaultValue(20)
-                .build());
-
-        PARAMETERS.put("sinkOffThreshold", Command.Builder("BOS", "Value in -m/s of sink when the sink tone will stop.")
-                .setParameters(TYPE_DOUBLE, 0, 1000, 100.0)
-                .setMinHwVersion(6)
-                .setDefaultValue(5)
-                .build());
-
-        PARAMETERS.put("sinkFreqBase", Command.Builder("BSQ", "Audio frequency for the sink tone in Hz of 0 m/s.")
-                .setParameters(TYPE_INT, 250, 1000, 1.0)
-                .setMinHwVersion(6)
-                .setDefaultValue(400)
-                .build());
-
-        PARAMETERS.put("sinkFreqIncrement", Command.Builder("BSI", "Decrease in audio frequency for sink tone in Hz for each -1 m/s.")
-                .setParameters(TYPE_INT, 0, 1000, 1.0)
-                .setMinHwVersion(6)
-                .setDefaultValue(100)
-                .build());
-
-        PARAMETERS.put("secondsBluetoothWait", Command.Builder("BTH", "Time that the hardware will be allow establishment of a bluetooth connection for when turned on.")
-                .setParameters(TYPE_INT, 0, 10000, 1.0)
-                .setMinHwVersion(6)
-                .setDefaultValue(180)
-                .build());
-
-        PARAMETERS.put("rateMultiplier", Command.Builder("BRM", "Lift beep cadence -> 0.5 = beeping twice as fast as normal.")
-                .setParameters(TYPE_DOUBLE, 10, 1000, 100.0)
-                .setMinHwVersion(6)
-                .setDefaultValue(100)
-                .build());
-
-        PARAMETERS.put("speedMultiplier", Command.Builder("BSM", "Sensitivity of cadence to vertical speed -> 2.0 = cadence changes slower than normal.")
-                .setParameters(TYPE_DOUBLE, 10, 1000, 100.0)
-                .setMinHwVersion(10)
-                .setDefaultValue(100)
-                .build());
-
-        PARAMETERS.put("volume", Command.Builder("BVL", "Volume of beeps ->  0.1 is only about 1/2 as loud as 1.0.")
-                .setParameters(TYPE_DOUBLE, 1, 1000, 1000.0)
-                .setMinHwVersion(6)
-                .setDefaultValue(1000)
-                .build());
-
-        PARAMETERS.put("outputMode", Command.Builder("BOM", "Output mode -> 0-BlueFlyVario(default), 1-LK8EX1, 2-LX, 3-FlyNet, 4-None, 5-BFVlib, 6-BFX, 7-OpenVario")
-                .setParameters(TYPE_INT, 0, 7, 1.0)
-                .setMinHwVersion(7)
-                .setDefaultValue(0)
-                .build());
-
-        PARAMETERS.put("outputFrequency", Command.Builder("BOF", "Output frequency divisor -> 1-every 20ms ... 50-every 20ms*50=1000ms")
-                .setParameters(TYPE_INT, 1, 50, 1.0)
-                .setMinHwVersion(7)
-                .setDefaultValue(1)
-                .build());
-
-        PARAMETERS.put("outputQNH", Command.Builder("BQH", "QNH (in Pascals), used for hardware output alt for some output modes - (default 101325)")
-                .setParameters(TYPE_INTOFFSET, 0, 65535, 80000.0)
-                .setMinHwVersion(7)
-                .setDefaultValue(21325)
-                .build());
-
-        PARAMETERS.put("uart1BRG", Command.Builder("BRB", "BRG setting for UART1, baud = 2000000/(BRG-1) (default of 207 = approx 9600 baud)")
-                .setParameters(TYPE_INT, 0, 65535, 1.0)
-                .setMinHwVersion(8)
-                .setDefaultValue(207)
-                .build());
-
-        PARAMETERS.put("uart2BRG", Command.Builder("BR2", "BRG setting for UART1, baud = 2000000/(BRG-1) (default of 34 = approx 57.6k baud)")
-                .setParameters(TYPE_INT, 0, 65535, 1.0)
-                .setMinHwVersion(9)
-                .setDefaultValue(16)
-                .build());
-
-        PARAMETERS.put("heightSensitivityDm", Command.Builder("BHV", "How far you have to move in dm to reset the idle timeout")
-                .setParameters(TYPE_INT, 0, 65535, 1.0)
-                .setMinHwVersion(10)
-                .setDefaultValue(20)
-                .build());
-
-        PARAMETERS.put("heightSeconds", Command.Builder("BHT", "Idle timeout")
-                .setParameters(TYPE_INT, 0, 65535, 1.0)
-                .setMinHwVersion(10)
-                .setDefaultValue(600)
-                .build());
-
-        PARAMETERS.put("uartPassthrough", Command.Builder("BPT", "Pass data received by U2 into U1")
-                .setParameters(TYPE_BOOLEAN, 0, 1, 1.0)
-                .setMinHwVersion(9)
-                .setDefaultValue(1)
-                .build());
-
-        PARAMETERS.put("uart1Raw", Command.Builder("BUR", "Make U1 data transferred raw instead of line by line")
-                .setParameters(TYPE_BOOLEAN, 0, 1, 1.0)
-                .setMinHwVersion(9)
-                .setDefaultValue(0)
-                .build());
-
-        PARAMETERS.put("greenLED", Command.Builder("BLD", "Make green LED flash with beep")
-                .setParameters(TYPE_BOOLEAN, 0, 1, 1.0)
-                .setMinHwVersion(9)
-                .setDefaultValue(1)
-                .build());
-
-        PARAMETERS.put("useAudioBuzzer", Command.Builder("BBZ", "Use the experimental audio buzzer")
-                .setParameters(TYPE_BOOLEAN, 0, 1, 1.0)
-                .setMinHwVersion(10)
-                .setDefaultValue(0)
-                .build());
-
-        PARAMETERS.put("buzzerThreshold", Command.Builder("BZT", "Value in m/s below the liftThreshold when the buzzer will start.")
-                .setParameters(TYPE_DOUBLE, 0, 1000, 100.0)
-                .setMinHwVersion(10)
-                .setDefaultValue(40)
-                .build());
-
-        PARAMETERS.put("usePitot", Command.Builder("BUP", "Use the experimental MS4525DO pitot connected via I2C")
-                .setParameters(TYPE_BOOLEAN, 0, 1, 1.0)
-                .setMinHwVersion(11)
-                .setDefaultValue(0)
-                .build());
-
-        PARAMETERS.put("toggleThreshold", Command.Builder("BTT", "Value in m/s below or above which will auto turn the button audio toggle off")
-                .setParameters(TYPE_DOUBLE, 0, 1000, 100.0)
-                .setMinHwVersion(11)
-                .setDefaultValue(100)
-                .build());
-
-        PARAMETERS.put("startDelayMS", Command.Builder("BDM", "Delay ms at start")
-                .setParameters(TYPE_INT, 0, 65535, 1.0)
-                .setMinHwVersion(12)
-                .setDefaultValue(0)
-                .build());
-
-        PARAMETERS.put("quietStart", Command.Builder("BQS", "Quiet the startup beeps")
-                .setParameters(TYPE_BOOLEAN, 0, 1, 1.0)
-                .setMinHwVersion(12)
-                .setDefaultValue(0)
-                .build());
-
-        PARAMETERS.put("gpsLogInterval", Command.Builder("BGL", "GPS Log for XA1110")
-                .setParameters(TYPE_INT, 0, 65535, 1.0)
-                .setMinHwVersion(12)
-                .setDefaultValue(10)
-                .build());
-
-        // set min hw version to 99 so it doesnt appear in UI depending on the implementation of UI
-        PARAMETERS.put("isPrintPressure", Command.Builder("BFP", "Controls if the output is printed. It is equivalent to outputMode=4 (or at least it was in some earlier version of the firmware)")
-                .setParameters(TYPE_BOOLEAN, 0, 1, 1.0)
-                .setMinHwVersion(99)
-                .setDefaultValue(1)
-                .build());
-
-        // make dict command_code -> name
-        for (String name: PARAMETERS.keySet()) {
-            parameterCodeToName.put(PARAMETERS.get(name).getCommandCode(), name);
-        }
+        Arrays.fill(parameterValues, -1);
+        updateDerivedParameters();
     }
 
     /**
@@ -316,6 +114,12 @@ public class BFV {
      * @return BFV.COMMANDS
      */
     public Map<String, Command> getAllCommands() {
+        if (COMMANDS == null) {
+            COMMANDS = new TreeMap<>();
+            for (Map.Entry<String, CommandDefinition> command : CommandRegistry.COMMANDS.entrySet()) {
+                COMMANDS.put(command.getKey(), new Command(command.getValue()));
+            }
+        }
         return COMMANDS;
     }
 
@@ -325,9 +129,46 @@ public class BFV {
      * @return BFV.PARAMETERS
      */
     public Map<String, Command> getAllParameters() {
+        if (PARAMETERS == null) {
+            PARAMETERS = new TreeMap<>();
+            for (int i = 0; i < CommandRegistry.PARAMETER_LIST.length; i++) {
+                PARAMETERS.put(CommandRegistry.PARAMETER_NAMES[i],
+                        new Command(CommandRegistry.PARAMETER_LIST[i], parameterValues, i));
+            }
+        }
         return PARAMETERS;
     }
 
+    /**
+     * Adds listener that will be notified synchronously from parseLine about every decoded value
+     *
+     * @param listener to add
+     */
+    public void addListener(BFVListener listener) {
+        BFVListener[] added = Arrays.copyOf(listeners, listeners.length + 1);
+        added[listeners.length] = listener;
+        listeners = added;
+    }
+
+    /**
+     * Removes previously added listener
+     *
+     * @param listener to remove
+     * @return true if listener was removed, false if it was not added
+     */
+    public boolean removeListener(BFVListener listener) {
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] == listener) {
+                BFVListener[] removed = new BFVListener[listeners.length - 1];
+                System.arraycopy(listeners, 0, removed, 0, i);
+                System.arraycopy(listeners, i + 1, removed, i, removed.length - i);
+                listeners = removed.length == 0 ? NO_LISTENERS : removed;
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Parses provided line for BlueFlyVario device codes and tries to decode them
      * On success updates relevant field in BFV and sets relevant is"Name"Updated field to true
@@ -335,108 +176,143 @@ public class BFV {
      * @param line from serial port to parse
      */
     public void parseLine(String line) {
-        // PMTK lines are comma(',') separated
-        if(line.startsWith("$PMTK")){
-            new PMTKParser(line);
+        int length = line.length();
+        byte[] bytes = lineBuffer(length);
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) line.charAt(i);
         }
+        parseLine(bytes, 0, length);
+    }
 
-        // BFV lines are space(' ') separated
-        // split[0] = COMMAND_code
-        // split[1] = VALUE
-        String[] split = line.split(" ");
-        if (split.length > 1) {
-            switch(split[0]) {
-                case "PRS":
-                    setAltitudeFomDevice(line);
-                    break;
-                case "BFV":
-                    setHardwareVersion(line);
-                    break;
-                case "TMP":
-                    setTemperature(line);
-                    break;
-                case "BAT":
-                    setBattery(line);
-                    break;
-
-                /*
-                BFV [VersionNumber] \r\n
-                BST [followed by a space separated list of each of the settings codes]
-                SET [0(skip) followed by a space separated list of each of the settings Integer Values]
-                 */
-                case "BST":
-                    updateParameterKeys(Arrays.copyOfRange(split, 1, split.length));
-                    break;
-                case "SET":
-                    // it's possible that BST wasn't received, therefor not populated
-                    if(hasParameterKeys) {
-                    /*
-                    We skip the first value:
-                        The first address is a flag to reset the other addresses.
-                        $RSX* sets it to 1, then restarts the vario,
-                        which then uses that to reset all of the other values to their default settings.
-                     */
-                        updateValues(Arrays.stream(split).skip(2).mapToInt(Integer::parseInt).toArray());
-                    }
-                    break;
-                case "MS5611":
-                    /*
-                    As seen in https://www.te.com/commerce/DocumentDelivery/DDEController?Action=showdoc&DocId=Data+Sheet%7FMS5611-01BA03%7FB3%7Fpdf%7FEnglish%7FENG_DS_MS5611-01BA03_B3.pdf%7FCAT-BLPS0036
-                        Variable | Description/Equation                                  | Variable Type   | Size[bit] | Min | Max      | Example/Typical
-                        -----------------------------------------------------------------------------------------------------------------------------
-                        C1       | Pressure sensitivity - SENST1                         | unsigned int 16 | 16        | 0   | 65535    | 40127
-                        C2       | Pressure offset - OFFT1                               | unsigned int 16 | 16        | 0   | 65535    | 36924
-                        C3       | Temperature coefficient of pressure sensitivity - TCS | unsigned int 16 | 16        | 0   | 65535    | 23317
-                        C4       | Temperature coefficient of pressure offset - TCO      | unsigned int 16 | 16        | 0   | 65535    | 23282
-                        C5       | Reference temperature - TREF                          | unsigned int 16 | 16        | 0   | 65535    | 33464
-                        C6       | Temperature coefficient of the temperature - TEMPSENS | unsigned int 16 | 16        | 0   | 65535    | 28312
-                        D1       | Digital pressure value                                | unsigned int 32 | 24        | 0   | 16777216 | 9085466
-                        D2       | Digital temperature value                             | unsigned int 32 | 24        | 0   | 16777216 | 8569150
-                     */
-                    break;
-                case "Batt":
-                    // battery value in Volts -> Volts = Batt / 1000
-                    break;
-                case "No":
-                    // No movement ie 'No movement from 101.7m'
-                    break;
-                case "Audio":
-                    // ie 'Audio and Buzzer Toggle Off'
-                    break;
-                case "Bluetooth":
-                    // ie 'Bluetooth Connected'
-                    break;
-                case "Shutdown...": // never gonna reach here, documentation only
-                    // vario disconnected
-                    break;
-            }
+    /**
+     * Parses provided line that arrived at provided time, device time of altitude samples
+     * is recovered from arrival times, see getSampleClock()
+     *
+     * @param line from serial port to parse
+     * @param arrivalNanos monotonic time of arrival (ie. System.nanoTime()) in nanoseconds
+     */
+    public void parseLine(String line, long arrivalNanos) {
+        this.arrivalNanos = arrivalNanos;
+        try {
+            parseLine(line);
+        } finally {
+            this.arrivalNanos = SampleClock.NO_TIME;
+        }
+    }
+
+    /**
+     * Parses line of ASCII bytes found in buffer between offset and offset + length (absolute positions),
+     * buffers position and limit are left untouched.
+     *
+     * @param buffer holding line from serial port to parse
+     * @param offset of the first byte of the line
+     * @param length of the line
+     * @see #parseLine(byte[], int, int)
+     */
+    public void parseLine(ByteBuffer buffer, int offset, int length) {
+        if (buffer.hasArray()) {
+            parseLine(buffer.array(), buffer.arrayOffset() + offset, length);
+            return;
+        }
+        byte[] bytes = lineBuffer(length);
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(offset + i);
         }
+        parseLine(bytes, 0, length);
     }
 
     /**
-     * Sets BFV.qnh to provided value used in calculating device altitude
+     * Parses line of ASCII bytes that arrived at provided time, device time of altitude samples
+     * is recovered from arrival times, see getSampleClock()
+     *
+     * @param line bytes holding line from serial port to parse
+     * @param offset of the first byte of the line
+     * @param length of the line
+     * @param arrivalNanos monotonic time of arrival (ie. System.nanoTime()) in nanoseconds
+     */
+    @Override
+    public void parseLine(byte[] line, int offset, int length, long arrivalNanos) {
+        this.arrivalNanos = arrivalNanos;
+        try {
+            parseLine(line, offset, length);
+        } finally {
+            this.arrivalNanos = SampleClock.NO_TIME;
+        }
+    }
+
+    /**
+     * Parses line of ASCII bytes for BlueFlyVario device codes and tries to decode them
+     * On success updates relevant field in BFV and sets relevant is"Name"Updated field to true
+     *
+     * Lines are dispatched by LineDecoder, PRS, TMP and BAT lines are decoded in place
+     * without creating any objects, trailing '\r', '\n' and spaces are ignored.
+     *
+     * @param line bytes holding line from serial port to parse
+     * @param offset of the first byte of the line
+     * @param length of the line
+     */
+    public void parseLine(byte[] line, int offset, int length) {
+        if (LineDecoder.decode(line, offset, length, outputDecoder, decodedValues) == OutputDecoder.INVALID_CHECKSUM) {
+            checksumErrorCount++;
+        }
+    }
+
+    /**
+     * Sets qnh of BFV.altitudeConverter to provided value used in calculating device altitude
      * @link https://en.wikipedia.org/wiki/Altimeter_setting
      *
-     * @param value to set BFV.qnh to
+     * @param value to set qnh to
      */
     public void setQnh(Double value) {
-        this.qnh = value;
+        setQnh(value.doubleValue());
     }
 
     /**
-     * Resets all BFV fields and all userValue fields for parameter in PARAMETERS
+     * Sets qnh of BFV.altitudeConverter to provided value used in calculating device altitude
+     *
+     * @param value to set qnh to
+     */
+    public void setQnh(double value) {
+        altitudeConverter.setQnh(value);
+    }
+
+    /**
+     * Returns converter used to calculate altitude from pressure, can be used to
+     * select between lookup table and exact conversion
+     *
+     * @return BFV.altitudeConverter
+     */
+    public AltitudeConverter getAltitudeConverter() {
+        return altitudeConverter;
+    }
+
+    /**
+     * Resets all BFV fields and all parameter values
      *
      */
     public void resetAllValues() {
-        this.parameterKeys = new String[0];
-        this.userValues = new int[0];
-        this.hasValues = false;
+        this.parameterIndices = null;
+        this.userValues = null;
         this.hasParameterKeys = false;
         this.hardwareVersion = "";
         this.altitude = Double.NaN;
         this.battery = Double.NaN;
         this.temperature = Double.NaN;
+        this.vario.reset();
+        this.sampleClock.reset();
+        if (pressureFilter != null) {
+            pressureFilter.reset();
+        }
+        if (pressureHistory != null) {
+            pressureHistory.clear();
+            altitudeHistory.clear();
+        }
         resetAllParameterValues();
+        updateDerivedParameters();
+        BFVState current = state;
+        if (current != null) {
+            current.publishAll(altitude, vario.getVerticalSpeed(), temperature, battery, parameterValues);
+        }
     }
 
     /**
@@ -459,10 +335,212 @@ public class BFV {
      * @return BFV.altitude
      */
     public Double getAltitude() {
+        return getAltitudeValue();
+    }
+
+    /**
+     * Returns BFV.altitude as primitive and resets BFV.updatedAltitude to false.
+     * Same as getAltitude() without boxing, safe to call for every sample.
+     *
+     * @return BFV.altitude, Double.NaN if altitude was not received
+     */
+    public double getAltitudeValue() {
         this.updatedAltitude = false;
         return this.altitude;
     }
 
+    /**
+     * Returns vertical speed estimated by BFV.vario from received pressure samples
+     *
+     * @return vertical speed in m/s, Double.NaN if no pressure was received
+     */
+    public double getVerticalSpeed() {
+        return vario.getVerticalSpeed();
+    }
+
+    /**
+     * Returns Kalman filter used to estimate vertical speed, can be used to tune its noise parameters.
+     * Position noise is updated from device positionNoise (BFK) parameter whenever settings are received.
+     *
+     * @return BFV.vario
+     */
+    public KalmanVario getVario() {
+        return vario;
+    }
+
+    /**
+     * Selects decoder for lines of provided hardware output mode, native BlueFlyVario lines (ie. BST / SET)
+     * are still parsed in every mode. Until this is called output mode is selected automatically when
+     * settings holding outputMode parameter are received, afterwards selected mode is kept.
+     *
+     * @param mode one of OUTPUT_MODE_* values of outputMode parameter
+     */
+    public void setOutputMode(int mode) {
+        this.outputModeSelected = true;
+        selectOutputMode(mode);
+    }
+
+    /**
+     * @return currently selected output mode, one of OUTPUT_MODE_*
+     */
+    public int getOutputMode() {
+        return outputMode;
+    }
+
+    /**
+     * @return number of received lines ignored because of invalid NMEA checksum
+     */
+    public long getChecksumErrorCount() {
+        return checksumErrorCount;
+    }
+
+    /**
+     * Returns parser of LOCUS download ($PMTKLOX lines) received from GPS module
+     *
+     * @return BFV.pmtkParser
+     */
+    public PMTKParser getPMTKParser() {
+        return pmtkParser;
+    }
+
+    /**
+     * Sets sink receiving records of LOCUS download, there is no sink by default so records are only decoded
+     *
+     * @param sink to pass records to, ie. new LocusCsvSink(Paths.get("locus_record.csv")), null to only decode
+     */
+    public void setLocusSink(LocusSink sink) {
+        pmtkParser.setSink(sink);
+    }
+
+    /**
+     * Returns sink receiving records of LOCUS download
+     *
+     * @return sink set by setLocusSink, null if there is none
+     */
+    public LocusSink getLocusSink() {
+        return pmtkParser.getSink();
+    }
+
+    /**
+     * Sets filter applied to pressure decoded from PRS lines before altitude conversion, ie.
+     * FilterChain of MedianFilter, Decimator and BiquadFilter. Listeners receive unfiltered pressure
+     * in onPressure, altitude, vertical speed and histories are updated only for filter outputs and
+     * the vario uses sample period multiplied by decimation of filter. Sample clock is updated with
+     * every PRS line before filtering.
+     *
+     * @param filter to apply, null to disable filtering
+     */
+    public void setPressureFilter(PressureFilter filter) {
+        this.pressureFilter = filter;
+        this.pressureDecimation = filter == null ? 1 : filter.getDecimation();
+        if (filter != null) {
+            filter.reset();
+        }
+    }
+
+    /**
+     * @return filter applied to pressure before altitude conversion, null if there is none
+     */
+    public PressureFilter getPressureFilter() {
+        return pressureFilter;
+    }
+
+    /**
+     * Returns decoder of raw MS5611 lines, its compensated pressure and temperature are updated
+     * for every MS5611 line with conversion results
+     *
+     * @return BFV.ms5611Decoder
+     */
+    public MS5611Decoder getMS5611Decoder() {
+        return ms5611Decoder;
+    }
+
+    /**
+     * Returns seconds between pressure samples, 20ms multiplied by outputFrequency parameter
+     *
+     * @return BFV.samplePeriod
+     */
+    public double getSamplePeriod() {
+        return samplePeriod;
+    }
+
+    /**
+     * Returns clock recovering device time of altitude samples parsed with arrival time,
+     * its time, lateness and dropped / duplicate counters are read without allocation
+     *
+     * @return BFV.sampleClock
+     */
+    public SampleClock getSampleClock() {
+        return sampleClock;
+    }
+
+    /**
+     * Starts keeping last 'capacity' pressure and altitude samples, ie. capacity of 15000 keeps
+     * 5 minutes of samples at default output frequency. Replaces previously kept histories.
+     *
+     * @param capacity number of samples to keep
+     */
+    public void enableHistory(int capacity) {
+        this.pressureHistory = new SampleHistory(capacity);
+        this.altitudeHistory = new SampleHistory(capacity);
+    }
+
+    /**
+     * Starts publishing decoded values for reading from other threads with read(BFVReading).
+     * Should be called before parsing starts, values are then published by thread calling parseLine.
+     *
+     */
+    public void enableConcurrentReads() {
+        if (state == null) {
+            BFVState newState = new BFVState(parameterValues.length);
+            newState.publishAll(altitude, vario.getVerticalSpeed(), temperature, battery, parameterValues);
+            state = newState;
+        }
+    }
+
+    /**
+     * Creates reading to be filled by read(BFVReading), create one reading per reader thread
+     *
+     * @return new reading with no values
+     */
+    public BFVReading createReading() {
+        return new BFVReading(parameterCodes, parameterValues.length);
+    }
+
+    /**
+     * Fills reading with consistent snapshot of last decoded values without locking or allocation,
+     * can be called from any thread while other thread calls parseLine. Does not reset updated flags.
+     *
+     * @param reading created by createReading()
+     * @return true if reading was filled, false if enableConcurrentReads was not called
+     */
+    public boolean read(BFVReading reading) {
+        BFVState current = state;
+        if (current == null) {
+            return false;
+        }
+        current.read(reading);
+        return true;
+    }
+
+    /**
+     * Returns history of received pressure samples, use addWindow on it to get rolling statistics
+     *
+     * @return BFV.pressureHistory, null if enableHistory was not called
+     */
+    public SampleHistory getPressureHistory() {
+        return pressureHistory;
+    }
+
+    /**
+     * Returns history of altitude calculated for each pressure sample
+     *
+     * @return BFV.altitudeHistory, null if enableHistory was not called
+     */
+    public SampleHistory getAltitudeHistory() {
+        return altitudeHistory;
+    }
+
     /**
      * Returns BFV.temperature and resets BFV.updatedTemperature to false.
      * Should only be called after isUpdatedTemperature() return true,
@@ -471,6 +549,15 @@ public class BFV {
      * @return BFV.temperature
      */
     public Double getTemperature() {
+        return getTemperatureValue();
+    }
+
+    /**
+     * Returns BFV.temperature as primitive and resets BFV.updatedTemperature to false.
+     *
+     * @return BFV.temperature, Double.NaN if temperature was not received
+     */
+    public double getTemperatureValue() {
         this.updatedTemperature = false;
         return this.temperature;
     }
@@ -483,6 +570,15 @@ public class BFV {
      * @return BFV.battery
      */
     public Double getBattery() {
+        return getBatteryValue();
+    }
+
+    /**
+     * Returns BFV.battery as primitive and resets BFV.updatedBattery to false.
+     *
+     * @return BFV.battery, Double.NaN if battery was not received
+     */
+    public double getBatteryValue() {
         this.updatedBattery = false;
         return this.battery;
     }
@@ -536,61 +632,136 @@ public class BFV {
     }
 
     /**
-     * Updates BFV.parameterKeys with keys provided ands sets hasParameterKeys to true
+     * Updates BFV.parameterIndices with ordinals of parameters with codes listed in BST line,
+     * preallocates BFV.userValues for SET lines and sets hasParameterKeys to true
      *
-     * @param keys to replace parameterKeys
+     * @param line bytes holding line
+     * @param from index of the first code
+     * @param to index after the last code
      */
-    private void updateParameterKeys(String[] keys) {
-        parameterKeys = keys;
+    private void updateParameterKeys(byte[] line, int from, int to) {
+        parameterIndices = SettingsDecoder.decodeKeys(line, from, to, parameterIndices);
+        parameterKeysInOrder = SettingsDecoder.isInOrder(parameterIndices);
+        if (userValues == null || userValues.length != parameterIndices.length) {
+            userValues = new int[parameterIndices.length];
+        }
         hasParameterKeys = true;
     }
 
     /**
-     * Updates BFV.userValues with values provided, sets hasValues to true
-     * and calls updateAllValues to update all parameters values.
+     * Decodes values of SET line into BFV.userValues and calls updateAllValues
+     * to update all parameters values, if number of values differs from BST codes line is ignored
      *
-     * @param values to replace userValues
+     * @param line bytes holding line
+     * @param from index of the first value after reset flag
+     * @param to index after the last value
      */
-    private void updateValues(int[] values) {
-        userValues = values;
-        hasValues = true;
-        updateAllValues();
+    private void updateValues(byte[] line, int from, int to) {
+        // it's possible that BST wasn't received, therefor not populated
+        if (hasParameterKeys && SettingsDecoder.decodeValues(line, from, to, userValues, parameterIndices.length)) {
+            updateAllValues();
+        }
     }
 
     /**
-     * Updates all parameter.userValues for each parameter in PARAMETERS if
-     * we have keys and values previously set and they are of the same length.
+     * Updates BFV.parameterValues from BFV.userValues
      * Assumes that value at position n belongs to key at position n!
      *
      */
     private void updateAllValues() {
-        if(hasParameterKeys && hasValues &&
-                (parameterKeys.length == userValues.length)) {
-            for (int i = 0; i < parameterKeys.length && i < userValues.length; i++) {
-                PARAMETERS.get(getParameterName(parameterKeys[i])).setFromParsed(userValues[i]);
+        if (parameterKeysInOrder && !SettingsDecoder.hasNegative(userValues, parameterValues.length)) {
+            // BST of known firmware, values are in order of ordinals
+            System.arraycopy(userValues, 0, parameterValues, 0, parameterValues.length);
+        } else {
+            for (int i = 0; i < parameterIndices.length; i++) {
+                int index = parameterIndices[i];
+                // unknown codes (ie. from newer firmware) and negative values are skipped
+                if (index != CodeTable.NOT_FOUND && userValues[i] >= 0) {
+                    parameterValues[index] = userValues[i];
+                }
             }
-            updatedValues = true;
+        }
+        // volatile write after values are stored publishes them to threads reading count first
+        settingsCount++;
+        updatedValues = true;
+        updateDerivedParameters();
+        BFVState current = state;
+        if (current != null) {
+            current.publishSettings(parameterValues);
+        }
+        for (BFVListener listener : listeners) {
+            listener.onSettings();
         }
     }
 
     /**
-     * Resets all parameter.userValue in PARAMETERS
+     * Updates BFV.vario position noise, BFV.samplePeriod and output decoder from positionNoise,
+     * outputFrequency and outputMode parameters, default values are used until settings are received.
+     * Output mode is only switched by received outputMode parameter and not if it was set by setOutputMode.
      *
      */
-    private void resetAllParameterValues() {
-        for (Command command: this.PARAMETERS.values()) {
-            command.resetValue();
+    private void updateDerivedParameters() {
+        int noise = parameterValue(CommandRegistry.POSITION_NOISE);
+        if (noise > 0) {
+            vario.setPositionNoise(noise / CommandRegistry.PARAMETER_LIST[CommandRegistry.POSITION_NOISE].getFactor());
         }
+        int divisor = parameterValue(CommandRegistry.OUTPUT_FREQUENCY);
+        if (divisor > 0) {
+            samplePeriod = SAMPLE_PERIOD * divisor;
+        }
+        int mode = parameterValues[CommandRegistry.OUTPUT_MODE];
+        if (mode >= 0 && !outputModeSelected) {
+            selectOutputMode(mode);
+        }
+    }
+
+    /**
+     * Selects decoder for lines of provided hardware output mode
+     *
+     * @param mode one of OUTPUT_MODE_* values of outputMode parameter
+     */
+    private void selectOutputMode(int mode) {
+        this.outputMode = mode;
+        this.outputDecoder = OutputDecoders.forMode(mode);
     }
 
     /**
-     * Convenient way to get parameter name from parameter code ie. 'BVU' -> 'volumeUp'
+     * Returns number of SET lines applied since creation, read it before getParameterValue
+     * so that values of counted SET lines are visible to calling thread
      *
-     * @param code to get name from
-     * @return name of provided code
+     * @return number of SET lines applied since creation
      */
-    private String getParameterName(String code) {
-        return parameterCodeToName.get(code);
+    int getSettingsCount() {
+        return settingsCount;
+    }
+
+    /**
+     * Returns value of parameter received from device
+     *
+     * @param ordinal of parameter in CommandRegistry.PARAMETER_LIST
+     * @return value of parameter, -1 if it was not received
+     */
+    int getParameterValue(int ordinal) {
+        return parameterValues[ordinal];
+    }
+
+    /**
+     * Returns value of parameter received from device or its default value if it was not received
+     *
+     * @param ordinal of parameter in CommandRegistry.PARAMETER_LIST
+     * @return value of parameter
+     */
+    private int parameterValue(int ordinal) {
+        int value = parameterValues[ordinal];
+        return value >= 0 ? value : CommandRegistry.PARAMETER_LIST[ordinal].getDefaultValue();
+    }
+
+    /**
+     * Resets all values in BFV.parameterValues
+     *
+     */
+    private void resetAllParameterValues() {
+        Arrays.fill(parameterValues, -1);
     }
 
     /**
@@ -599,7 +770,7 @@ public class BFV {
      * @param line to decode hw version from
      * @return decoded hw version
      */
-    private static String getHwVersionFromLine(String line) {
+    static String getHwVersionFromLine(String line) {
         String[] split = line.split(" ");
         String version;
         if (split.length > 2) {
@@ -611,40 +782,27 @@ public class BFV {
     }
 
     /**
-     * Returns decoded temperature from line
+     * Returns decoded temperature from value in line
      *
      * @param line to decode temperature from
+     * @param from index of first value character
+     * @param to index after last value character
      * @return decoded temperature
      */
-    private static Double getTemperatureFromLine(String line) {
-        String value = line.split(" ")[1];
-        return Double.parseDouble(value) / 10.0;
+    static double getTemperatureFromValue(byte[] line, int from, int to) {
+        return Ascii.parseDecimal(line, from, to) / 10.0;
     }
 
     /**
-     * Returns decoded battery from line
+     * Returns decoded battery from value in line
      *
      * @param line to decode battery from
+     * @param from index of first value character
+     * @param to index after last value character
      * @return decoded battery
      */
-    private static Double getBatteryFromLine(String line) {
-        String value = line.split(" ")[1];
-        return Integer.parseInt(value, 16) / 1000.0;
-    }
-
-    /**
-     * Returns decoded altitude from line
-     *
-     * @param line to decode altitude from
-     * @return decoded altitude
-     */
-    private static Double getAltitudeFromLine(String line, Double qnh) {
-        String[] split = line.split(" ");
-        if(split.length > 1) {
-            int pressure = Integer.parseInt(split[1], 16);
-            return 44330.0 * (1 - Math.pow((pressure / qnh), 0.190295));
-        }
-        return Double.NaN;
+    static double getBatteryFromValue(byte[] line, int from, int to) {
+        return Ascii.parseHex(line, from, to) / 1000.0;
     }
 
     /**
@@ -655,39 +813,184 @@ public class BFV {
     private void setHardwareVersion(String line) {
         this.updatedHardwareVersion = true;
         this.hardwareVersion = getHwVersionFromLine(line);
+        for (BFVListener listener : listeners) {
+            listener.onHardwareVersion(this.hardwareVersion);
+        }
     }
 
     /**
-     * Updates BFV.temperature from provided line
+     * Updates BFV.temperature to provided value
      *
-     * @param line to decode temperature from
+     * @param temperature decoded temperature
      */
-    private void setTemperature(String line) {
+    void setTemperature(double temperature) {
         this.updatedTemperature = true;
-        this.temperature = getTemperatureFromLine(line);
+        this.temperature = temperature;
+        BFVState current = state;
+        if (current != null) {
+            current.publishTemperature(temperature);
+        }
+        for (BFVListener listener : listeners) {
+            listener.onTemperature(temperature);
+        }
     }
 
     /**
-     * Updates BFV.battery from provided line
+     * Updates BFV.battery to provided value
      *
-     * @param line to decode battery from
+     * @param battery decoded battery
      */
-    private void setBattery(String line) {
+    void setBattery(double battery) {
         this.updatedBattery = true;
-        this.battery = getBatteryFromLine(line);
+        this.battery = battery;
+        BFVState current = state;
+        if (current != null) {
+            current.publishBattery(battery);
+        }
+        for (BFVListener listener : listeners) {
+            listener.onBattery(battery);
+        }
     }
 
     /**
-     * Updates BFV.altitude from provided line, if provided altitude is same as
+     * Updates BFV.altitude from provided pressure, if calculated altitude is same value as
      * last altitude - does nothing
      *
-     * @param line to decode altitude from
+     * @param pressure decoded pressure in Pascals
      */
-    private void setAltitudeFomDevice(String line) {
-        Double altitude = getAltitudeFromLine(line, this.qnh);
-        if(this.altitude != altitude) {
+    void updatePressure(double pressure) {
+        // clock follows every received sample so that decimation does not hide dropped or duplicate lines
+        updateSampleClock();
+        for (BFVListener listener : listeners) {
+            listener.onPressure(pressure);
+        }
+        if (pressureFilter != null) {
+            pressure = pressureFilter.filter(pressure);
+            if (Double.isNaN(pressure)) {
+                return;
+            }
+        }
+        updateAltitude(pressure, altitudeConverter.toAltitude(pressure), samplePeriod * pressureDecimation);
+    }
+
+    /**
+     * Updates BFV.altitude from altitude calculated by device for output modes that
+     * don't report pressure
+     *
+     * @param altitude decoded altitude in meters
+     */
+    void updateAltitudeFromDevice(double altitude) {
+        updateSampleClock();
+        updateAltitude(Double.NaN, altitude, samplePeriod);
+    }
+
+    /**
+     * Updates BFV.sampleClock with arrival time of line being parsed, if it is known
+     *
+     */
+    private void updateSampleClock() {
+        if (arrivalNanos != SampleClock.NO_TIME) {
+            sampleClock.update(arrivalNanos, Math.round(samplePeriod * 1e9));
+        }
+    }
+
+    /**
+     * Feeds new altitude sample to BFV.vario and histories and updates BFV.altitude,
+     * if altitude is same value as last altitude - BFV.altitude is not updated
+     *
+     * @param pressure in Pascals, Double.NaN if not known
+     * @param altitude in meters
+     * @param period seconds since previous sample
+     */
+    private void updateAltitude(double pressure, double altitude, double period) {
+        vario.update(altitude, period);
+        if (altitudeHistory != null && !Double.isNaN(altitude) && !Double.isInfinite(altitude)) {
+            if (!Double.isNaN(pressure)) {
+                pressureHistory.append(pressure);
+            }
+            altitudeHistory.append(altitude);
+        }
+        // altitude is stored before listeners are called so they can read current value
+        boolean changed = Double.compare(this.altitude, altitude) != 0;
+        if (changed) {
             this.altitude = altitude;
             this.updatedAltitude = true;
         }
+        BFVState current = state;
+        if (current != null) {
+            current.publishSample(pressure, altitude, vario.getVerticalSpeed());
+        }
+        for (BFVListener listener : listeners) {
+            listener.onVerticalSpeed(vario.getVerticalSpeed());
+        }
+        if (changed) {
+            for (BFVListener listener : listeners) {
+                listener.onAltitude(altitude);
+            }
+        }
+    }
+
+    /**
+     * Returns BFV.lineBuffer grown to hold at least length bytes
+     *
+     * @param length required capacity
+     * @return line buffer
+     */
+    private byte[] lineBuffer(int length) {
+        if (lineBuffer.length < length) {
+            lineBuffer = new byte[Math.max(length, lineBuffer.length * 2)];
+        }
+        return lineBuffer;
+    }
+
+    /**
+     * Passes values decoded by LineDecoder to BFV, keeps its setters out of public API
+     *
+     */
+    private final class DecodedValues implements DeviceValues {
+        @Override
+        public void updatePressure(double pressure) {
+            BFV.this.updatePressure(pressure);
+        }
+
+        @Override
+        public void updateAltitudeFromDevice(double altitude) {
+            BFV.this.updateAltitudeFromDevice(altitude);
+        }
+
+        @Override
+        public void setTemperature(double temperature) {
+            BFV.this.setTemperature(temperature);
+        }
+
+        @Override
+        public void setBattery(double battery) {
+            BFV.this.setBattery(battery);
+        }
+
+        @Override
+        public void setHardwareVersion(String line) {
+            BFV.this.setHardwareVersion(line);
+        }
+
+        @Override
+        public void updateParameterKeys(byte[] line, int from, int to) {
+            BFV.this.updateParameterKeys(line, from, to);
+        }
+
+        @Override
+        public void updateValues(byte[] line, int from, int to) {
+            BFV.this.updateValues(line, from, to);
+        }
+
+        @Override
+        public void parsePmtkLine(byte[] line, int offset, int length) {
+            pmtkParser.parseLine(line, offset, length);
+        }
+
+        @Override
+        public void parseMS5611Line(byte[] line, int from, int to) {
+            ms5611Decoder.parseLine(line, from, to);
+        }
     }
 }
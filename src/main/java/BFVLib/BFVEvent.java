@@ -0,0 +1,45 @@
+package BFVLib;
+
+/**
+ * BFVEvent is immutable value published by BFVPublisher
+ *
+ */
+public final class BFVEvent {
+    public static final int TYPE_PRESSURE = 0;
+    public static final int TYPE_ALTITUDE = 1;
+    public static final int TYPE_SETTINGS = 2;
+    static final int TYPE_COUNT = 3;
+
+    private final int type;
+    private final double value;
+    private final long sequence;
+
+    BFVEvent(int type, double value, long sequence) {
+        this.type = type;
+        this.value = value;
+        this.sequence = sequence;
+    }
+
+    /**
+     * @return one of TYPE_PRESSURE, TYPE_ALTITUDE, TYPE_SETTINGS
+     */
+    public int getType() {
+        return type;
+    }
+
+    /**
+     * Settings events carry no value, parameter values are read with BFV.read(BFVReading)
+     *
+     * @return pressure in Pascals, altitude in meters or Double.NaN for settings
+     */
+    public double getValue() {
+        return value;
+    }
+
+    /**
+     * @return number of events published before this one, gaps show events not received by subscriber
+     */
+    public long getSequence() {
+        return sequence;
+    }
+}
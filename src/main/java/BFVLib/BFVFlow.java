@@ -0,0 +1,80 @@
+package BFVLib;
+
+/**
+ * BFVFlow holds reactive stream interfaces with the same shape and contract as
+ * java.util.concurrent.Flow, which is not available on Java 8 / older Android.
+ * On Java 9+ subscribers are adapted to Flow by delegating each method.
+ *
+ * @see BFVPublisher
+ */
+public final class BFVFlow {
+    private BFVFlow() {
+    }
+
+    /**
+     * Producer of items received by Subscribers
+     *
+     * @param <T> type of published items
+     */
+    public interface Publisher<T> {
+        /**
+         * Adds subscriber, it receives onSubscribe and then items it requested
+         *
+         * @param subscriber to add
+         */
+        void subscribe(Subscriber<? super T> subscriber);
+    }
+
+    /**
+     * Receiver of items, methods are called serially for each subscription
+     *
+     * @param <T> type of received items
+     */
+    public interface Subscriber<T> {
+        /**
+         * Called before any other method of subscription
+         *
+         * @param subscription used to request items or cancel
+         */
+        void onSubscribe(Subscription subscription);
+
+        /**
+         * Called with next requested item
+         *
+         * @param item received
+         */
+        void onNext(T item);
+
+        /**
+         * Called when subscription failed, no other method is called after it
+         *
+         * @param throwable cause of failure
+         */
+        void onError(Throwable throwable);
+
+        /**
+         * Called when no more items will be received
+         *
+         */
+        void onComplete();
+    }
+
+    /**
+     * Link between Publisher and Subscriber
+     *
+     */
+    public interface Subscription {
+        /**
+         * Adds n items to demand of subscriber
+         *
+         * @param n number of items, must be > 0
+         */
+        void request(long n);
+
+        /**
+         * Stops receiving items
+         *
+         */
+        void cancel();
+    }
+}
@@ -0,0 +1,567 @@
+package BFVLib;
+
+import java.util.Arrays;
+
+/**
+ * BFVHub decodes output of many BlueFlyVario devices at once, ie. in ground station.
+ *
+ * Command and parameter definitions are shared by all devices (see CommandRegistry), per device
+ * are kept only decoded values in primitive arrays indexed by device id, so adding device costs
+ * a few hundred bytes and does not build any definitions. Altitude converter (QNH) is shared too.
+ *
+ * Lines are dispatched by LineDecoder like in BFV: native BlueFlyVario output - PRS, TMP, BAT, BFV,
+ * BST and SET lines and LK8EX1, LX, FlyNet and OpenVario output modes, selected from received
+ * outputMode parameter or by setOutputMode. Hub does not decode PMTK (LOCUS) and MS5611 lines,
+ * they are counted together with unknown lines by getIgnoredLineCount. Hub is not thread safe,
+ * all lines must be parsed on one thread.
+ *
+ */
+public class BFVHub {
+    private static final int NO_VALUE = BFVReading.NO_VALUE;
+    private static final BFVHubListener[] NO_LISTENERS = new BFVHubListener[0];
+
+    private final AltitudeConverter altitudeConverter = new AltitudeConverter(101325.0);
+    private final int parameterCount = CommandRegistry.PARAMETER_LIST.length;
+
+    private int deviceCount = 0;
+    private double[] pressure;
+    private double[] altitude;
+    private double[] temperature;
+    private double[] battery;
+    private double[] samplePeriod;
+    private long[] sampleCount;
+    private KalmanVario[] vario;
+    private String[] hardwareVersion;
+    // parameter values of device n are at n * parameterCount + ordinal in CommandRegistry.PARAMETER_LIST
+    private int[] parameterValues;
+    // parameter indices in order of last BST line of device, shared by devices with the same BST line
+    private int[][] parameterIndices;
+    private int[] lastParameterIndices;
+    private int[] outputMode;
+    // true if output mode of device was set by setOutputMode, received outputMode parameter is then ignored
+    private boolean[] outputModeSelected;
+    private OutputDecoder[] outputDecoder;
+    private long[] checksumErrorCount;
+    private long[] ignoredLineCount;
+    // receive values decoded by LineDecoder, one for each device
+    private DeviceValues[] decodedValues;
+
+    private int[] setValues = new int[64];
+    private byte[] lineBuffer = new byte[128];
+    private BFVHubListener[] listeners = NO_LISTENERS;
+
+    /**
+     * Creates hub with room for 16 devices
+     *
+     */
+    public BFVHub() {
+        this(16);
+    }
+
+    /**
+     * Creates hub with room for provided number of devices, more devices can be added anyway
+     *
+     * @param capacity number of devices to allocate room for
+     */
+    public BFVHub(int capacity) {
+        assert (capacity > 0);
+        pressure = new double[capacity];
+        altitude = new double[capacity];
+        temperature = new double[capacity];
+        battery = new double[capacity];
+        samplePeriod = new double[capacity];
+        sampleCount = new long[capacity];
+        vario = new KalmanVario[capacity];
+        hardwareVersion = new String[capacity];
+        parameterValues = new int[capacity * parameterCount];
+        parameterIndices = new int[capacity][];
+        outputMode = new int[capacity];
+        outputModeSelected = new boolean[capacity];
+        outputDecoder = new OutputDecoder[capacity];
+        checksumErrorCount = new long[capacity];
+        ignoredLineCount = new long[capacity];
+        decodedValues = new DeviceValues[capacity];
+    }
+
+    /**
+     * Adds device to the hub
+     *
+     * @return id of device used in parseLine and getters, ids are assigned from 0
+     */
+    public int addDevice() {
+        if (deviceCount == pressure.length) {
+            int capacity = deviceCount * 2;
+            pressure = Arrays.copyOf(pressure, capacity);
+            altitude = Arrays.copyOf(altitude, capacity);
+            temperature = Arrays.copyOf(temperature, capacity);
+            battery = Arrays.copyOf(battery, capacity);
+            samplePeriod = Arrays.copyOf(samplePeriod, capacity);
+            sampleCount = Arrays.copyOf(sampleCount, capacity);
+            vario = Arrays.copyOf(vario, capacity);
+            hardwareVersion = Arrays.copyOf(hardwareVersion, capacity);
+            parameterValues = Arrays.copyOf(parameterValues, capacity * parameterCount);
+            parameterIndices = Arrays.copyOf(parameterIndices, capacity);
+            outputMode = Arrays.copyOf(outputMode, capacity);
+            outputModeSelected = Arrays.copyOf(outputModeSelected, capacity);
+            outputDecoder = Arrays.copyOf(outputDecoder, capacity);
+            checksumErrorCount = Arrays.copyOf(checksumErrorCount, capacity);
+            ignoredLineCount = Arrays.copyOf(ignoredLineCount, capacity);
+            decodedValues = Arrays.copyOf(decodedValues, capacity);
+        }
+        int device = deviceCount++;
+        vario[device] = new KalmanVario();
+        decodedValues[device] = new DecodedValues(device);
+        resetDevice(device);
+        return device;
+    }
+
+    /**
+     * Forgets all values received from device, ie. after reconnecting
+     *
+     * @param device id returned by addDevice
+     */
+    public void resetDevice(int device) {
+        checkDevice(device);
+        pressure[device] = Double.NaN;
+        altitude[device] = Double.NaN;
+        temperature[device] = Double.NaN;
+        battery[device] = Double.NaN;
+        sampleCount[device] = 0;
+        hardwareVersion[device] = "";
+        parameterIndices[device] = null;
+        int start = device * parameterCount;
+        Arrays.fill(parameterValues, start, start + parameterCount, NO_VALUE);
+        vario[device].reset();
+        updateDerivedParameters(device);
+    }
+
+    /**
+     * @return number of added devices
+     */
+    public int getDeviceCount() {
+        return deviceCount;
+    }
+
+    /**
+     * Creates framer splitting raw byte stream of device into lines parsed by this hub
+     *
+     * @param device id returned by addDevice
+     * @return new framer of device
+     */
+    public LineFramer createFramer(int device) {
+        checkDevice(device);
+        return new LineFramer((line, offset, length) -> parseLine(device, line, offset, length),
+                LineFramer.DEFAULT_MAX_LINE_LENGTH);
+    }
+
+    /**
+     * Adds listener that will be notified synchronously from parseLine about every decoded value
+     *
+     * @param listener to add
+     */
+    public void addListener(BFVHubListener listener) {
+        BFVHubListener[] added = Arrays.copyOf(listeners, listeners.length + 1);
+        added[listeners.length] = listener;
+        listeners = added;
+    }
+
+    /**
+     * Removes previously added listener
+     *
+     * @param listener to remove
+     * @return true if listener was removed, false if it was not added
+     */
+    public boolean removeListener(BFVHubListener listener) {
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] == listener) {
+                BFVHubListener[] removed = new BFVHubListener[listeners.length - 1];
+                System.arraycopy(listeners, 0, removed, 0, i);
+                System.arraycopy(listeners, i + 1, removed, i, removed.length - i);
+                listeners = removed.length == 0 ? NO_LISTENERS : removed;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Sets QNH used to calculate altitude of all devices
+     *
+     * @param qnh in Pascals
+     */
+    public void setQnh(double qnh) {
+        altitudeConverter.setQnh(qnh);
+    }
+
+    /**
+     * Returns converter of pressure to altitude shared by all devices
+     *
+     * @return BFVHub.altitudeConverter
+     */
+    public AltitudeConverter getAltitudeConverter() {
+        return altitudeConverter;
+    }
+
+    /**
+     * Parses line received from device
+     *
+     * @param device id returned by addDevice
+     * @param line from serial port to parse
+     */
+    public void parseLine(int device, String line) {
+        int length = line.length();
+        if (lineBuffer.length < length) {
+            lineBuffer = new byte[Math.max(length, lineBuffer.length * 2)];
+        }
+        for (int i = 0; i < length; i++) {
+            lineBuffer[i] = (byte) line.charAt(i);
+        }
+        parseLine(device, lineBuffer, 0, length);
+    }
+
+    /**
+     * Parses line of ASCII bytes received from device
+     *
+     * @param device id returned by addDevice
+     * @param line bytes holding line
+     * @param offset of the first byte of the line
+     * @param length of the line, trailing line terminator is ignored
+     * @throws NumberFormatException if value of line is malformed
+     */
+    public void parseLine(int device, byte[] line, int offset, int length) {
+        checkDevice(device);
+        int result = LineDecoder.decode(line, offset, length, outputDecoder[device], decodedValues[device]);
+        if (result == OutputDecoder.INVALID_CHECKSUM) {
+            checksumErrorCount[device]++;
+        } else if (result == OutputDecoder.NOT_HANDLED) {
+            ignoredLineCount[device]++;
+        }
+    }
+
+    /**
+     * Selects decoder for lines of provided hardware output mode of device, native BlueFlyVario lines
+     * are still parsed in every mode. Until this is called output mode is selected automatically when
+     * settings holding outputMode parameter are received, afterwards selected mode is kept.
+     *
+     * @param device id returned by addDevice
+     * @param mode one of BFV.OUTPUT_MODE_* values of outputMode parameter
+     */
+    public void setOutputMode(int device, int mode) {
+        checkDevice(device);
+        outputModeSelected[device] = true;
+        selectOutputMode(device, mode);
+    }
+
+    /**
+     * @param device id returned by addDevice
+     * @return currently selected output mode of device, one of BFV.OUTPUT_MODE_*
+     */
+    public int getOutputMode(int device) {
+        checkDevice(device);
+        return outputMode[device];
+    }
+
+    /**
+     * @param device id returned by addDevice
+     * @return number of lines of device ignored because of invalid NMEA checksum
+     */
+    public long getChecksumErrorCount(int device) {
+        checkDevice(device);
+        return checksumErrorCount[device];
+    }
+
+    /**
+     * @param device id returned by addDevice
+     * @return number of lines of device that were not decoded - informational messages, lines of
+     * other output mode than selected one, PMTK and MS5611 lines
+     */
+    public long getIgnoredLineCount(int device) {
+        checkDevice(device);
+        return ignoredLineCount[device];
+    }
+
+    /**
+     * @param device id returned by addDevice
+     * @return last pressure in Pascals, Double.NaN if it was not received
+     */
+    public double getPressure(int device) {
+        checkDevice(device);
+        return pressure[device];
+    }
+
+    /**
+     * @param device id returned by addDevice
+     * @return last altitude in meters, Double.NaN if it was not received
+     */
+    public double getAltitude(int device) {
+        checkDevice(device);
+        return altitude[device];
+    }
+
+    /**
+     * @param device id returned by addDevice
+     * @return vertical speed in m/s estimated by Kalman filter, Double.NaN before first sample
+     */
+    public double getVerticalSpeed(int device) {
+        checkDevice(device);
+        return vario[device].getVerticalSpeed();
+    }
+
+    /**
+     * @param device id returned by addDevice
+     * @return last temperature in degrees Celsius, Double.NaN if it was not received
+     */
+    public double getTemperature(int device) {
+        checkDevice(device);
+        return temperature[device];
+    }
+
+    /**
+     * @param device id returned by addDevice
+     * @return last battery voltage in Volts, Double.NaN if it was not received
+     */
+    public double getBattery(int device) {
+        checkDevice(device);
+        return battery[device];
+    }
+
+    /**
+     * @param device id returned by addDevice
+     * @return number of pressure or altitude samples received from device
+     */
+    public long getSampleCount(int device) {
+        checkDevice(device);
+        return sampleCount[device];
+    }
+
+    /**
+     * @param device id returned by addDevice
+     * @return hardware version of device, empty if it was not received
+     */
+    public String getHardwareVersion(int device) {
+        checkDevice(device);
+        return hardwareVersion[device];
+    }
+
+    /**
+     * Returns value of parameter as sent by device (not multiplied by factor)
+     *
+     * @param device id returned by addDevice
+     * @param code of parameter, ie. 'BFK'
+     * @return value of parameter, BFVReading.NO_VALUE if it was not received or code is not known
+     */
+    public int getParameterValue(int device, String code) {
+        checkDevice(device);
+        int index = CommandRegistry.PARAMETER_CODES.get(code);
+        return index == CodeTable.NOT_FOUND ? NO_VALUE : parameterValues[device * parameterCount + index];
+    }
+
+    /**
+     * Updates pressure, altitude and vertical speed of device with new sample
+     *
+     */
+    private void updatePressure(int device, double newPressure) {
+        pressure[device] = newPressure;
+        for (BFVHubListener listener : listeners) {
+            listener.onPressure(device, newPressure);
+        }
+        updateAltitude(device, altitudeConverter.toAltitude(newPressure));
+    }
+
+    /**
+     * Updates altitude and vertical speed of device with new sample, altitude is either calculated
+     * from pressure or by device for output modes that don't report pressure
+     *
+     */
+    private void updateAltitude(int device, double newAltitude) {
+        KalmanVario filter = vario[device];
+        filter.update(newAltitude, samplePeriod[device]);
+        sampleCount[device]++;
+        boolean changed = Double.compare(altitude[device], newAltitude) != 0;
+        altitude[device] = newAltitude;
+
+        for (BFVHubListener listener : listeners) {
+            listener.onVerticalSpeed(device, filter.getVerticalSpeed());
+            if (changed) {
+                listener.onAltitude(device, newAltitude);
+            }
+        }
+    }
+
+    /**
+     * Updates temperature of device
+     *
+     */
+    private void updateTemperature(int device, double newTemperature) {
+        temperature[device] = newTemperature;
+        for (BFVHubListener listener : listeners) {
+            listener.onTemperature(device, newTemperature);
+        }
+    }
+
+    /**
+     * Updates battery voltage of device
+     *
+     */
+    private void updateBattery(int device, double newBattery) {
+        battery[device] = newBattery;
+        for (BFVHubListener listener : listeners) {
+            listener.onBattery(device, newBattery);
+        }
+    }
+
+    /**
+     * Updates hardware version of device from BFV line
+     *
+     */
+    private void updateHardwareVersion(int device, String line) {
+        String version = BFV.getHwVersionFromLine(line);
+        hardwareVersion[device] = version;
+        for (BFVHubListener listener : listeners) {
+            listener.onHardwareVersion(device, version);
+        }
+    }
+
+    /**
+     * Updates parameter indices of device from codes of BST line, indices equal to previous BST line
+     * of any device are shared
+     *
+     */
+    private void updateParameterKeys(int device, byte[] line, int from, int to) {
+        int[] indices = SettingsDecoder.decodeKeys(line, from, to, null);
+        if (Arrays.equals(indices, lastParameterIndices)) {
+            indices = lastParameterIndices;
+        }
+        if (setValues.length < indices.length) {
+            setValues = new int[indices.length];
+        }
+        lastParameterIndices = indices;
+        parameterIndices[device] = indices;
+    }
+
+    /**
+     * Updates parameter values of device from values of SET line if their count matches last BST line
+     *
+     */
+    private void updateValues(int device, byte[] line, int from, int to) {
+        int[] indices = parameterIndices[device];
+        // it's possible that BST wasn't received
+        if (indices == null || !SettingsDecoder.decodeValues(line, from, to, setValues, indices.length)) {
+            return;
+        }
+        int count = indices.length;
+        int values = device * parameterCount;
+        for (int i = 0; i < count; i++) {
+            // unknown codes (ie. from newer firmware) and negative values are skipped
+            if (indices[i] != CodeTable.NOT_FOUND && setValues[i] >= 0) {
+                parameterValues[values + indices[i]] = setValues[i];
+            }
+        }
+        updateDerivedParameters(device);
+        for (BFVHubListener listener : listeners) {
+            listener.onSettings(device);
+        }
+    }
+
+    /**
+     * Updates Kalman filter position noise, sample period and output decoder of device from positionNoise,
+     * outputFrequency and outputMode parameters like BFV, default values are used until settings are received.
+     * Output mode is only switched by received outputMode parameter and not if it was set by setOutputMode.
+     *
+     */
+    private void updateDerivedParameters(int device) {
+        CommandDefinition positionNoise = CommandRegistry.PARAMETER_LIST[CommandRegistry.POSITION_NOISE];
+        int noise = parameterValue(device, CommandRegistry.POSITION_NOISE);
+        if (noise > 0) {
+            vario[device].setPositionNoise(noise / positionNoise.getFactor());
+        }
+        int divisor = parameterValue(device, CommandRegistry.OUTPUT_FREQUENCY);
+        if (divisor > 0) {
+            samplePeriod[device] = BFV.SAMPLE_PERIOD * divisor;
+        }
+        int mode = parameterValues[device * parameterCount + CommandRegistry.OUTPUT_MODE];
+        if (mode >= 0 && !outputModeSelected[device]) {
+            selectOutputMode(device, mode);
+        }
+    }
+
+    /**
+     * Selects decoder for lines of provided hardware output mode of device
+     *
+     */
+    private void selectOutputMode(int device, int mode) {
+        outputMode[device] = mode;
+        outputDecoder[device] = OutputDecoders.forMode(mode);
+    }
+
+    /**
+     * @return value of parameter received from device or its default value
+     */
+    private int parameterValue(int device, int index) {
+        int value = parameterValues[device * parameterCount + index];
+        return value != NO_VALUE ? value : CommandRegistry.PARAMETER_LIST[index].getDefaultValue();
+    }
+
+    private void checkDevice(int device) {
+        if (device < 0 || device >= deviceCount) {
+            throw new IndexOutOfBoundsException("device: " + device + ", count: " + deviceCount);
+        }
+    }
+
+    /**
+     * Passes values decoded by LineDecoder to one device of the hub
+     *
+     */
+    private final class DecodedValues implements DeviceValues {
+        private final int device;
+
+        DecodedValues(int device) {
+            this.device = device;
+        }
+
+        @Override
+        public void updatePressure(double pressure) {
+            BFVHub.this.updatePressure(device, pressure);
+        }
+
+        @Override
+        public void updateAltitudeFromDevice(double altitude) {
+            updateAltitude(device, altitude);
+        }
+
+        @Override
+        public void setTemperature(double temperature) {
+            updateTemperature(device, temperature);
+        }
+
+        @Override
+        public void setBattery(double battery) {
+            updateBattery(device, battery);
+        }
+
+        @Override
+        public void setHardwareVersion(String line) {
+            updateHardwareVersion(device, line);
+        }
+
+        @Override
+        public void updateParameterKeys(byte[] line, int from, int to) {
+            BFVHub.this.updateParameterKeys(device, line, from, to);
+        }
+
+        @Override
+        public void updateValues(byte[] line, int from, int to) {
+            BFVHub.this.updateValues(device, line, from, to);
+        }
+
+        @Override
+        public void parsePmtkLine(byte[] line, int offset, int length) {
+            ignoredLineCount[device]++;
+        }
+
+        @Override
+        public void parseMS5611Line(byte[] line, int from, int to) {
+            ignoredLineCount[device]++;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package BFVLib;
+
+/**
+ * BFVHubListener receives values decoded by BFVHub together with id of device they came from.
+ *
+ * Callbacks are called synchronously on the thread calling BFVHub.parseLine,
+ * so they should return quickly. All methods have empty default implementation,
+ * override only the ones you need.
+ *
+ */
+public interface BFVHubListener {
+    /**
+     * Called for every pressure sample received from device
+     *
+     * @param device id returned by BFVHub.addDevice
+     * @param pressure in Pascals
+     */
+    default void onPressure(int device, double pressure) {
+    }
+
+    /**
+     * Called when altitude calculated from received pressure changes
+     *
+     * @param device id returned by BFVHub.addDevice
+     * @param altitude in meters
+     */
+    default void onAltitude(int device, double altitude) {
+    }
+
+    /**
+     * Called for every pressure sample with vertical speed estimated by device Kalman filter
+     *
+     * @param device id returned by BFVHub.addDevice
+     * @param verticalSpeed in m/s, positive when climbing
+     */
+    default void onVerticalSpeed(int device, double verticalSpeed) {
+    }
+
+    /**
+     * Called when temperature is received from device
+     *
+     * @param device id returned by BFVHub.addDevice
+     * @param temperature in degrees Celsius
+     */
+    default void onTemperature(int device, double temperature) {
+    }
+
+    /**
+     * Called when battery voltage is received from device
+     *
+     * @param device id returned by BFVHub.addDevice
+     * @param battery in Volts
+     */
+    default void onBattery(int device, double battery) {
+    }
+
+    /**
+     * Called when hardware version is received from device
+     *
+     * @param device id returned by BFVHub.addDevice
+     * @param hardwareVersion decoded hardware version
+     */
+    default void onHardwareVersion(int device, String hardwareVersion) {
+    }
+
+    /**
+     * Called when parameter values of device have been updated from device settings,
+     * new values are available in BFVHub.getParameterValue
+     *
+     * @param device id returned by BFVHub.addDevice
+     */
+    default void onSettings(int device) {
+    }
+}
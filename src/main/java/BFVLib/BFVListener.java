@@ -0,0 +1,67 @@
+package BFVLib;
+
+/**
+ * BFVListener receives values decoded by BFV as soon as they are parsed.
+ *
+ * Callbacks are called synchronously on the thread calling BFV.parseLine,
+ * so they should return quickly. All methods have empty default implementation,
+ * override only the ones you need.
+ *
+ */
+public interface BFVListener {
+    /**
+     * Called for every pressure sample received from device
+     *
+     * @param pressure in Pascals
+     */
+    default void onPressure(double pressure) {
+    }
+
+    /**
+     * Called when altitude calculated from received pressure changes
+     *
+     * @param altitude in meters
+     */
+    default void onAltitude(double altitude) {
+    }
+
+    /**
+     * Called for every pressure sample with vertical speed estimated by BFV Kalman filter
+     *
+     * @param verticalSpeed in m/s, positive when climbing
+     */
+    default void onVerticalSpeed(double verticalSpeed) {
+    }
+
+    /**
+     * Called when temperature is received from device
+     *
+     * @param temperature in degrees Celsius
+     */
+    default void onTemperature(double temperature) {
+    }
+
+    /**
+     * Called when battery voltage is received from device
+     *
+     * @param battery in Volts
+     */
+    default void onBattery(double battery) {
+    }
+
+    /**
+     * Called when hardware version is received from device
+     *
+     * @param hardwareVersion decoded hardware version
+     */
+    default void onHardwareVersion(String hardwareVersion) {
+    }
+
+    /**
+     * Called when parameter values have been updated from device settings,
+     * new values are available in BFV.getAllParameters()
+     *
+     */
+    default void onSettings() {
+    }
+}
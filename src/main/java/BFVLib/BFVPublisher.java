@@ -0,0 +1,373 @@
+package BFVLib;
+
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * BFVPublisher publishes pressure, altitude and settings events of BFV to subscribers
+ * consuming them at their own pace, register it with BFV.addListener.
+ *
+ * Parser thread only stores event in queue of every subscription and never waits for subscribers,
+ * events are delivered on executor serially for each subscription, as much as subscriber requested.
+ * Every subscription selects policy used while subscriber is slower than the device:
+ * POLICY_BUFFER - events are kept in bounded ring, the oldest event is dropped when ring is full
+ * POLICY_CONFLATE - only the latest event of every type is kept
+ * POLICY_DROP - events arriving without outstanding request are dropped
+ *
+ */
+public class BFVPublisher implements BFVListener, BFVFlow.Publisher<BFVEvent> {
+    public static final int POLICY_BUFFER = 0;
+    public static final int POLICY_CONFLATE = 1;
+    public static final int POLICY_DROP = 2;
+
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private static final Subscription[] NO_SUBSCRIPTIONS = new Subscription[0];
+
+    private final Executor executor;
+    private volatile Subscription[] subscriptions = NO_SUBSCRIPTIONS;
+    private volatile boolean closed = false;
+    private long sequence = 0;
+
+    /**
+     * Creates publisher delivering events on common ForkJoinPool
+     *
+     */
+    public BFVPublisher() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates publisher delivering events on provided executor
+     *
+     * @param executor running delivery to subscribers, must not run tasks on calling thread
+     *                 if parser should never wait for subscribers
+     */
+    public BFVPublisher(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Subscribes with POLICY_BUFFER of DEFAULT_CAPACITY events
+     *
+     * @param subscriber to add
+     */
+    @Override
+    public void subscribe(BFVFlow.Subscriber<? super BFVEvent> subscriber) {
+        subscribe(subscriber, POLICY_BUFFER, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Subscribes with provided backpressure policy
+     *
+     * @param subscriber to add
+     * @param policy one of POLICY_BUFFER, POLICY_CONFLATE, POLICY_DROP
+     * @param capacity of ring for POLICY_BUFFER and POLICY_DROP, ignored for POLICY_CONFLATE
+     * @return subscription of subscriber, ie. for reading its dropped event count
+     */
+    public Subscription subscribe(BFVFlow.Subscriber<? super BFVEvent> subscriber, int policy, int capacity) {
+        assert (policy >= POLICY_BUFFER && policy <= POLICY_DROP);
+        assert (capacity > 0);
+        Subscription subscription = new Subscription(subscriber, policy,
+                policy == POLICY_CONFLATE ? BFVEvent.TYPE_COUNT : capacity);
+        subscriber.onSubscribe(subscription);
+        synchronized (this) {
+            if (closed) {
+                subscription.complete();
+            } else {
+                Subscription[] added = Arrays.copyOf(subscriptions, subscriptions.length + 1);
+                added[subscriptions.length] = subscription;
+                subscriptions = added;
+            }
+        }
+        return subscription;
+    }
+
+    /**
+     * @return number of active subscriptions
+     */
+    public int getSubscriberCount() {
+        return subscriptions.length;
+    }
+
+    /**
+     * Completes all subscriptions after their queued events are delivered, later events are ignored
+     *
+     */
+    public void close() {
+        Subscription[] completed;
+        synchronized (this) {
+            closed = true;
+            completed = subscriptions;
+            subscriptions = NO_SUBSCRIPTIONS;
+        }
+        for (Subscription subscription : completed) {
+            subscription.complete();
+        }
+    }
+
+    @Override
+    public void onPressure(double pressure) {
+        publish(BFVEvent.TYPE_PRESSURE, pressure);
+    }
+
+    @Override
+    public void onAltitude(double altitude) {
+        publish(BFVEvent.TYPE_ALTITUDE, altitude);
+    }
+
+    @Override
+    public void onSettings() {
+        publish(BFVEvent.TYPE_SETTINGS, Double.NaN);
+    }
+
+    /**
+     * Queues event to all subscriptions, called on parser thread
+     *
+     * @param type of event
+     * @param value of event
+     */
+    private void publish(int type, double value) {
+        Subscription[] current = subscriptions;
+        if (current.length == 0) {
+            return;
+        }
+        BFVEvent event = new BFVEvent(type, value, sequence++);
+        for (Subscription subscription : current) {
+            subscription.offer(event);
+        }
+    }
+
+    /**
+     * Removes cancelled subscription
+     *
+     */
+    private synchronized void remove(Subscription subscription) {
+        for (int i = 0; i < subscriptions.length; i++) {
+            if (subscriptions[i] == subscription) {
+                Subscription[] removed = new Subscription[subscriptions.length - 1];
+                System.arraycopy(subscriptions, 0, removed, 0, i);
+                System.arraycopy(subscriptions, i + 1, removed, i, removed.length - i);
+                subscriptions = removed.length == 0 ? NO_SUBSCRIPTIONS : removed;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Subscription with queue of events waiting for demand of its subscriber,
+     * queue is guarded by lock of subscription and drained on executor
+     *
+     */
+    public final class Subscription implements BFVFlow.Subscription, Runnable {
+        private final BFVFlow.Subscriber<? super BFVEvent> subscriber;
+        private final int policy;
+
+        // ring of queued events, for POLICY_CONFLATE one slot per event type
+        private final BFVEvent[] queue;
+        private int head = 0;
+        private int count = 0;
+
+        private long demand = 0;
+        private long droppedCount = 0;
+        private boolean cancelled = false;
+        private boolean completed = false;
+        private Throwable error;
+
+        // number of drain requests, only the first one schedules drain
+        private final AtomicInteger pending = new AtomicInteger();
+
+        private Subscription(BFVFlow.Subscriber<? super BFVEvent> subscriber, int policy, int capacity) {
+            this.subscriber = subscriber;
+            this.policy = policy;
+            this.queue = new BFVEvent[capacity];
+        }
+
+        @Override
+        public void request(long n) {
+            synchronized (this) {
+                if (cancelled) {
+                    return;
+                }
+                if (n <= 0) {
+                    error = new IllegalArgumentException("non-positive request: " + n);
+                } else {
+                    demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+                }
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (this) {
+                cancelled = true;
+                count = 0;
+                Arrays.fill(queue, null);
+            }
+            remove(this);
+        }
+
+        /**
+         * @return number of events dropped by policy of this subscription
+         */
+        public synchronized long getDroppedCount() {
+            return droppedCount;
+        }
+
+        /**
+         * Queues event according to policy, called on parser thread
+         *
+         */
+        private void offer(BFVEvent event) {
+            synchronized (this) {
+                if (cancelled || completed) {
+                    return;
+                }
+                switch (policy) {
+                    case POLICY_CONFLATE:
+                        if (queue[event.getType()] == null) {
+                            count++;
+                        } else {
+                            droppedCount++;
+                        }
+                        queue[event.getType()] = event;
+                        break;
+                    case POLICY_DROP:
+                        if (count >= demand || count == queue.length) {
+                            droppedCount++;
+                            return;
+                        }
+                        enqueue(event);
+                        break;
+                    default:
+                        if (count == queue.length) {
+                            // overwrite the oldest event
+                            head = (head + 1) % queue.length;
+                            count--;
+                            droppedCount++;
+                        }
+                        enqueue(event);
+                        break;
+                }
+                if (demand == 0) {
+                    return;
+                }
+            }
+            schedule();
+        }
+
+        /**
+         * Completes subscription after queued events are delivered
+         *
+         */
+        private void complete() {
+            synchronized (this) {
+                completed = true;
+            }
+            schedule();
+        }
+
+        private void enqueue(BFVEvent event) {
+            queue[(head + count) % queue.length] = event;
+            count++;
+        }
+
+        /**
+         * Returns next queued event, conflated events are returned in order of their sequence
+         *
+         */
+        private BFVEvent poll() {
+            BFVEvent event;
+            if (policy == POLICY_CONFLATE) {
+                int next = -1;
+                for (int type = 0; type < queue.length; type++) {
+                    if (queue[type] != null && (next < 0 || queue[type].getSequence() < queue[next].getSequence())) {
+                        next = type;
+                    }
+                }
+                event = queue[next];
+                queue[next] = null;
+            } else {
+                event = queue[head];
+                queue[head] = null;
+                head = (head + 1) % queue.length;
+            }
+            count--;
+            return event;
+        }
+
+        private void schedule() {
+            if (pending.getAndIncrement() == 0) {
+                try {
+                    executor.execute(this);
+                } catch (RuntimeException e) {
+                    pending.set(0);
+                    signalError(e);
+                }
+            }
+        }
+
+        /**
+         * Delivers queued events to subscriber as long as there is demand, runs on executor
+         *
+         */
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                while (true) {
+                    BFVEvent event = null;
+                    boolean done = false;
+                    Throwable failure;
+                    synchronized (this) {
+                        if (cancelled) {
+                            return;
+                        }
+                        failure = error;
+                        if (failure == null) {
+                            if (count > 0 && demand > 0) {
+                                event = poll();
+                                if (demand != Long.MAX_VALUE) {
+                                    demand--;
+                                }
+                            } else if (count == 0 && completed) {
+                                done = true;
+                                cancelled = true;
+                            }
+                        }
+                    }
+                    if (failure != null) {
+                        signalError(failure);
+                        return;
+                    }
+                    if (done) {
+                        subscriber.onComplete();
+                        return;
+                    }
+                    if (event == null) {
+                        break;
+                    }
+                    try {
+                        subscriber.onNext(event);
+                    } catch (RuntimeException e) {
+                        signalError(e);
+                        return;
+                    }
+                }
+                missed = pending.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        /**
+         * Cancels subscription and passes failure to subscriber
+         *
+         */
+        private void signalError(Throwable failure) {
+            cancel();
+            subscriber.onError(failure);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package BFVLib;
+
+import java.util.Arrays;
+
+/**
+ * BFVReading is consistent snapshot of values decoded by BFV, filled by BFV.read on any thread.
+ *
+ * Reading is created once per reader thread with BFV.createReading and refilled for every read,
+ * so reading does not allocate. Single reading must not be shared between threads.
+ *
+ */
+public final class BFVReading {
+    public static final int NO_VALUE = Integer.MIN_VALUE;
+
+    private final CodeTable parameterCodes;
+
+    long sampleCount;
+    double pressure = Double.NaN;
+    double altitude = Double.NaN;
+    double verticalSpeed = Double.NaN;
+    double temperature = Double.NaN;
+    double battery = Double.NaN;
+    int settingsVersion = -1;
+    final int[] parameterValues;
+
+    BFVReading(CodeTable parameterCodes, int parameterCount) {
+        this.parameterCodes = parameterCodes;
+        this.parameterValues = new int[parameterCount];
+        Arrays.fill(parameterValues, NO_VALUE);
+    }
+
+    /**
+     * @return number of pressure / altitude samples received before this reading
+     */
+    public long getSampleCount() {
+        return sampleCount;
+    }
+
+    /**
+     * @return last pressure in Pascals, Double.NaN if it was not received
+     */
+    public double getPressure() {
+        return pressure;
+    }
+
+    /**
+     * @return last altitude in meters, Double.NaN if it was not received
+     */
+    public double getAltitude() {
+        return altitude;
+    }
+
+    /**
+     * @return vertical speed in m/s estimated by BFV Kalman filter, Double.NaN before first sample
+     */
+    public double getVerticalSpeed() {
+        return verticalSpeed;
+    }
+
+    /**
+     * @return last temperature in degrees Celsius, Double.NaN if it was not received
+     */
+    public double getTemperature() {
+        return temperature;
+    }
+
+    /**
+     * @return last battery voltage in Volts, Double.NaN if it was not received
+     */
+    public double getBattery() {
+        return battery;
+    }
+
+    /**
+     * @return version of parameter values, changes whenever parameter values change
+     */
+    public int getSettingsVersion() {
+        return settingsVersion;
+    }
+
+    /**
+     * Returns value of parameter as sent by device (not multiplied by factor)
+     *
+     * @param index ordinal of parameter, its position in BST line of current firmware
+     * @return value of parameter, NO_VALUE if it was not received
+     */
+    public int getParameterValue(int index) {
+        return parameterValues[index];
+    }
+
+    /**
+     * Returns value of parameter as sent by device (not multiplied by factor)
+     *
+     * @param code of parameter, ie. 'BFK'
+     * @return value of parameter, NO_VALUE if it was not received or code is not known
+     */
+    public int getParameterValue(String code) {
+        int index = parameterCodes.get(code);
+        return index == CodeTable.NOT_FOUND ? NO_VALUE : parameterValues[index];
+    }
+}
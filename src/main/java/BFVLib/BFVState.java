@@ -0,0 +1,125 @@
+package BFVLib;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * BFVState publishes values decoded by BFV from parser thread to any number of reader threads.
+ *
+ * Values are protected by sequence lock: single writer makes sequence odd, writes values and makes it even again,
+ * readers copy values and retry if sequence was odd or changed meanwhile. Neither side locks nor allocates.
+ * All fields are volatile so the copy is ordered between both sequence reads.
+ *
+ */
+final class BFVState {
+    private volatile long sequence = 0;
+
+    private volatile long sampleCount = 0;
+    private volatile double pressure = Double.NaN;
+    private volatile double altitude = Double.NaN;
+    private volatile double verticalSpeed = Double.NaN;
+    private volatile double temperature = Double.NaN;
+    private volatile double battery = Double.NaN;
+    private volatile int settingsVersion = 0;
+    private final AtomicIntegerArray parameterValues;
+
+    BFVState(int parameterCount) {
+        parameterValues = new AtomicIntegerArray(parameterCount);
+        for (int i = 0; i < parameterCount; i++) {
+            parameterValues.set(i, BFVReading.NO_VALUE);
+        }
+    }
+
+    /**
+     * Publishes pressure sample, called by parser thread only
+     *
+     */
+    void publishSample(double pressure, double altitude, double verticalSpeed) {
+        sequence++;
+        this.sampleCount++;
+        this.pressure = pressure;
+        this.altitude = altitude;
+        this.verticalSpeed = verticalSpeed;
+        sequence++;
+    }
+
+    /**
+     * Publishes temperature, called by parser thread only
+     *
+     */
+    void publishTemperature(double temperature) {
+        sequence++;
+        this.temperature = temperature;
+        sequence++;
+    }
+
+    /**
+     * Publishes battery, called by parser thread only
+     *
+     */
+    void publishBattery(double battery) {
+        sequence++;
+        this.battery = battery;
+        sequence++;
+    }
+
+    /**
+     * Publishes values of all parameters, called by parser thread only
+     *
+     * @param values of parameters by ordinal, negative if not set
+     */
+    void publishSettings(int[] values) {
+        sequence++;
+        for (int i = 0; i < values.length; i++) {
+            parameterValues.set(i, values[i] >= 0 ? values[i] : BFVReading.NO_VALUE);
+        }
+        settingsVersion++;
+        sequence++;
+    }
+
+    /**
+     * Publishes all values at once, ie. after BFV.resetAllValues, called by parser thread only
+     *
+     */
+    void publishAll(double altitude, double verticalSpeed, double temperature, double battery, int[] values) {
+        sequence++;
+        this.pressure = Double.NaN;
+        this.altitude = altitude;
+        this.verticalSpeed = verticalSpeed;
+        this.temperature = temperature;
+        this.battery = battery;
+        sequence++;
+        publishSettings(values);
+    }
+
+    /**
+     * Copies consistent snapshot of published values into reading, parameter values are copied
+     * only when settings changed since reading was last filled
+     *
+     * @param reading to fill
+     */
+    void read(BFVReading reading) {
+        while (true) {
+            long before = sequence;
+            if ((before & 1) == 0) {
+                reading.sampleCount = sampleCount;
+                reading.pressure = pressure;
+                reading.altitude = altitude;
+                reading.verticalSpeed = verticalSpeed;
+                reading.temperature = temperature;
+                reading.battery = battery;
+                int version = settingsVersion;
+                boolean settingsChanged = version != reading.settingsVersion;
+                if (settingsChanged) {
+                    for (int i = 0; i < reading.parameterValues.length; i++) {
+                        reading.parameterValues[i] = parameterValues.get(i);
+                    }
+                }
+                if (sequence == before) {
+                    // version is stored only for consistent copy, torn parameter values are copied again on retry
+                    reading.settingsVersion = version;
+                    return;
+                }
+            }
+        }
+    }
+}
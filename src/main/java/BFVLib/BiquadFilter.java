@@ -0,0 +1,73 @@
+package BFVLib;
+
+/**
+ * BiquadFilter is second order IIR low pass filter (Butterworth for default Q) in transposed
+ * direct form II, coefficients after Robert Bristow-Johnson's audio EQ cookbook.
+ * State is initialized to steady state of the first sample.
+ *
+ */
+public class BiquadFilter implements PressureFilter {
+    public static final double BUTTERWORTH_Q = Math.sqrt(0.5);
+
+    private final double b0;
+    private final double b1;
+    private final double b2;
+    private final double a1;
+    private final double a2;
+
+    private double z1;
+    private double z2;
+    private boolean started = false;
+
+    /**
+     * Creates Butterworth low pass filter
+     *
+     * @param cutoff frequency in Hz
+     * @param sampleRate of filtered samples in Hz
+     */
+    public BiquadFilter(double cutoff, double sampleRate) {
+        this(cutoff, sampleRate, BUTTERWORTH_Q);
+    }
+
+    /**
+     * Creates low pass filter
+     *
+     * @param cutoff frequency in Hz, must be below half of sampleRate
+     * @param sampleRate of filtered samples in Hz
+     * @param q quality factor
+     */
+    public BiquadFilter(double cutoff, double sampleRate, double q) {
+        assert (cutoff > 0 && cutoff < sampleRate / 2 && q > 0);
+        double w0 = 2 * Math.PI * cutoff / sampleRate;
+        double cos = Math.cos(w0);
+        double alpha = Math.sin(w0) / (2 * q);
+        double a0 = 1 + alpha;
+        this.b0 = (1 - cos) / 2 / a0;
+        this.b1 = (1 - cos) / a0;
+        this.b2 = (1 - cos) / 2 / a0;
+        this.a1 = -2 * cos / a0;
+        this.a2 = (1 - alpha) / a0;
+    }
+
+    @Override
+    public double filter(double value) {
+        if (Double.isNaN(value)) {
+            return Double.NaN;
+        }
+        if (!started) {
+            // state of filter that received value forever
+            z1 = value - b0 * value;
+            z2 = b2 * value - a2 * value;
+            started = true;
+        }
+        double output = b0 * value + z1;
+        z1 = b1 * value - a1 * output + z2;
+        z2 = b2 * value - a2 * output;
+        return output;
+    }
+
+    @Override
+    public void reset() {
+        started = false;
+    }
+}
@@ -0,0 +1,142 @@
+package BFVLib;
+
+import java.util.Arrays;
+
+/**
+ * CodeTable maps 3 character BlueFlyVario codes (ie. 'PRS', 'BFK') to int values
+ * using perfect hash of the code packed into int.
+ *
+ * Multiplier of the hash is searched at construction so that no two codes share a slot,
+ * lookup is then one multiplication, one array read and one comparison without any allocation.
+ *
+ */
+final class CodeTable {
+    static final int NOT_FOUND = -1;
+
+    private final int[] keys;
+    private final int[] values;
+    private final int multiplier;
+    private final int shift;
+
+    /**
+     * Creates table mapping codes[i] -> values[i]
+     *
+     * @param codes 3 character codes, must be unique
+     * @param values to map codes to, must be >= 0
+     */
+    CodeTable(String[] codes, int[] values) {
+        assert (codes.length == values.length);
+        int[] packed = new int[codes.length];
+        for (int i = 0; i < codes.length; i++) {
+            assert (codes[i].length() == 3);
+            packed[i] = pack(codes[i].charAt(0), codes[i].charAt(1), codes[i].charAt(2));
+        }
+
+        int bits = 32 - Integer.numberOfLeadingZeros(Math.max(1, codes.length * 2 - 1));
+        int candidate = findMultiplier(packed, bits);
+        while (candidate == 0) {
+            bits++;
+            candidate = findMultiplier(packed, bits);
+        }
+
+        this.multiplier = candidate;
+        this.shift = 32 - bits;
+        this.keys = new int[1 << bits];
+        this.values = new int[1 << bits];
+        Arrays.fill(this.values, NOT_FOUND);
+        for (int i = 0; i < packed.length; i++) {
+            int slot = (packed[i] * multiplier) >>> shift;
+            this.keys[slot] = packed[i];
+            this.values[slot] = values[i];
+        }
+    }
+
+    /**
+     * Creates table mapping codes[i] -> i
+     *
+     * @param codes 3 character codes, must be unique
+     */
+    CodeTable(String[] codes) {
+        this(codes, indices(codes.length));
+    }
+
+    /**
+     * Returns value of 3 character code starting at offset
+     *
+     * @param line bytes holding code
+     * @param offset of the first code character
+     * @return value of code, NOT_FOUND if code is not in table
+     */
+    int get(byte[] line, int offset) {
+        return get(pack(line[offset], line[offset + 1], line[offset + 2]));
+    }
+
+    /**
+     * Returns value of code
+     *
+     * @param code to look up
+     * @return value of code, NOT_FOUND if code is not in table or is not 3 characters long
+     */
+    int get(String code) {
+        if (code.length() != 3) {
+            return NOT_FOUND;
+        }
+        return get(pack(code.charAt(0), code.charAt(1), code.charAt(2)));
+    }
+
+    /**
+     * Returns value of packed code
+     *
+     * @param packed code packed with pack()
+     * @return value of code, NOT_FOUND if code is not in table
+     */
+    int get(int packed) {
+        int slot = (packed * multiplier) >>> shift;
+        return keys[slot] == packed ? values[slot] : NOT_FOUND;
+    }
+
+    /**
+     * Packs 3 characters into int
+     *
+     * @return packed code
+     */
+    static int pack(int c0, int c1, int c2) {
+        return ((c0 & 0xFF) << 16) | ((c1 & 0xFF) << 8) | (c2 & 0xFF);
+    }
+
+    /**
+     * Searches for odd multiplier that maps all packed codes to different slots of 2^bits sized table
+     *
+     * @param packed codes
+     * @param bits log2 of table size
+     * @return found multiplier, 0 if none of tried multipliers is perfect
+     */
+    private static int findMultiplier(int[] packed, int bits) {
+        boolean[] used = new boolean[1 << bits];
+        int candidate = 0x9E3779B1;
+        for (int attempt = 0; attempt < 1000; attempt++, candidate += 0x632BE5AA) {
+            Arrays.fill(used, false);
+            boolean perfect = true;
+            for (int i = 0; i < packed.length && perfect; i++) {
+                int slot = (packed[i] * candidate) >>> (32 - bits);
+                perfect = !used[slot];
+                used[slot] = true;
+            }
+            if (perfect) {
+                return candidate;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return array of indices 0 ... length - 1
+     */
+    private static int[] indices(int length) {
+        int[] indices = new int[length];
+        for (int i = 0; i < length; i++) {
+            indices[i] = i;
+        }
+        return indices;
+    }
+}
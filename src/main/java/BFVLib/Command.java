@@ -1,142 +1,55 @@
 package BFVLib;
 
+import java.nio.ByteBuffer;
+
 /**
  * Command object is used to hold BlueFlyVario command codes and
  * provides serialization of said codes with or without user provided values / arguments
  *
+ * Command is a view of shared CommandDefinition and value of the command kept
+ * in parameter value store of its BFV.
+ *
  */
 public class Command {
-    private final String code;
-    private final String description;
-
     private static final String PREFIX = "$";
     private static final String SUFFIX = "*";
 
-    private boolean hasDefaultValue = false;
-    private int defaultValue = -1;
-
-    private boolean hasValue = false;
-    private int userValue = -1;
+    private final CommandDefinition definition;
 
-    private boolean acceptsArguments = false;
-    private String defaultArguments;
+    // value store of the device and index of this command in it, userValue is -1 if not set
+    private final int[] values;
+    private final int ordinal;
 
     private boolean hasArguments = false;
     private String userArguments;
 
-    private boolean hasMinHWVersion = false;
-    private int minHWVersion;
-
-    private boolean hasParameters = false;
-    private int type;
-    private int minVal;
-    private int maxVal;
-    private double factor;
-
-    private boolean isPmtk = false;
-
     /**
-     * Constructor of builder that is used to create BlueFlyVario device commands
+     * Creates command with its own value
      *
-     * @param code command code
-     * @param description command description
-     * @return Builder with provided code and description
+     * @param definition of command
      */
-    protected static Builder Builder(String code, String description) {
-        return new Builder(code, description);
+    Command(CommandDefinition definition) {
+        this(definition, new int[] {-1}, 0);
     }
 
     /**
-     * Builder that provides methods for setting command fields
+     * Creates command keeping its value in values store of device
      *
+     * @param definition of command
+     * @param values store of parameter values of device
+     * @param ordinal index of value of this command in values
      */
-    protected static final class Builder {
-        private final Command cmd;
-
-        Builder(String code, String description) {
-            assert ( ! code.isEmpty() && ! description.isEmpty());
-            cmd = new Command(code, description);
-
-            if (code.startsWith("PMTK")){
-                cmd.isPmtk = true;
-            }
-        }
-
-        /**
-         * Sets acceptsArguments to provided value
-         *
-         * @param value to set acceptsArguments to
-         */
-        Builder setAcceptsArguments(Boolean value) {
-            cmd.acceptsArguments = value;
-            return this;
-        }
-
-        /**
-         * Sets defaultArguments to provided value
-         *
-         * @param value to set defaultArguments to
-         */
-        Builder setDefaultArguments(String value) {
-            cmd.defaultArguments = value;
-            return this;
-        }
-
-        /**
-         * Sets minHWVersion to provided value and hasMinHWVersion to true
-         *
-         * @param value to set minHWVersion to
-         */
-        Builder setMinHwVersion(int value) {
-            cmd.minHWVersion = value;
-            cmd.hasMinHWVersion = true;
-            return this;
-        }
-
-        /**
-         * Sets parameters(type, minVal, maxVal, factor) to provided values
-         * and hasParameters to true
-         *
-         * @param type of parameter
-         * @param minVal min value of the parameter, must be >= 0
-         * @param maxVal max value of the parameter, must be <= 65535
-         * @param factor of the parameter value
-         */
-        Builder setParameters(int type, int minVal, int maxVal, double factor) {
-            assert (type >= BFV.TYPE_INT && type <= BFV.TYPE_INTLIST);
-            cmd.type = type;
-
-            assert (minVal >= 0);
-            cmd.minVal = minVal;
-
-            assert (maxVal <= 65535);
-            cmd.maxVal = maxVal;
-
-            cmd.factor = factor;
-            cmd.hasParameters = true;
-            return this;
-        }
-
-        /**
-         * Sets defaultValue to provided values and hasDefaultValue to true
-         *
-         * @param value to set defaultValue to
-         */
-        Builder setDefaultValue(int value) {
-            assert (value >= cmd.getMinVal() && value <= cmd.getMaxVal());
-            cmd.defaultValue = value;
-            cmd.hasDefaultValue = true;
-            return this;
-        }
+    Command(CommandDefinition definition, int[] values, int ordinal) {
+        this.definition = definition;
+        this.values = values;
+        this.ordinal = ordinal;
+    }
 
-        /**
-         * Builds the Command
-         *
-         * @return built Command
-         */
-        Command build() {
-            return cmd;
-        }
+    /**
+     * @return shared immutable definition of this Command
+     */
+    public final CommandDefinition getDefinition() {
+        return definition;
     }
 
     /**
@@ -144,8 +57,7 @@ public class Command {
      *
      */
     protected void resetValue() {
-        this.userValue = -1;
-        this.hasValue = false;
+        values[ordinal] = -1;
     }
 
     /**
@@ -157,8 +69,7 @@ public class Command {
      */
     protected boolean setFromParsed(int iValue) {
         if(iValue >= 0) {
-            userValue = iValue;
-            hasValue = true;
+            values[ordinal] = iValue;
             return true;
         }
         else {
@@ -186,32 +97,29 @@ public class Command {
      */
     public final String serializeCommand() {
         // create plain _code
-        String _code = this.code;
-
-        // compile PMTK _code
-        if(_code.startsWith("PMTK")) {
-            _code = PREFIX +
-                    _code +
-                    SUFFIX +
-                    Integer.toHexString(pmtkChecksum(_code)).toUpperCase() +
-                    "\r\n";
+        String _code = definition.getCommandCode();
+        int userValue = values[ordinal];
+
+        // cached PMTK _code with checksum
+        if(definition.isPmtk()) {
+            _code = definition.getPmtkLine();
         }
         else {
             // add arguments
-            if(this.acceptsArguments) {
+            if(definition.acceptsArguments()) {
                 _code = _code + " ";
 
                 if(hasArguments) {
                     _code = _code + userArguments;
                 }
                 else {
-                    _code = _code + defaultArguments;
+                    _code = _code + definition.getDefaultArguments();
                 }
             }
 
             // add parameters
-            else if(this.hasParameters && this.hasValue) {
-                _code = _code + " " + this.userValue;
+            else if(definition.hasParameters() && userValue >= 0) {
+                _code = _code + " " + userValue;
             }
 
             // add prefix and suffix
@@ -221,39 +129,70 @@ public class Command {
         return _code;
     }
 
+    /**
+     * Serializes command in format that BlueFlyVario device accepts via serial / bluetooth
+     * as ASCII bytes at position of buffer, same bytes as serializeCommand() without creating Strings
+     *
+     * @param buffer to write serialized command to, position is advanced past it
+     * @return number of bytes written
+     * @throws java.nio.BufferOverflowException if command does not fit into remaining bytes of buffer
+     */
+    public final int serializeInto(ByteBuffer buffer) {
+        int start = buffer.position();
+        buffer.put(definition.getSerializedPrefix());
+        if(definition.isPmtk()) {
+            return buffer.position() - start;
+        }
+
+        if(definition.acceptsArguments()) {
+            String arguments = hasArguments ? userArguments : definition.getDefaultArguments();
+            if(arguments != null) {
+                for (int i = 0; i < arguments.length(); i++) {
+                    buffer.put((byte) arguments.charAt(i));
+                }
+            }
+        }
+        else if(definition.hasParameters() && values[ordinal] >= 0) {
+            buffer.put((byte) ' ');
+            Ascii.putInt(buffer, values[ordinal]);
+        }
+        buffer.put((byte) '*');
+        return buffer.position() - start;
+    }
+
     /**
      * @return true if Command accepts arguments, false otherwise
      */
     public final boolean acceptsArguments(){
-        return acceptsArguments;
+        return definition.acceptsArguments();
     }
 
     /**
      * @return true if Parameter has minimal required hardware version, false otherwise
      */
     public final boolean hasMinHWVersion(){
-        return hasMinHWVersion;
+        return definition.hasMinHWVersion();
     }
 
     /**
      * @return true if Command has Parameters, false otherwise
      */
     public final boolean hasParameters(){
-        return hasParameters;
+        return definition.hasParameters();
     }
 
     /**
      * @return true if Parameter has default value, false otherwise
      */
     public final boolean hasDefaultValue(){
-        return hasDefaultValue;
+        return definition.hasDefaultValue();
     }
 
     /**
      * @return true if Parameter has user value, false otherwise
      */
     public final boolean hasValue() {
-        return hasValue;
+        return values[ordinal] >= 0;
     }
 
     /**
@@ -262,49 +201,49 @@ public class Command {
      * @return type of the Parameter
      */
     public final int getType(){
-        return type;
+        return definition.getType();
     }
 
     /**
      * @return code of the Command
      */
     public final String getCommandCode(){
-        return code;
+        return definition.getCommandCode();
     }
 
     /**
      * @return description of the Command
      */
     public final String getDescription(){
-        return description;
+        return definition.getDescription();
     }
 
     /**
      * @return Commands minimal supported hardware wersion
      */
     public int getMinHWVersion() {
-        return minHWVersion;
+        return definition.getMinHWVersion();
     }
 
     /**
      * @return Commands default arguments
      */
     public final String getDefaultArguments(){
-        return defaultArguments;
+        return definition.getDefaultArguments();
     }
 
     /**
      * @return defaultValue formatted for sending to the device
      */
     public final int getDefaultValue(){
-        return defaultValue;
+        return definition.getDefaultValue();
     }
 
     /**
      * @return userValue formatted for sending to the device
      */
     public final int getValue() {
-        return userValue;
+        return values[ordinal];
     }
 
     /**
@@ -313,8 +252,8 @@ public class Command {
      * @return userValue as string if value is set, null otherwise
      */
     public String getValueAsString() {
-        if (this.userValue != -1) {
-            return valueToString(this.userValue);
+        if (values[ordinal] != -1) {
+            return valueToString(values[ordinal]);
         }
         else {
             return null;
@@ -327,8 +266,8 @@ public class Command {
      * @return defaultValue as string if value is set, null otherwise
      */
     public String getDefaultValueAsString() {
-        if (this.defaultValue != -1) {
-            return valueToString(this.defaultValue);
+        if (definition.getDefaultValue() != -1) {
+            return valueToString(definition.getDefaultValue());
         }
         else {
             return null;
@@ -339,28 +278,28 @@ public class Command {
      * @return minimum allowed command value
      */
     public int getMinVal() {
-        return minVal;
+        return definition.getMinVal();
     }
 
     /**
      * @return maximum allowed command value
      */
     public int getMaxVal() {
-        return maxVal;
+        return definition.getMaxVal();
     }
 
     /**
      * @return factor of command value
      */
     public double getFactor() {
-        return factor;
+        return definition.getFactor();
     }
 
     /**
      * @return true if command is pmtk command, false otherwise
      */
     public boolean isPmtk() {
-        return isPmtk;
+        return definition.isPmtk();
     }
 
     /**
@@ -420,12 +359,12 @@ public class Command {
 
             // if type double convert to double * factor
             case BFV.TYPE_DOUBLE:
-                dValue = dValue * this.factor;
+                dValue = dValue * definition.getFactor();
                 break;
 
             // if type int_offset convert to int - factor
             case BFV.TYPE_INTOFFSET:
-                dValue = dValue - this.factor;
+                dValue = dValue - definition.getFactor();
                 break;
 
             // if type bool convert to 0 or 1
@@ -442,17 +381,6 @@ public class Command {
         }
     }
 
-    /**
-     * Sets command code and description
-     *
-     * @param code of command
-     * @param description of command
-     */
-    private Command(String code, String description) {
-        this.code = code;
-        this.description = description;
-    }
-
     /**
      * Check if provided value is in this commands range of accepted values
      *
@@ -497,35 +425,11 @@ public class Command {
     private boolean setValueFromUncheckedUserProvidedValue(Double value) {
         int converted = toIntValueChecked(value);
         if(converted >= 0) {
-            userValue = converted;
-            hasValue = true;
+            values[ordinal] = converted;
             return true;
         }
         else {
             return false;
         }
     }
-
-    /**
-     * Calculates checksum for pmtk Command
-     *
-     * @param value String to calculate checksum for
-     * @return calculated checksum
-     */
-    private static int pmtkChecksum(String value) {
-        char[] msgArray = value.toCharArray();
-
-        int checksum = 0;
-        for ( char c : msgArray )
-        {
-            if ( (c == '!') || (c == '$')){
-                return -1;
-            }
-            if (c == '*')
-                break;
-
-            checksum ^= c;
-        }
-        return checksum;
-    }
 }
@@ -0,0 +1,315 @@
+package BFVLib;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * CommandDefinition holds immutable description of BlueFlyVario command or parameter -
+ * code, description, value range and type, default value and arguments.
+ *
+ * Definitions are created once in CommandRegistry and shared by all devices and threads,
+ * values set by user or received from device are kept per device (see Command).
+ *
+ */
+public final class CommandDefinition {
+    private final String code;
+    private final String description;
+
+    private final boolean hasDefaultValue;
+    private final int defaultValue;
+
+    private final boolean acceptsArguments;
+    private final String defaultArguments;
+
+    private final boolean hasMinHWVersion;
+    private final int minHWVersion;
+
+    private final boolean hasParameters;
+    private final int type;
+    private final int minVal;
+    private final int maxVal;
+    private final double factor;
+
+    private final boolean isPmtk;
+
+    // serialized form cached for allocation free serialization, see Command.serializeInto
+    // '$' + code (+ ' ' if command accepts arguments), whole line with checksum for pmtk commands
+    private final String pmtkLine;
+    private final byte[] serializedPrefix;
+
+    /**
+     * Constructor of builder that is used to create BlueFlyVario device command definitions
+     *
+     * @param code command code
+     * @param description command description
+     * @return Builder with provided code and description
+     */
+    static Builder Builder(String code, String description) {
+        return new Builder(code, description);
+    }
+
+    /**
+     * Builder that provides methods for setting definition fields
+     *
+     */
+    static final class Builder {
+        private final String code;
+        private final String description;
+        private boolean hasDefaultValue = false;
+        private int defaultValue = -1;
+        private boolean acceptsArguments = false;
+        private String defaultArguments;
+        private boolean hasMinHWVersion = false;
+        private int minHWVersion;
+        private boolean hasParameters = false;
+        private int type;
+        private int minVal;
+        private int maxVal;
+        private double factor;
+
+        Builder(String code, String description) {
+            assert ( ! code.isEmpty() && ! description.isEmpty());
+            this.code = code;
+            this.description = description;
+        }
+
+        /**
+         * Sets acceptsArguments to provided value
+         *
+         * @param value to set acceptsArguments to
+         */
+        Builder setAcceptsArguments(Boolean value) {
+            this.acceptsArguments = value;
+            return this;
+        }
+
+        /**
+         * Sets defaultArguments to provided value
+         *
+         * @param value to set defaultArguments to
+         */
+        Builder setDefaultArguments(String value) {
+            this.defaultArguments = value;
+            return this;
+        }
+
+        /**
+         * Sets minHWVersion to provided value and hasMinHWVersion to true
+         *
+         * @param value to set minHWVersion to
+         */
+        Builder setMinHwVersion(int value) {
+            this.minHWVersion = value;
+            this.hasMinHWVersion = true;
+            return this;
+        }
+
+        /**
+         * Sets parameters(type, minVal, maxVal, factor) to provided values
+         * and hasParameters to true
+         *
+         * @param type of parameter
+         * @param minVal min value of the parameter, must be >= 0
+         * @param maxVal max value of the parameter, must be <= 65535
+         * @param factor of the parameter value
+         */
+        Builder setParameters(int type, int minVal, int maxVal, double factor) {
+            assert (type >= BFV.TYPE_INT && type <= BFV.TYPE_INTLIST);
+            this.type = type;
+
+            assert (minVal >= 0);
+            this.minVal = minVal;
+
+            assert (maxVal <= 65535);
+            this.maxVal = maxVal;
+
+            this.factor = factor;
+            this.hasParameters = true;
+            return this;
+        }
+
+        /**
+         * Sets defaultValue to provided values and hasDefaultValue to true
+         *
+         * @param value to set defaultValue to
+         */
+        Builder setDefaultValue(int value) {
+            assert (value >= minVal && value <= maxVal);
+            this.defaultValue = value;
+            this.hasDefaultValue = true;
+            return this;
+        }
+
+        /**
+         * Builds the CommandDefinition
+         *
+         * @return built CommandDefinition
+         */
+        CommandDefinition build() {
+            return new CommandDefinition(this);
+        }
+    }
+
+    private CommandDefinition(Builder builder) {
+        this.code = builder.code;
+        this.description = builder.description;
+        this.hasDefaultValue = builder.hasDefaultValue;
+        this.defaultValue = builder.defaultValue;
+        this.acceptsArguments = builder.acceptsArguments;
+        this.defaultArguments = builder.defaultArguments;
+        this.hasMinHWVersion = builder.hasMinHWVersion;
+        this.minHWVersion = builder.minHWVersion;
+        this.hasParameters = builder.hasParameters;
+        this.type = builder.type;
+        this.minVal = builder.minVal;
+        this.maxVal = builder.maxVal;
+        this.factor = builder.factor;
+        this.isPmtk = code.startsWith("PMTK");
+
+        if (isPmtk) {
+            this.pmtkLine = "$" + code + "*" + Integer.toHexString(pmtkChecksum(code)).toUpperCase() + "\r\n";
+            this.serializedPrefix = pmtkLine.getBytes(StandardCharsets.US_ASCII);
+        } else {
+            this.pmtkLine = null;
+            this.serializedPrefix = ("$" + code + (acceptsArguments ? " " : "")).getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    /**
+     * @return serialized pmtk command with checksum and line terminator, null if command is not pmtk command
+     */
+    String getPmtkLine() {
+        return pmtkLine;
+    }
+
+    /**
+     * Returns cached start of serialized command, must not be modified
+     *
+     * @return whole serialized line for pmtk commands, '$' + code (+ ' ' if command accepts arguments) otherwise
+     */
+    byte[] getSerializedPrefix() {
+        return serializedPrefix;
+    }
+
+    /**
+     * @return true if Command accepts arguments, false otherwise
+     */
+    public boolean acceptsArguments() {
+        return acceptsArguments;
+    }
+
+    /**
+     * @return true if Parameter has minimal required hardware version, false otherwise
+     */
+    public boolean hasMinHWVersion() {
+        return hasMinHWVersion;
+    }
+
+    /**
+     * @return true if Command has Parameters, false otherwise
+     */
+    public boolean hasParameters() {
+        return hasParameters;
+    }
+
+    /**
+     * @return true if Parameter has default value, false otherwise
+     */
+    public boolean hasDefaultValue() {
+        return hasDefaultValue;
+    }
+
+    /**
+     * One of: TYPE_INT, TYPE_DOUBLE, TYPE_INTOFFSET, TYPE_BOOLEAN, TYPE_INTLIST
+     *
+     * @return type of the Parameter
+     */
+    public int getType() {
+        return type;
+    }
+
+    /**
+     * @return code of the Command
+     */
+    public String getCommandCode() {
+        return code;
+    }
+
+    /**
+     * @return description of the Command
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * @return Commands minimal supported hardware version
+     */
+    public int getMinHWVersion() {
+        return minHWVersion;
+    }
+
+    /**
+     * @return Commands default arguments
+     */
+    public String getDefaultArguments() {
+        return defaultArguments;
+    }
+
+    /**
+     * @return defaultValue formatted for sending to the device
+     */
+    public int getDefaultValue() {
+        return defaultValue;
+    }
+
+    /**
+     * @return minimum allowed command value
+     */
+    public int getMinVal() {
+        return minVal;
+    }
+
+    /**
+     * @return maximum allowed command value
+     */
+    public int getMaxVal() {
+        return maxVal;
+    }
+
+    /**
+     * @return factor of command value
+     */
+    public double getFactor() {
+        return factor;
+    }
+
+    /**
+     * @return true if command is pmtk command, false otherwise
+     */
+    public boolean isPmtk() {
+        return isPmtk;
+    }
+
+    /**
+     * Calculates checksum for pmtk Command
+     *
+     * @param value String to calculate checksum for
+     * @return calculated checksum
+     */
+    private static int pmtkChecksum(String value) {
+        char[] msgArray = value.toCharArray();
+
+        int checksum = 0;
+        for ( char c : msgArray )
+        {
+            if ( (c == '!') || (c == '$')){
+                return -1;
+            }
+            if (c == '*')
+                break;
+
+            checksum ^= c;
+        }
+        return checksum;
+    }
+}
@@ -0,0 +1,313 @@
+package BFVLib;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * CommandRegistry holds definitions of all BlueFlyVario commands and parameters.
+ *
+ * Definitions are built once and shared by all BFV and BFVHub instances. Parameters have
+ * ordinals in order the firmware lists them in BST line, so values received in SET line
+ * of known firmware can be copied into value store (int[] indexed by ordinal) at once.
+ *
+ */
+final class CommandRegistry {
+    // order of parameters in BST line of current firmware
+    private static final String[] FIRMWARE_ORDER = {
+            "BFK", "BFL", "BFP", "BAC", "BAD", "BTH", "BFQ", "BFI", "BSQ", "BSI", "BFS",
+            "BOL", "BOS", "BRM", "BVL", "BOM", "BOF", "BQH", "BRB", "BPT", "BUR", "BLD",
+            "BR2", "BHV", "BHT", "BBZ", "BZT", "BSM", "BUP", "BTT", "BDM", "BQS", "BGL" };
+
+    // 'commandName' -> command, 'parameterName' -> parameter, sorted by name
+    static final Map<String, CommandDefinition> COMMANDS;
+    static final Map<String, CommandDefinition> PARAMETERS;
+
+    // parameters and their names by ordinal, table of their codes -> ordinal
+    static final CommandDefinition[] PARAMETER_LIST;
+    static final String[] PARAMETER_NAMES;
+    static final CodeTable PARAMETER_CODES;
+
+    // indices of parameters used to configure decoding
+    static final int POSITION_NOISE;
+    static final int OUTPUT_FREQUENCY;
+    static final int OUTPUT_MODE;
+
+    static {
+        TreeMap<String, CommandDefinition> commands = new TreeMap<>();
+        TreeMap<String, CommandDefinition> parameters = new TreeMap<>();
+
+        // bfv commands
+        commands.put("volumeUp", CommandDefinition.Builder("BVU", "Volume Up (x2)")
+                .build());
+
+        commands.put("volumeDown", CommandDefinition.Builder("BVD", "Volume Down (/2)")
+                .build());
+
+        commands.put("getSettings", CommandDefinition.Builder("BST", "Get Settings")
+                .build());
+
+        commands.put("getTemp", CommandDefinition.Builder("TMP", "Get Temperature")
+                .build());
+
+        commands.put("reset", CommandDefinition.Builder("RST", "Simple Reset")
+                .build());
+
+        commands.put("restoreDefaults", CommandDefinition.Builder("RSX", "Reset and restore default settings")
+                .build());
+
+        commands.put("sleep", CommandDefinition.Builder("SLP", "Go To Sleep")
+                .build());
+
+        commands.put("sleepNoWake", CommandDefinition.Builder("SLX", "Sleep - No UART wake")
+                .build());
+
+        commands.put("simulateButton", CommandDefinition.Builder("BTN", "Simulate Button Press")
+                .build());
+
+        commands.put("playSound", CommandDefinition.Builder("BSD", "Play Sound")
+                .setAcceptsArguments(true)
+                .setDefaultArguments("800 500 400 500")
+                .build());
+
+
+        // pmtk commands
+        commands.put( "eraseLocus", CommandDefinition.Builder("PMTK184,1","Erase Locus")
+                .build());
+
+        commands.put( "queryLocus", CommandDefinition.Builder("PMTK183","Query Locus")
+                .build());
+
+        commands.put( "queryLocusData", CommandDefinition.Builder("PMTK622,0","Query Locus Data")
+                .build());
+
+
+        // bluetooth commands
+        commands.put( "setBluetoothName", CommandDefinition.Builder("RNC SN,","Set bluetooth name(max 16 characters)")
+                .setMinHwVersion(12)
+                .setAcceptsArguments(true)
+                .setDefaultArguments("BlueFly-")
+                .build());
+
+
+        // bfv parameters
+        parameters.put("useAudioWhenConnected", CommandDefinition.Builder("BAC", "Enable hardware audio when connected.")
+                .setParameters(BFV.TYPE_BOOLEAN, 0, 1, 1.0)
+                .setMinHwVersion(6)
+                .setDefaultValue(0)
+                .build());
+
+        parameters.put("useAudioWhenDisconnected", CommandDefinition.Builder("BAD", "Enable hardware audio when disconnected.")
+                .setParameters(BFV.TYPE_BOOLEAN, 0, 1, 1.0)
+                .setMinHwVersion(6)
+                .setDefaultValue(1)
+                .build());
+
+        parameters.put("positionNoise", CommandDefinition.Builder("BFK", "Kalman filter position noise.")
+                .setParameters(BFV.TYPE_DOUBLE, 10, 10000, 1000.0)
+                .setMinHwVersion(6)
+                .setDefaultValue(100)
+                .build());
+
+        parameters.put("liftThreshold", CommandDefinition.Builder("BFL", "Value in m/s of lift when the audio beeping will start.")
+                .setParameters(BFV.TYPE_DOUBLE, 0, 1000, 100.0)
+                .setMinHwVersion(6)
+                .setDefaultValue(20)
+                .build());
+
+        parameters.put("liftOffThreshold", CommandDefinition.Builder("BOL", "Value in m/s of lift when the audio beeping will stop.")
+                .setParameters(BFV.TYPE_DOUBLE, 0, 1000, 100.0)
+                .setMinHwVersion(6)
+                .setDefaultValue(5)
+                .build());
+
+        parameters.put("liftFreqBase", CommandDefinition.Builder("BFQ", "Audio frequency for lift beeps in Hz of 0 m/s.")
+                .setParameters(BFV.TYPE_INT, 500, 2000, 1.0)
+                .setMinHwVersion(6)
+                .setDefaultValue(1000)
+                .build());
+
+        parameters.put("liftFreqIncrement", CommandDefinition.Builder("BFI", "Increase in audio frequency for lift beeps in Hz for each 1 m/s.")
+                .setParameters(BFV.TYPE_INT, 0, 1000, 1.0)
+                .setMinHwVersion(6)
+                .setDefaultValue(100)
+                .build());
+
+        parameters.put("sinkThreshold", CommandDefinition.Builder("BFS", "Value in -m/s of sink when the sink tone will start.")
+                .setParameters(BFV.TYPE_DOUBLE, 0, 1000, 100.0)
+                .setMinHwVersion(6)
+                .setDefaultValue(20)
+                .build());
+
+        parameters.put("sinkOffThreshold", CommandDefinition.Builder("BOS", "Value in -m/s of sink when the sink tone will stop.")
+                .setParameters(BFV.TYPE_DOUBLE, 0, 1000, 100.0)
+                .setMinHwVersion(6)
+                .setDefaultValue(5)
+                .build());
+
+        parameters.put("sinkFreqBase", CommandDefinition.Builder("BSQ", "Audio frequency for the sink tone in Hz of 0 m/s.")
+                .setParameters(BFV.TYPE_INT, 250, 1000, 1.0)
+                .setMinHwVersion(6)
+                .setDefaultValue(400)
+                .build());
+
+        parameters.put("sinkFreqIncrement", CommandDefinition.Builder("BSI", "Decrease in audio frequency for sink tone in Hz for each -1 m/s.")
+                .setParameters(BFV.TYPE_INT, 0, 1000, 1.0)
+                .setMinHwVersion(6)
+                .setDefaultValue(100)
+                .build());
+
+        parameters.put("secondsBluetoothWait", CommandDefinition.Builder("BTH", "Time that the hardware will be allow establishment of a bluetooth connection for when turned on.")
+                .setParameters(BFV.TYPE_INT, 0, 10000, 1.0)
+                .setMinHwVersion(6)
+                .setDefaultValue(180)
+                .build());
+
+        parameters.put("rateMultiplier", CommandDefinition.Builder("BRM", "Lift beep cadence -> 0.5 = beeping twice as fast as normal.")
+                .setParameters(BFV.TYPE_DOUBLE, 10, 1000, 100.0)
+                .setMinHwVersion(6)
+                .setDefaultValue(100)
+                .build());
+
+        parameters.put("speedMultiplier", CommandDefinition.Builder("BSM", "Sensitivity of cadence to vertical speed -> 2.0 = cadence changes slower than normal.")
+                .setParameters(BFV.TYPE_DOUBLE, 10, 1000, 100.0)
+                .setMinHwVersion(10)
+                .setDefaultValue(100)
+                .build());
+
+        parameters.put("volume", CommandDefinition.Builder("BVL", "Volume of beeps ->  0.1 is only about 1/2 as loud as 1.0.")
+                .setParameters(BFV.TYPE_DOUBLE, 1, 1000, 1000.0)
+                .setMinHwVersion(6)
+                .setDefaultValue(1000)
+                .build());
+
+        parameters.put("outputMode", CommandDefinition.Builder("BOM", "Output mode -> 0-BlueFlyVario(default), 1-LK8EX1, 2-LX, 3-FlyNet, 4-None, 5-BFVlib, 6-BFX, 7-OpenVario")
+                .setParameters(BFV.TYPE_INT, 0, 7, 1.0)
+                .setMinHwVersion(7)
+                .setDefaultValue(0)
+                .build());
+
+        parameters.put("outputFrequency", CommandDefinition.Builder("BOF", "Output frequency divisor -> 1-every 20ms ... 50-every 20ms*50=1000ms")
+                .setParameters(BFV.TYPE_INT, 1, 50, 1.0)
+                .setMinHwVersion(7)
+                .setDefaultValue(1)
+                .build());
+
+        parameters.put("outputQNH", CommandDefinition.Builder("BQH", "QNH (in Pascals), used for hardware output alt for some output modes - (default 101325)")
+                .setParameters(BFV.TYPE_INTOFFSET, 0, 65535, 80000.0)
+                .setMinHwVersion(7)
+                .setDefaultValue(21325)
+                .build());
+
+        parameters.put("uart1BRG", CommandDefinition.Builder("BRB", "BRG setting for UART1, baud = 2000000/(BRG-1) (default of 207 = approx 9600 baud)")
+                .setParameters(BFV.TYPE_INT, 0, 65535, 1.0)
+                .setMinHwVersion(8)
+                .setDefaultValue(207)
+                .build());
+
+        parameters.put("uart2BRG", CommandDefinition.Builder("BR2", "BRG setting for UART1, baud = 2000000/(BRG-1) (default of 34 = approx 57.6k baud)")
+                .setParameters(BFV.TYPE_INT, 0, 65535, 1.0)
+                .setMinHwVersion(9)
+                .setDefaultValue(16)
+                .build());
+
+        parameters.put("heightSensitivityDm", CommandDefinition.Builder("BHV", "How far you have to move in dm to reset the idle timeout")
+                .setParameters(BFV.TYPE_INT, 0, 65535, 1.0)
+                .setMinHwVersion(10)
+                .setDefaultValue(20)
+                .build());
+
+        parameters.put("heightSeconds", CommandDefinition.Builder("BHT", "Idle timeout")
+                .setParameters(BFV.TYPE_INT, 0, 65535, 1.0)
+                .setMinHwVersion(10)
+                .setDefaultValue(600)
+                .build());
+
+        parameters.put("uartPassthrough", CommandDefinition.Builder("BPT", "Pass data received by U2 into U1")
+                .setParameters(BFV.TYPE_BOOLEAN, 0, 1, 1.0)
+                .setMinHwVersion(9)
+                .setDefaultValue(1)
+                .build());
+
+        parameters.put("uart1Raw", CommandDefinition.Builder("BUR", "Make U1 data transferred raw instead of line by line")
+                .setParameters(BFV.TYPE_BOOLEAN, 0, 1, 1.0)
+                .setMinHwVersion(9)
+                .setDefaultValue(0)
+                .build());
+
+        parameters.put("greenLED", CommandDefinition.Builder("BLD", "Make green LED flash with beep")
+                .setParameters(BFV.TYPE_BOOLEAN, 0, 1, 1.0)
+                .setMinHwVersion(9)
+                .setDefaultValue(1)
+                .build());
+
+        parameters.put("useAudioBuzzer", CommandDefinition.Builder("BBZ", "Use the experimental audio buzzer")
+                .setParameters(BFV.TYPE_BOOLEAN, 0, 1, 1.0)
+                .setMinHwVersion(10)
+                .setDefaultValue(0)
+                .build());
+
+        parameters.put("buzzerThreshold", CommandDefinition.Builder("BZT", "Value in m/s below the liftThreshold when the buzzer will start.")
+                .setParameters(BFV.TYPE_DOUBLE, 0, 1000, 100.0)
+                .setMinHwVersion(10)
+                .setDefaultValue(40)
+                .build());
+
+        parameters.put("usePitot", CommandDefinition.Builder("BUP", "Use the experimental MS4525DO pitot connected via I2C")
+                .setParameters(BFV.TYPE_BOOLEAN, 0, 1, 1.0)
+                .setMinHwVersion(11)
+                .setDefaultValue(0)
+                .build());
+
+        parameters.put("toggleThreshold", CommandDefinition.Builder("BTT", "Value in m/s below or above which will auto turn the button audio toggle off")
+                .setParameters(BFV.TYPE_DOUBLE, 0, 1000, 100.0)
+                .setMinHwVersion(11)
+                .setDefaultValue(100)
+                .build());
+
+        parameters.put("startDelayMS", CommandDefinition.Builder("BDM", "Delay ms at start")
+                .setParameters(BFV.TYPE_INT, 0, 65535, 1.0)
+                .setMinHwVersion(12)
+                .setDefaultValue(0)
+                .build());
+
+        parameters.put("quietStart", CommandDefinition.Builder("BQS", "Quiet the startup beeps")
+                .setParameters(BFV.TYPE_BOOLEAN, 0, 1, 1.0)
+                .setMinHwVersion(12)
+                .setDefaultValue(0)
+                .build());
+
+        parameters.put("gpsLogInterval", CommandDefinition.Builder("BGL", "GPS Log for XA1110")
+                .setParameters(BFV.TYPE_INT, 0, 65535, 1.0)
+                .setMinHwVersion(12)
+                .setDefaultValue(10)
+                .build());
+
+        // set min hw version to 99 so it doesnt appear in UI depending on the implementation of UI
+        parameters.put("isPrintPressure", CommandDefinition.Builder("BFP", "Controls if the output is printed. It is equivalent to outputMode=4 (or at least it was in some earlier version of the firmware)")
+                .setParameters(BFV.TYPE_BOOLEAN, 0, 1, 1.0)
+                .setMinHwVersion(99)
+                .setDefaultValue(1)
+                .build());
+
+        assert (parameters.size() == FIRMWARE_ORDER.length);
+        PARAMETER_CODES = new CodeTable(FIRMWARE_ORDER);
+        PARAMETER_LIST = new CommandDefinition[FIRMWARE_ORDER.length];
+        PARAMETER_NAMES = new String[FIRMWARE_ORDER.length];
+        for (Map.Entry<String, CommandDefinition> parameter : parameters.entrySet()) {
+            int ordinal = PARAMETER_CODES.get(parameter.getValue().getCommandCode());
+            assert (ordinal != CodeTable.NOT_FOUND && PARAMETER_LIST[ordinal] == null);
+            PARAMETER_LIST[ordinal] = parameter.getValue();
+            PARAMETER_NAMES[ordinal] = parameter.getKey();
+        }
+        POSITION_NOISE = PARAMETER_CODES.get("BFK");
+        OUTPUT_FREQUENCY = PARAMETER_CODES.get("BOF");
+        OUTPUT_MODE = PARAMETER_CODES.get("BOM");
+
+        COMMANDS = Collections.unmodifiableMap(commands);
+        PARAMETERS = Collections.unmodifiableMap(parameters);
+    }
+
+    private CommandRegistry() {
+    }
+}
@@ -0,0 +1,191 @@
+package BFVLib;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * ConfigurationWriter writes desired parameter values to BlueFlyVario device in one batch.
+ *
+ * Desired values are compared with values of the last SET line received by BFV and only changed
+ * parameters are serialized, all into one buffer sized for every parameter at creation. Commands
+ * are written one after another with configurable pacing instead of waiting for reply of each,
+ * the batch ends with single BST command and the readback is checked with isConfirmed().
+ *
+ * If BFV has not received SET line yet, every desired value is written. Parameters missing in
+ * received SET line are not supported by firmware of the device and are skipped.
+ *
+ */
+public class ConfigurationWriter {
+    public static final long DEFAULT_PACING_NANOS = 20000000L;
+
+    private static final byte[] SETTINGS_REQUEST = "$BST*".getBytes(StandardCharsets.US_ASCII);
+
+    private final BFV bfv;
+
+    // desired value of every parameter by ordinal, -1 if not set
+    private final int[] desiredValues = new int[CommandRegistry.PARAMETER_LIST.length];
+    // views of shared definitions serializing desired values
+    private final Command[] parameters = new Command[CommandRegistry.PARAMETER_LIST.length];
+
+    // serialized commands of last batch and end of each of them in buffer
+    private final ByteBuffer buffer;
+    private final int[] commandEnds = new int[CommandRegistry.PARAMETER_LIST.length + 1];
+    private final int[] writtenOrdinals = new int[CommandRegistry.PARAMETER_LIST.length];
+    private final int[] writtenValues = new int[CommandRegistry.PARAMETER_LIST.length];
+    private int writtenCount = 0;
+
+    private long pacingNanos = DEFAULT_PACING_NANOS;
+    // SET lines received by bfv before the last batch was written, -1 if nothing was written
+    private int settingsCountAtWrite = -1;
+
+    /**
+     * Creates writer of parameters of device decoded by bfv
+     *
+     * @param bfv receiving BST and SET lines of the device
+     */
+    public ConfigurationWriter(BFV bfv) {
+        this.bfv = bfv;
+        Arrays.fill(desiredValues, -1);
+
+        // '$' code ' ' value '*' for every parameter and BST request
+        int capacity = SETTINGS_REQUEST.length;
+        for (int ordinal = 0; ordinal < parameters.length; ordinal++) {
+            CommandDefinition parameter = CommandRegistry.PARAMETER_LIST[ordinal];
+            parameters[ordinal] = new Command(parameter, desiredValues, ordinal);
+            capacity += parameter.getCommandCode().length() + 3 + Ascii.digitCount(parameter.getMaxVal());
+        }
+        this.buffer = ByteBuffer.allocate(capacity);
+    }
+
+    /**
+     * Sets time to wait between commands of batch
+     *
+     * @param nanos to wait, 0 to write commands without pause
+     */
+    public void setPacing(long nanos) {
+        assert (nanos >= 0);
+        this.pacingNanos = nanos;
+    }
+
+    /**
+     * @return time to wait between commands of batch in nanoseconds
+     */
+    public long getPacing() {
+        return pacingNanos;
+    }
+
+    /**
+     * Sets desired value of parameter in form sent to the device (see Command.getValue())
+     *
+     * @param code of parameter ie. 'BFK'
+     * @param value to write
+     * @return true if value was set, false if parameter is unknown or value is out of its range
+     */
+    public boolean setValue(String code, int value) {
+        int ordinal = CommandRegistry.PARAMETER_CODES.get(code);
+        if (ordinal == CodeTable.NOT_FOUND) {
+            return false;
+        }
+        CommandDefinition parameter = CommandRegistry.PARAMETER_LIST[ordinal];
+        if (value < parameter.getMinVal() || value > parameter.getMaxVal()) {
+            return false;
+        }
+        desiredValues[ordinal] = value;
+        return true;
+    }
+
+    /**
+     * Returns desired value of parameter
+     *
+     * @param code of parameter
+     * @return desired value, -1 if it is not set or parameter is unknown
+     */
+    public int getValue(String code) {
+        int ordinal = CommandRegistry.PARAMETER_CODES.get(code);
+        return ordinal == CodeTable.NOT_FOUND ? -1 : desiredValues[ordinal];
+    }
+
+    /**
+     * Clears all desired values
+     *
+     */
+    public void clearValues() {
+        Arrays.fill(desiredValues, -1);
+    }
+
+    /**
+     * Serializes commands for desired values that differ from values received by bfv
+     * followed by BST command into buffer
+     *
+     * @return number of parameters to write
+     */
+    public int prepare() {
+        // count is read before values, see BFV.getSettingsCount
+        boolean hasSettings = bfv.getSettingsCount() > 0;
+        buffer.clear();
+        writtenCount = 0;
+        for (int ordinal = 0; ordinal < desiredValues.length; ordinal++) {
+            int desired = desiredValues[ordinal];
+            int received = bfv.getParameterValue(ordinal);
+            if (desired < 0 || (hasSettings && (received < 0 || received == desired))) {
+                continue;
+            }
+            parameters[ordinal].serializeInto(buffer);
+            commandEnds[writtenCount] = buffer.position();
+            writtenOrdinals[writtenCount] = ordinal;
+            writtenValues[writtenCount++] = desired;
+        }
+        buffer.put(SETTINGS_REQUEST);
+        commandEnds[writtenCount] = buffer.position();
+        buffer.flip();
+        return writtenCount;
+    }
+
+    /**
+     * Prepares batch and writes it to channel, waiting for pacing between commands.
+     * Blocks until whole batch is written.
+     *
+     * @param channel connected to the device
+     * @return number of parameters written
+     * @throws IOException if channel fails
+     */
+    public int write(WritableByteChannel channel) throws IOException {
+        int count = prepare();
+        settingsCountAtWrite = bfv.getSettingsCount();
+        int start = 0;
+        for (int i = 0; i <= count; i++) {
+            if (i > 0 && pacingNanos > 0) {
+                LockSupport.parkNanos(pacingNanos);
+            }
+            buffer.limit(commandEnds[i]);
+            buffer.position(start);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            start = commandEnds[i];
+        }
+        return count;
+    }
+
+    /**
+     * Checks if SET line received after last write holds all written values
+     *
+     * @return true if device confirmed all values of last batch, false otherwise
+     */
+    public boolean isConfirmed() {
+        // count is read before values, see BFV.getSettingsCount
+        if (settingsCountAtWrite < 0 || bfv.getSettingsCount() <= settingsCountAtWrite) {
+            return false;
+        }
+        for (int i = 0; i < writtenCount; i++) {
+            if (bfv.getParameterValue(writtenOrdinals[i]) != writtenValues[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,104 @@
+package BFVLib;
+
+import java.util.Arrays;
+
+/**
+ * Decimator reduces sample rate by integer factor with FIR anti-aliasing low pass filter.
+ *
+ * Filter is evaluated in polyphase form, output is computed only for every factor-th input
+ * so cost per input sample is taps / factor multiplications. Default taps are Hamming windowed
+ * sinc with cutoff at half of output sample rate and unity gain at DC.
+ *
+ */
+public class Decimator implements PressureFilter {
+    private final int factor;
+    private final double[] taps;
+    private final double[] history;
+    private int next = 0;
+    private boolean started = false;
+    private int phase = 0;
+
+    /**
+     * Creates decimator with default taps, 8 taps for each output sample
+     *
+     * @param factor number of input samples per output sample, must be > 0
+     */
+    public Decimator(int factor) {
+        this(factor, lowPassTaps(8 * factor + 1, 0.5 / factor));
+    }
+
+    /**
+     * Creates decimator with provided FIR taps
+     *
+     * @param factor number of input samples per output sample, must be > 0
+     * @param taps of anti-aliasing filter, taps[0] is applied to the newest sample
+     */
+    public Decimator(int factor, double[] taps) {
+        assert (factor > 0 && taps.length > 0);
+        this.factor = factor;
+        this.taps = taps.clone();
+        this.history = new double[taps.length];
+    }
+
+    @Override
+    public double filter(double value) {
+        if (Double.isNaN(value)) {
+            return Double.NaN;
+        }
+        if (!started) {
+            // start from steady state instead of ramping up from zero
+            Arrays.fill(history, value);
+            started = true;
+        }
+        history[next] = value;
+        next = next + 1 == history.length ? 0 : next + 1;
+        if (++phase < factor) {
+            return Double.NaN;
+        }
+        phase = 0;
+
+        double sum = 0;
+        int position = next;
+        for (double tap : taps) {
+            position = position == 0 ? history.length - 1 : position - 1;
+            sum += tap * history[position];
+        }
+        return sum;
+    }
+
+    @Override
+    public void reset() {
+        next = 0;
+        started = false;
+        phase = 0;
+    }
+
+    @Override
+    public int getDecimation() {
+        return factor;
+    }
+
+    /**
+     * Designs Hamming windowed sinc low pass filter normalized to unity gain at DC
+     *
+     * @param length number of taps
+     * @param cutoff frequency as fraction of sample rate, must be <= 0.5
+     * @return taps of filter
+     */
+    static double[] lowPassTaps(int length, double cutoff) {
+        double[] taps = new double[length];
+        double middle = (length - 1) / 2.0;
+        double sum = 0;
+        for (int i = 0; i < length; i++) {
+            double x = i - middle;
+            double sinc = x == 0 ? 2 * cutoff : Math.sin(2 * Math.PI * cutoff * x) / (Math.PI * x);
+            double window = length == 1 ? 1 : 0.54 - 0.46 * Math.cos(2 * Math.PI * i / (length - 1));
+            taps[i] = sinc * window;
+            sum += taps[i];
+        }
+        for (int i = 0; i < length; i++) {
+            taps[i] /= sum;
+        }
+        return taps;
+    }
+}
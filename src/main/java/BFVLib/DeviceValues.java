@@ -0,0 +1,65 @@
+package BFVLib;
+
+/**
+ * DeviceValues receives values decoded by LineDecoder and OutputDecoder from lines of one device,
+ * implemented by BFV and by every device of BFVHub.
+ *
+ */
+interface DeviceValues {
+    /**
+     * @param pressure decoded pressure in Pascals
+     */
+    void updatePressure(double pressure);
+
+    /**
+     * @param altitude calculated by device in meters, for output modes that don't report pressure
+     */
+    void updateAltitudeFromDevice(double altitude);
+
+    /**
+     * @param temperature decoded temperature in degrees Celsius
+     */
+    void setTemperature(double temperature);
+
+    /**
+     * @param battery decoded battery voltage in Volts
+     */
+    void setBattery(double battery);
+
+    /**
+     * @param line whole BFV line to decode hw version from
+     */
+    void setHardwareVersion(String line);
+
+    /**
+     * Updates parameter keys from codes of BST line
+     *
+     * @param line bytes holding line
+     * @param from index of the first code
+     * @param to index after the last code
+     */
+    void updateParameterKeys(byte[] line, int from, int to);
+
+    /**
+     * Updates parameter values from SET line, line is ignored if BST line was not received
+     *
+     * @param line bytes holding line
+     * @param from index of the first value after reset flag
+     * @param to index after the last value
+     */
+    void updateValues(byte[] line, int from, int to);
+
+    /**
+     * @param line bytes holding $PMTK line
+     * @param offset of the first byte of the line
+     * @param length of the line
+     */
+    void parsePmtkLine(byte[] line, int offset, int length);
+
+    /**
+     * @param line bytes holding MS5611 line
+     * @param from index of the first byte of the line
+     * @param to index after the last byte of the line
+     */
+    void parseMS5611Line(byte[] line, int from, int to);
+}
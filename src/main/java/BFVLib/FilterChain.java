@@ -0,0 +1,49 @@
+package BFVLib;
+
+/**
+ * FilterChain passes samples through stages in order, ie. median spike rejection, decimation
+ * and low pass filtering. Stage producing no output (Double.NaN) ends processing of the sample,
+ * stages after decimator run at reduced sample rate.
+ *
+ */
+public class FilterChain implements PressureFilter {
+    private final PressureFilter[] stages;
+    private final int decimation;
+
+    /**
+     * Creates chain of provided stages
+     *
+     * @param stages applied in order
+     */
+    public FilterChain(PressureFilter... stages) {
+        this.stages = stages.clone();
+        int product = 1;
+        for (PressureFilter stage : this.stages) {
+            product *= stage.getDecimation();
+        }
+        this.decimation = product;
+    }
+
+    @Override
+    public double filter(double value) {
+        for (PressureFilter stage : stages) {
+            value = stage.filter(value);
+            if (Double.isNaN(value)) {
+                return Double.NaN;
+            }
+        }
+        return value;
+    }
+
+    @Override
+    public void reset() {
+        for (PressureFilter stage : stages) {
+            stage.reset();
+        }
+    }
+
+    @Override
+    public int getDecimation() {
+        return decimation;
+    }
+}
@@ -0,0 +1,189 @@
+package BFVLib;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Supplier;
+
+/**
+ * FlightLogBatch reprocesses recorded raw device logs (PRS / TMP / BAT / $PMTKLOX lines) in parallel.
+ *
+ * Files are split between ForkJoinPool workers, every file is read by its own LineFramer into its own BFV,
+ * so no parser state is shared between threads. Static tables used by BFV are immutable,
+ * BFV, LineFramer and PMTKParser instances are not thread safe and must not be shared.
+ *
+ */
+public class FlightLogBatch {
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final ForkJoinPool pool;
+    private final Supplier<BFV> deviceFactory;
+    private boolean trackEnabled = false;
+
+    /**
+     * Creates batch running on common ForkJoinPool with default BFV for every file
+     *
+     */
+    public FlightLogBatch() {
+        this(ForkJoinPool.commonPool(), BFV::new);
+    }
+
+    /**
+     * Creates batch running on provided pool
+     *
+     * @param pool to process files on
+     * @param deviceFactory creates configured BFV for every file (ie. with setQnh or setOutputMode called),
+     *                      must return new instance on every call
+     */
+    public FlightLogBatch(ForkJoinPool pool, Supplier<BFV> deviceFactory) {
+        this.pool = pool;
+        this.deviceFactory = deviceFactory;
+    }
+
+    /**
+     * Enables collecting altitude of every sample into FlightLogResult.getAltitudeTrack()
+     *
+     * @param trackEnabled true to collect altitude track
+     */
+    public void setTrackEnabled(boolean trackEnabled) {
+        this.trackEnabled = trackEnabled;
+    }
+
+    /**
+     * @return true if altitude track is collected
+     */
+    public boolean isTrackEnabled() {
+        return trackEnabled;
+    }
+
+    /**
+     * Processes all files and waits for results, failure to read one file does not stop the others
+     *
+     * @param files to process, file listed more than once is processed for every occurrence
+     * @return result for every file in order of files, see FlightLogResult.getError() for files that could not be read
+     */
+    public List<FlightLogResult> process(Collection<Path> files) {
+        List<Path> paths = new ArrayList<>(files);
+        FlightLogResult[] results = new FlightLogResult[paths.size()];
+        pool.invoke(new ProcessTask(paths, results, 0, results.length));
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Processes single file on calling thread
+     *
+     * @param path of file
+     * @return result of file
+     */
+    public FlightLogResult process(Path path) {
+        FlightLogResult result = new FlightLogResult(path);
+        BFV device = deviceFactory.get();
+        TrackListener track = new TrackListener(device, trackEnabled);
+        device.addListener(track);
+        LineFramer framer = new LineFramer(device);
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                framer.feed(buffer);
+                buffer.clear();
+            }
+            // last line of file may be missing terminator
+            framer.feed(new byte[] {'\n'}, 0, 1);
+        } catch (IOException e) {
+            result.error = e;
+        }
+
+        result.lineCount = framer.getFrameCount();
+        result.malformedLineCount = framer.getMalformedFrameCount();
+        result.checksumErrorCount = device.getChecksumErrorCount();
+        result.locusRecordCount = device.getPMTKParser().getRecordCount();
+        result.sampleCount = track.count;
+        result.minAltitude = track.min;
+        result.maxAltitude = track.max;
+        if (trackEnabled) {
+            result.altitudeTrack = Arrays.copyOf(track.track, track.count);
+        }
+        return result;
+    }
+
+    /**
+     * Splits range of files in halves until single file is left
+     *
+     */
+    private final class ProcessTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Path> paths;
+        private final FlightLogResult[] results;
+        private final int from;
+        private final int to;
+
+        ProcessTask(List<Path> paths, FlightLogResult[] results, int from, int to) {
+            this.paths = paths;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                if (to > from) {
+                    results[from] = process(paths.get(from));
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ProcessTask(paths, results, from, middle),
+                    new ProcessTask(paths, results, middle, to));
+        }
+    }
+
+    /**
+     * Collects altitude of every sample, BFV stores altitude before calling onVerticalSpeed
+     *
+     */
+    private static final class TrackListener implements BFVListener {
+        private final BFV device;
+        private double[] track;
+        private int count = 0;
+        private double min = Double.NaN;
+        private double max = Double.NaN;
+
+        TrackListener(BFV device, boolean trackEnabled) {
+            this.device = device;
+            this.track = trackEnabled ? new double[4096] : null;
+        }
+
+        @Override
+        public void onVerticalSpeed(double verticalSpeed) {
+            double altitude = device.getAltitudeValue();
+            if (Double.isNaN(altitude)) {
+                return;
+            }
+            if (count == 0 || altitude < min) {
+                min = altitude;
+            }
+            if (count == 0 || altitude > max) {
+                max = altitude;
+            }
+            if (track != null) {
+                if (count == track.length) {
+                    track = Arrays.copyOf(track, count * 2);
+                }
+                track[count] = altitude;
+            }
+            count++;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package BFVLib;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * FlightLogResult holds outcome of processing one recorded log file by FlightLogBatch
+ *
+ */
+public class FlightLogResult {
+    private final Path path;
+    long lineCount;
+    long malformedLineCount;
+    long checksumErrorCount;
+    long sampleCount;
+    long locusRecordCount;
+    double minAltitude = Double.NaN;
+    double maxAltitude = Double.NaN;
+    double[] altitudeTrack;
+    IOException error;
+
+    FlightLogResult(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * @return processed file
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * @return number of non empty lines read from file
+     */
+    public long getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * @return number of lines too long or not decodable
+     */
+    public long getMalformedLineCount() {
+        return malformedLineCount;
+    }
+
+    /**
+     * @return number of lines dropped because of invalid checksum, only for output modes with checksum
+     */
+    public long getChecksumErrorCount() {
+        return checksumErrorCount;
+    }
+
+    /**
+     * @return number of pressure / altitude samples
+     */
+    public long getSampleCount() {
+        return sampleCount;
+    }
+
+    /**
+     * @return number of valid LOCUS records ($PMTKLOX lines) in file
+     */
+    public long getLocusRecordCount() {
+        return locusRecordCount;
+    }
+
+    /**
+     * @return lowest altitude in meters, Double.NaN if there was no sample
+     */
+    public double getMinAltitude() {
+        return minAltitude;
+    }
+
+    /**
+     * @return highest altitude in meters, Double.NaN if there was no sample
+     */
+    public double getMaxAltitude() {
+        return maxAltitude;
+    }
+
+    /**
+     * @return altitude of every sample in meters, null if track was not enabled in FlightLogBatch
+     */
+    public double[] getAltitudeTrack() {
+        return altitudeTrack;
+    }
+
+    /**
+     * @return error reading file, null if whole file was processed
+     */
+    public IOException getError() {
+        return error;
+    }
+}
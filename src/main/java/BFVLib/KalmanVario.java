@@ -0,0 +1,197 @@
+package BFVLib;
+
+/**
+ * KalmanVario estimates vertical speed from altitude samples using Kalman filter
+ * with position / velocity / acceleration state (constant acceleration model).
+ *
+ * Measurement noise is the device positionNoise (BFK) parameter in meters, process noise
+ * is modeled as random change of acceleration (accelerationNoise in m/s^2 per second).
+ * State and covariance are kept in primitive fields so update does not allocate.
+ *
+ */
+public class KalmanVario {
+    public static final double DEFAULT_POSITION_NOISE = 0.1;
+    public static final double DEFAULT_ACCELERATION_NOISE = 0.6;
+
+    private double positionVariance;
+    private double jerkVariance;
+
+    // state
+    private double position;
+    private double velocity;
+    private double acceleration;
+
+    // symmetric covariance matrix
+    private double p00, p01, p02;
+    private double p11, p12;
+    private double p22;
+
+    private boolean initialized = false;
+
+    /**
+     * Creates filter with DEFAULT_POSITION_NOISE and DEFAULT_ACCELERATION_NOISE
+     *
+     */
+    public KalmanVario() {
+        this(DEFAULT_POSITION_NOISE, DEFAULT_ACCELERATION_NOISE);
+    }
+
+    /**
+     * Creates filter with provided noise parameters
+     *
+     * @param positionNoise standard deviation of measured altitude in meters
+     * @param accelerationNoise standard deviation of change of acceleration in m/s^2 per second
+     */
+    public KalmanVario(double positionNoise, double accelerationNoise) {
+        setPositionNoise(positionNoise);
+        setAccelerationNoise(accelerationNoise);
+    }
+
+    /**
+     * Feeds new altitude sample to the filter
+     *
+     * @param altitude measured altitude in meters
+     * @param dt seconds since previous sample
+     */
+    public void update(double altitude, double dt) {
+        if (Double.isNaN(altitude) || Double.isInfinite(altitude)) {
+            return;
+        }
+        if (!initialized || dt <= 0) {
+            reset(altitude);
+            return;
+        }
+
+        // predict state
+        double dt2 = dt * dt / 2.0;
+        position += velocity * dt + acceleration * dt2;
+        velocity += acceleration * dt;
+
+        // predict covariance P = F P F' + Q, F = [[1, dt, dt^2/2], [0, 1, dt], [0, 0, 1]]
+        double f00 = p00 + dt * p01 + dt2 * p02;
+        double f01 = p01 + dt * p11 + dt2 * p12;
+        double f02 = p02 + dt * p12 + dt2 * p22;
+        double f11 = p11 + dt * p12;
+        double f12 = p12 + dt * p22;
+
+        double n00 = f00 + dt * f01 + dt2 * f02;
+        double n01 = f01 + dt * f02;
+        double n11 = f11 + dt * f12;
+
+        // discrete white noise jerk model
+        double q = jerkVariance;
+        double dt3 = dt * dt * dt;
+        double dt4 = dt3 * dt;
+        double dt5 = dt4 * dt;
+        p00 = n00 + q * dt5 / 20.0;
+        p01 = n01 + q * dt4 / 8.0;
+        p02 = f02 + q * dt3 / 6.0;
+        p11 = n11 + q * dt3 / 3.0;
+        p12 = f12 + q * dt * dt / 2.0;
+        p22 = p22 + q * dt;
+
+        // correct with measurement of position H = [1, 0, 0]
+        double innovation = altitude - position;
+        double s = p00 + positionVariance;
+        double k0 = p00 / s;
+        double k1 = p01 / s;
+        double k2 = p02 / s;
+
+        position += k0 * innovation;
+        velocity += k1 * innovation;
+        acceleration += k2 * innovation;
+
+        // P = (I - K H) P
+        double c00 = p00, c01 = p01, c02 = p02;
+        p00 -= k0 * c00;
+        p01 -= k0 * c01;
+        p02 -= k0 * c02;
+        p11 -= k1 * c01;
+        p12 -= k1 * c02;
+        p22 -= k2 * c02;
+    }
+
+    /**
+     * Resets filter to provided altitude with zero velocity and acceleration
+     *
+     * @param altitude to reset to
+     */
+    public void reset(double altitude) {
+        position = altitude;
+        velocity = 0;
+        acceleration = 0;
+        p00 = positionVariance;
+        p01 = 0;
+        p02 = 0;
+        p11 = 1.0;
+        p12 = 0;
+        p22 = 1.0;
+        initialized = true;
+    }
+
+    /**
+     * Forgets state, next update starts filter from measured altitude
+     *
+     */
+    public void reset() {
+        initialized = false;
+        position = Double.NaN;
+        velocity = Double.NaN;
+        acceleration = Double.NaN;
+    }
+
+    /**
+     * @return filtered altitude in meters, Double.NaN before first update
+     */
+    public double getAltitude() {
+        return initialized ? position : Double.NaN;
+    }
+
+    /**
+     * @return estimated vertical speed in m/s, Double.NaN before first update
+     */
+    public double getVerticalSpeed() {
+        return initialized ? velocity : Double.NaN;
+    }
+
+    /**
+     * @return estimated vertical acceleration in m/s^2, Double.NaN before first update
+     */
+    public double getAcceleration() {
+        return initialized ? acceleration : Double.NaN;
+    }
+
+    /**
+     * Sets measurement noise, same meaning as device positionNoise (BFK) parameter
+     *
+     * @param positionNoise standard deviation of measured altitude in meters
+     */
+    public void setPositionNoise(double positionNoise) {
+        assert (positionNoise > 0);
+        this.positionVariance = positionNoise * positionNoise;
+    }
+
+    /**
+     * @return standard deviation of measured altitude in meters
+     */
+    public double getPositionNoise() {
+        return Math.sqrt(positionVariance);
+    }
+
+    /**
+     * Sets process noise, larger values make filter follow changes of vertical speed faster
+     *
+     * @param accelerationNoise standard deviation of change of acceleration in m/s^2 per second
+     */
+    public void setAccelerationNoise(double accelerationNoise) {
+        assert (accelerationNoise > 0);
+        this.jerkVariance = accelerationNoise * accelerationNoise;
+    }
+
+    /**
+     * @return standard deviation of change of acceleration in m/s^2 per second
+     */
+    public double getAccelerationNoise() {
+        return Math.sqrt(jerkVariance);
+    }
+}
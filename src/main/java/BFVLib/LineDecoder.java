@@ -0,0 +1,138 @@
+package BFVLib;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * LineDecoder dispatches line received from BlueFlyVario device to decoder of its kind and passes
+ * decoded values to DeviceValues, shared by BFV and BFVHub so both decode the same lines.
+ *
+ * PMTK and MS5611 lines are recognized by prefix, lines of other output modes are decoded by
+ * OutputDecoder of the mode and native lines are dispatched on their 3 byte code.
+ * PRS, TMP and BAT lines are decoded in place without creating any objects,
+ * trailing '\r', '\n' and spaces are ignored.
+ *
+ */
+final class LineDecoder {
+    // codes of lines received from device
+    static final int LINE_PRS = 0;
+    static final int LINE_TMP = 1;
+    static final int LINE_BAT = 2;
+    static final int LINE_BFV = 3;
+    static final int LINE_BST = 4;
+    static final int LINE_SET = 5;
+    static final CodeTable LINE_CODES = new CodeTable(new String[] {"PRS", "TMP", "BAT", "BFV", "BST", "SET"});
+
+    static final byte[] PMTK_PREFIX = "$PMTK".getBytes(StandardCharsets.ISO_8859_1);
+
+    private LineDecoder() {
+    }
+
+    /**
+     * Decodes line of ASCII bytes and passes decoded values to device
+     *
+     * @param line bytes holding line from serial port
+     * @param offset of the first byte of the line
+     * @param length of the line
+     * @param outputDecoder decoder of selected output mode, null for native BlueFlyVario output
+     * @param device to pass decoded values to
+     * @return OutputDecoder.DECODED, OutputDecoder.NOT_HANDLED if line is not known (ie. informational
+     * message) or OutputDecoder.INVALID_CHECKSUM if line of output mode has invalid checksum
+     * @throws NumberFormatException if value of line is malformed
+     */
+    static int decode(byte[] line, int offset, int length, OutputDecoder outputDecoder, DeviceValues device) {
+        int end = offset + length;
+        while (end > offset && (line[end - 1] == '\r' || line[end - 1] == '\n' || line[end - 1] == ' ')) {
+            end--;
+        }
+
+        // PMTK lines are comma(',') separated
+        if (Ascii.startsWith(line, offset, end - offset, PMTK_PREFIX)) {
+            device.parsePmtkLine(line, offset, end - offset);
+            return OutputDecoder.DECODED;
+        }
+
+        /*
+        MS5611 - raw sensor values, decoded by MS5611Decoder (see BFV.getMS5611Decoder())
+            As seen in https://www.te.com/commerce/DocumentDelivery/DDEController?Action=showdoc&DocId=Data+Sheet%7FMS5611-01BA03%7FB3%7Fpdf%7FEnglish%7FENG_DS_MS5611-01BA03_B3.pdf%7FCAT-BLPS0036
+            Variable | Description/Equation                                  | Variable Type   | Size[bit] | Min | Max      | Example/Typical
+            -----------------------------------------------------------------------------------------------------------------------------
+            C1       | Pressure sensitivity - SENST1                         | unsigned int 16 | 16        | 0   | 65535    | 40127
+            C2       | Pressure offset - OFFT1                               | unsigned int 16 | 16        | 0   | 65535    | 36924
+            C3       | Temperature coefficient of pressure sensitivity - TCS | unsigned int 16 | 16        | 0   | 65535    | 23317
+            C4       | Temperature coefficient of pressure offset - TCO      | unsigned int 16 | 16        | 0   | 65535    | 23282
+            C5       | Reference temperature - TREF                          | unsigned int 16 | 16        | 0   | 65535    | 33464
+            C6       | Temperature coefficient of the temperature - TEMPSENS | unsigned int 16 | 16        | 0   | 65535    | 28312
+            D1       | Digital pressure value                                | unsigned int 32 | 24        | 0   | 16777216 | 9085466
+            D2       | Digital temperature value                             | unsigned int 32 | 24        | 0   | 16777216 | 8569150
+         */
+        // raw sensor values are space(' ') separated but their code is longer than 3 bytes
+        if (Ascii.startsWith(line, offset, end - offset, MS5611Decoder.PREFIX)) {
+            device.parseMS5611Line(line, offset, end);
+            return OutputDecoder.DECODED;
+        }
+
+        // other output modes
+        if (outputDecoder != null) {
+            int result = outputDecoder.decode(line, offset, end, device);
+            if (result != OutputDecoder.NOT_HANDLED) {
+                return result;
+            }
+        }
+
+        // BFV lines are space(' ') separated
+        // COMMAND_code VALUE
+        int space = Ascii.indexOf(line, offset, end, (byte) ' ');
+        if (space - offset != 3) {
+            return OutputDecoder.NOT_HANDLED;
+        }
+        int valueStart = space + 1;
+        int valueEnd = Ascii.indexOf(line, valueStart, end, (byte) ' ');
+        if (valueEnd < 0) {
+            valueEnd = end;
+        }
+
+        switch (LINE_CODES.get(line, offset)) {
+            case LINE_PRS:
+                device.updatePressure(Ascii.parseHex(line, valueStart, valueEnd));
+                return OutputDecoder.DECODED;
+            case LINE_TMP:
+                device.setTemperature(BFV.getTemperatureFromValue(line, valueStart, valueEnd));
+                return OutputDecoder.DECODED;
+            case LINE_BAT:
+                device.setBattery(BFV.getBatteryFromValue(line, valueStart, valueEnd));
+                return OutputDecoder.DECODED;
+
+            /*
+            BFV [VersionNumber] \r\n
+            BST [followed by a space separated list of each of the settings codes]
+            SET [0(skip) followed by a space separated list of each of the settings Integer Values]
+             */
+            case LINE_BFV:
+                device.setHardwareVersion(new String(line, offset, end - offset, StandardCharsets.ISO_8859_1));
+                return OutputDecoder.DECODED;
+            case LINE_BST:
+                device.updateParameterKeys(line, valueStart, end);
+                return OutputDecoder.DECODED;
+            case LINE_SET:
+                /*
+                We skip the first value:
+                    The first address is a flag to reset the other addresses.
+                    $RSX* sets it to 1, then restarts the vario,
+                    which then uses that to reset all of the other values to their default settings.
+                 */
+                device.updateValues(line, valueEnd + 1, end);
+                return OutputDecoder.DECODED;
+            default:
+                /*
+                Other lines are informational messages and are not handled:
+
+                Batt - battery value in Volts -> Volts = Batt / 1000
+                No - No movement ie 'No movement from 101.7m'
+                Audio - ie 'Audio and Buzzer Toggle Off'
+                Bluetooth - ie 'Bluetooth Connected'
+                Shutdown... - vario disconnected
+                 */
+                return OutputDecoder.NOT_HANDLED;
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package BFVLib;
+
+import java.nio.ByteBuffer;
+
+/**
+ * LineFramer splits raw byte stream received from BlueFlyVario device via serial / bluetooth
+ * into lines and feeds each complete line to BFV parser.
+ *
+ * Chunks can be of any size and lines can span multiple chunks, lines are terminated by '\n'
+ * with optional preceding '\r'. Lines fully contained in a chunk are parsed in place,
+ * only lines spanning chunk edges are copied into one reused growable buffer.
+ *
+ */
+public class LineFramer {
+    public static final int DEFAULT_MAX_LINE_LENGTH = 4096;
+
+    private final LineParser device;
+    private final int maxLineLength;
+
+    private byte[] buffer = new byte[128];
+    private int length = 0;
+    private boolean discarding = false;
+    // arrival time of chunk being consumed
+    private long arrivalNanos = SampleClock.NO_TIME;
+
+    private long frameCount = 0;
+    private long malformedFrameCount = 0;
+
+    /**
+     * Creates framer feeding lines to provided device, lines longer than DEFAULT_MAX_LINE_LENGTH are discarded
+     *
+     * @param device to feed complete lines to
+     */
+    public LineFramer(BFV device) {
+        this(device, DEFAULT_MAX_LINE_LENGTH);
+    }
+
+    /**
+     * Creates framer feeding lines to provided device
+     *
+     * @param device to feed complete lines to
+     * @param maxLineLength lines longer than this are discarded as garbage
+     */
+    public LineFramer(BFV device, int maxLineLength) {
+        this((LineParser) device, maxLineLength);
+    }
+
+    /**
+     * Creates framer feeding lines to provided parser, ie. to one device of BFVHub
+     *
+     * @param device to feed complete lines to
+     * @param maxLineLength lines longer than this are discarded as garbage
+     */
+    LineFramer(LineParser device, int maxLineLength) {
+        assert (maxLineLength > 0);
+        this.device = device;
+        this.maxLineLength = maxLineLength;
+    }
+
+    /**
+     * Consumes all remaining bytes of chunk, chunk position is advanced to its limit
+     *
+     * @param chunk of bytes received from device
+     */
+    public void feed(ByteBuffer chunk) {
+        if (chunk.hasArray()) {
+            feed(chunk.array(), chunk.arrayOffset() + chunk.position(), chunk.remaining());
+            chunk.position(chunk.limit());
+            return;
+        }
+        while (chunk.hasRemaining()) {
+            byte value = chunk.get();
+            if (value == '\n') {
+                endOfLine();
+            } else {
+                append(value);
+            }
+        }
+    }
+
+    /**
+     * Consumes all remaining bytes of chunk received at provided time, lines completed by the chunk
+     * are parsed with its arrival time, see BFV.getSampleClock()
+     *
+     * @param chunk of bytes received from device
+     * @param arrivalNanos monotonic time of arrival (ie. System.nanoTime()) in nanoseconds
+     */
+    public void feed(ByteBuffer chunk, long arrivalNanos) {
+        this.arrivalNanos = arrivalNanos;
+        try {
+            feed(chunk);
+        } finally {
+            this.arrivalNanos = SampleClock.NO_TIME;
+        }
+    }
+
+    /**
+     * Consumes length bytes of chunk starting at offset received at provided time, lines completed
+     * by the chunk are parsed with its arrival time, see BFV.getSampleClock()
+     *
+     * @param chunk of bytes received from device
+     * @param offset of the first byte to consume
+     * @param length number of bytes to consume
+     * @param arrivalNanos monotonic time of arrival (ie. System.nanoTime()) in nanoseconds
+     */
+    public void feed(byte[] chunk, int offset, int length, long arrivalNanos) {
+        this.arrivalNanos = arrivalNanos;
+        try {
+            feed(chunk, offset, length);
+        } finally {
+            this.arrivalNanos = SampleClock.NO_TIME;
+        }
+    }
+
+    /**
+     * Consumes length bytes of chunk starting at offset
+     *
+     * @param chunk of bytes received from device
+     * @param offset of the first byte to consume
+     * @param length number of bytes to consume
+     */
+    public void feed(byte[] chunk, int offset, int length) {
+        int end = offset + length;
+        int start = offset;
+        while (start < end) {
+            int newLine = Ascii.indexOf(chunk, start, end, (byte) '\n');
+            if (newLine < 0) {
+                append(chunk, start, end - start);
+                return;
+            }
+            if (this.length == 0 && !discarding) {
+                // whole line is inside the chunk, parse it in place
+                if (newLine - start > maxLineLength) {
+                    malformedFrameCount++;
+                } else {
+                    frame(chunk, start, newLine - start);
+                }
+            } else {
+                append(chunk, start, newLine - start);
+                endOfLine();
+            }
+            start = newLine + 1;
+        }
+    }
+
+    /**
+     * Drops partially received line, ie. after reconnecting to the device
+     *
+     */
+    public void reset() {
+        this.length = 0;
+        this.discarding = false;
+    }
+
+    /**
+     * @return number of complete lines fed to parser
+     */
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * @return number of lines that were discarded as too long or could not be decoded by parser
+     */
+    public long getMalformedFrameCount() {
+        return malformedFrameCount;
+    }
+
+    /**
+     * Handles end of line found in stream, parses buffered line and empties buffer
+     *
+     */
+    private void endOfLine() {
+        if (discarding) {
+            discarding = false;
+        } else {
+            frame(buffer, 0, length);
+        }
+        length = 0;
+    }
+
+    /**
+     * Feeds complete line without line terminator to parser
+     *
+     * @param line bytes holding line
+     * @param offset of the first byte of the line
+     * @param length of the line
+     */
+    private void frame(byte[] line, int offset, int length) {
+        if (length > 0 && line[offset + length - 1] == '\r') {
+            length--;
+        }
+        if (length == 0) {
+            return;
+        }
+        frameCount++;
+        try {
+            if (arrivalNanos == SampleClock.NO_TIME) {
+                device.parseLine(line, offset, length);
+            } else {
+                device.parseLine(line, offset, length, arrivalNanos);
+            }
+        } catch (NumberFormatException e) {
+            // corrupted line, ie. bytes lost over bluetooth
+            malformedFrameCount++;
+        }
+    }
+
+    /**
+     * Appends single byte to buffered line
+     *
+     * @param value to append
+     */
+    private void append(byte value) {
+        if (ensureCapacity(1)) {
+            buffer[length++] = value;
+        }
+    }
+
+    /**
+     * Appends bytes to buffered line
+     *
+     * @param chunk bytes to append
+     * @param offset of the first byte to append
+     * @param count number of bytes to append
+     */
+    private void append(byte[] chunk, int offset, int count) {
+        if (count > 0 && ensureCapacity(count)) {
+            System.arraycopy(chunk, offset, buffer, length, count);
+            length += count;
+        }
+    }
+
+    /**
+     * Grows buffer to fit count more bytes, if line would become longer than maxLineLength
+     * buffered line is dropped and rest of the line is discarded
+     *
+     * @param count number of bytes to fit
+     * @return true if bytes should be appended, false if they should be discarded
+     */
+    private boolean ensureCapacity(int count) {
+        if (discarding) {
+            return false;
+        }
+        int required = length + count;
+        if (required > maxLineLength) {
+            malformedFrameCount++;
+            discarding = true;
+            length = 0;
+            return false;
+        }
+        if (required > buffer.length) {
+            byte[] grown = new byte[Math.min(maxLineLength, Math.max(required, buffer.length * 2))];
+            System.arraycopy(buffer, 0, grown, 0, length);
+            buffer = grown;
+        }
+        return true;
+    }
+}
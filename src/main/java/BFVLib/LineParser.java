@@ -0,0 +1,29 @@
+package BFVLib;
+
+/**
+ * LineParser consumes complete lines framed by LineFramer
+ *
+ */
+interface LineParser {
+    /**
+     * Parses line of ASCII bytes without line terminator
+     *
+     * @param line bytes holding line
+     * @param offset of the first byte of the line
+     * @param length of the line
+     */
+    void parseLine(byte[] line, int offset, int length);
+
+    /**
+     * Parses line of ASCII bytes without line terminator that arrived at provided time,
+     * parsers that don't track time of samples ignore it
+     *
+     * @param line bytes holding line
+     * @param offset of the first byte of the line
+     * @param length of the line
+     * @param arrivalNanos monotonic time of arrival in nanoseconds, SampleClock.NO_TIME if not known
+     */
+    default void parseLine(byte[] line, int offset, int length, long arrivalNanos) {
+        parseLine(line, offset, length);
+    }
+}
@@ -0,0 +1,122 @@
+package BFVLib;
+
+/**
+ * LocusCsv formats decoded LOCUS record as CSV line into reused char buffer
+ * timestamp,yyyy-MM-ddTHH:mm:ssZ,fix,latitude,longitude,height
+ *
+ */
+final class LocusCsv {
+    // longest line: 11 + 1 + 20 + 1 + 3 + 1 + 12 + 1 + 12 + 1 + 6
+    static final int MAX_LENGTH = 80;
+
+    private LocusCsv() {
+    }
+
+    /**
+     * Formats record into out starting at index 0
+     *
+     * @param out buffer of at least MAX_LENGTH chars
+     * @param time UTC seconds since epoch
+     * @param fix LOCUS fix type
+     * @param latitude in degrees
+     * @param longitude in degrees
+     * @param height in meters
+     * @return number of chars written
+     */
+    static int format(char[] out, long time, int fix, float latitude, float longitude, int height) {
+        int pos = appendLong(out, 0, time);
+        out[pos++] = ',';
+        pos = appendDate(out, pos, time);
+        out[pos++] = ',';
+        pos = appendLong(out, pos, fix);
+        out[pos++] = ',';
+        pos = appendDegrees(out, pos, latitude);
+        out[pos++] = ',';
+        pos = appendDegrees(out, pos, longitude);
+        out[pos++] = ',';
+        return appendLong(out, pos, height);
+    }
+
+    /**
+     * Appends UTC date of provided epoch seconds as yyyy-MM-ddTHH:mm:ssZ
+     *
+     */
+    private static int appendDate(char[] out, int pos, long time) {
+        long days = Math.floorDiv(time, 86400L);
+        int seconds = (int) Math.floorMod(time, 86400L);
+
+        // civil from days, http://howardhinnant.github.io/date_algorithms.html
+        long z = days + 719468;
+        long era = Math.floorDiv(z, 146097);
+        long doe = z - era * 146097;
+        long yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        long mp = (5 * doy + 2) / 153;
+        int day = (int) (doy - (153 * mp + 2) / 5 + 1);
+        int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+        long year = yoe + era * 400 + (month <= 2 ? 1 : 0);
+
+        pos = appendPadded(out, pos, year, 4);
+        out[pos++] = '-';
+        pos = appendPadded(out, pos, month, 2);
+        out[pos++] = '-';
+        pos = appendPadded(out, pos, day, 2);
+        out[pos++] = 'T';
+        pos = appendPadded(out, pos, seconds / 3600, 2);
+        out[pos++] = ':';
+        pos = appendPadded(out, pos, seconds / 60 % 60, 2);
+        out[pos++] = ':';
+        pos = appendPadded(out, pos, seconds % 60, 2);
+        out[pos++] = 'Z';
+        return pos;
+    }
+
+    /**
+     * Appends degrees rounded to 6 decimals (about 0.1 m, more than float precision of LOCUS record)
+     *
+     */
+    private static int appendDegrees(char[] out, int pos, float degrees) {
+        if (Float.isNaN(degrees) || Float.isInfinite(degrees) || Math.abs(degrees) > 1e6f) {
+            out[pos++] = 'N';
+            out[pos++] = 'a';
+            out[pos++] = 'N';
+            return pos;
+        }
+        long micro = Math.round(degrees * 1e6);
+        if (micro < 0) {
+            out[pos++] = '-';
+            micro = -micro;
+        }
+        pos = appendLong(out, pos, micro / 1000000);
+        out[pos++] = '.';
+        return appendPadded(out, pos, micro % 1000000, 6);
+    }
+
+    /**
+     * Appends value left padded with zeros to provided number of digits
+     *
+     */
+    private static int appendPadded(char[] out, int pos, long value, int digits) {
+        for (int i = digits - 1; i >= 0; i--) {
+            out[pos + i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return pos + digits;
+    }
+
+    /**
+     * Appends signed decimal value
+     *
+     */
+    private static int appendLong(char[] out, int pos, long value) {
+        if (value < 0) {
+            out[pos++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long v = value / 10; v > 0; v /= 10) {
+            digits++;
+        }
+        return appendPadded(out, pos, value, digits);
+    }
+}
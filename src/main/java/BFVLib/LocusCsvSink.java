@@ -0,0 +1,92 @@
+package BFVLib;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * LocusCsvSink writes records with 3D fix to CSV file, one line per record:
+ * timestamp,yyyy-MM-ddTHH:mm:ssZ,fix,latitude,longitude,height
+ *
+ * File is (re)created when download starts and closed when it ends. Write errors stop writing
+ * until next download and are available in getError().
+ *
+ */
+public class LocusCsvSink implements LocusSink, Closeable {
+    private final Path path;
+    private final char[] line = new char[LocusCsv.MAX_LENGTH];
+    private BufferedWriter writer;
+    private IOException error;
+
+    /**
+     * Creates sink writing to provided file
+     *
+     * @param path of CSV file
+     */
+    public LocusCsvSink(Path path) {
+        this.path = path;
+    }
+
+    @Override
+    public void onStart() {
+        close();
+        error = null;
+        try {
+            writer = Files.newBufferedWriter(path, StandardCharsets.US_ASCII);
+        } catch (IOException e) {
+            error = e;
+        }
+    }
+
+    @Override
+    public void onFix(long time, int fix, float latitude, float longitude, int height) {
+        if (writer == null || fix != 2) {
+            return;
+        }
+        try {
+            int length = LocusCsv.format(line, time, fix, latitude, longitude, height);
+            writer.write(line, 0, length);
+            writer.newLine();
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    @Override
+    public void onEnd() {
+        close();
+    }
+
+    /**
+     * Closes file, called automatically at the end of download
+     *
+     */
+    @Override
+    public void close() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                if (error == null) {
+                    error = e;
+                }
+            }
+            writer = null;
+        }
+    }
+
+    /**
+     * @return first write error of the last download, null if there was none
+     */
+    public IOException getError() {
+        return error;
+    }
+
+    private void fail(IOException e) {
+        error = e;
+        close();
+    }
+}
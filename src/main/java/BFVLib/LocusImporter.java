@@ -0,0 +1,158 @@
+package BFVLib;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * LocusImporter decodes saved LOCUS downloads (.mtk files with $PMTKLOX lines, ie. written by LocusMtkSink)
+ * and passes verified records to LocusSink.
+ *
+ * File is memory mapped in windows of limited size, lines are framed directly in the mapped buffer
+ * and copied into one reused array for PMTKParser, so heap use does not depend on file size.
+ * Line and record checksums are verified by PMTKParser, see getParser() for counters.
+ *
+ */
+public class LocusImporter {
+    public static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+    public static final int MAX_LINE_LENGTH = 1024;
+
+    private final PMTKParser parser;
+    private final int windowSize;
+    private final byte[] line = new byte[MAX_LINE_LENGTH];
+
+    private long lineCount = 0;
+    private long malformedLineCount = 0;
+    private boolean skipLine = false;
+
+    /**
+     * Creates importer passing records to provided sink, files are mapped in windows of DEFAULT_WINDOW_SIZE
+     *
+     * @param sink to pass records to
+     */
+    public LocusImporter(LocusSink sink) {
+        this(sink, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Creates importer passing records to provided sink
+     *
+     * @param sink to pass records to
+     * @param windowSize bytes of file mapped at once, must be larger than MAX_LINE_LENGTH
+     * @throws IllegalArgumentException if windowSize is not larger than MAX_LINE_LENGTH
+     */
+    public LocusImporter(LocusSink sink, int windowSize) {
+        if (windowSize <= MAX_LINE_LENGTH) {
+            throw new IllegalArgumentException("windowSize must be larger than " + MAX_LINE_LENGTH + ": " + windowSize);
+        }
+        this.parser = new PMTKParser(sink);
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * Decodes all $PMTKLOX lines of file, other lines are ignored
+     *
+     * @param path of .mtk file
+     * @return number of valid records passed to sink
+     * @throws IOException if file can not be read
+     */
+    public long importFile(Path path) throws IOException {
+        long records = parser.getRecordCount();
+        skipLine = false;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long windowStart = 0;
+            while (windowStart < size) {
+                int windowLength = (int) Math.min(windowSize, size - windowStart);
+                boolean last = windowStart + windowLength == size;
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowLength);
+                int consumed = parseWindow(window, windowLength, last);
+                if (consumed == 0) {
+                    // can not happen for windows larger than MAX_LINE_LENGTH, never map the same window again
+                    throw new IOException("No complete line in window at " + windowStart + " of " + path);
+                }
+                windowStart += consumed;
+            }
+        }
+        return parser.getRecordCount() - records;
+    }
+
+    /**
+     * Parses complete lines of window
+     *
+     * @param window mapped part of file
+     * @param length of window
+     * @param last true if window ends at the end of file, so last line does not need terminator
+     * @return number of bytes consumed, the rest is unterminated line to be parsed with next window
+     */
+    private int parseWindow(MappedByteBuffer window, int length, boolean last) {
+        int lineStart = 0;
+        for (int i = 0; i < length; i++) {
+            byte c = window.get(i);
+            if (c == '\n' || c == '\r') {
+                parseLine(window, lineStart, i);
+                lineStart = i + 1;
+            }
+        }
+        if (last && lineStart < length) {
+            parseLine(window, lineStart, length);
+            lineStart = length;
+        }
+        // skip unterminated line which can not fit into line buffer anyway, its tail is dropped in next window
+        if (length - lineStart > MAX_LINE_LENGTH) {
+            if (!skipLine) {
+                lineCount++;
+                malformedLineCount++;
+                skipLine = true;
+            }
+            return length;
+        }
+        return lineStart;
+    }
+
+    /**
+     * Copies line from window into reused buffer and passes it to parser
+     *
+     */
+    private void parseLine(MappedByteBuffer window, int from, int to) {
+        int length = to - from;
+        if (skipLine) {
+            skipLine = false;
+            return;
+        }
+        if (length == 0) {
+            return;
+        }
+        lineCount++;
+        if (length > MAX_LINE_LENGTH) {
+            malformedLineCount++;
+            return;
+        }
+        window.position(from);
+        window.get(line, 0, length);
+        parser.parseLine(line, 0, length);
+    }
+
+    /**
+     * @return parser with record and checksum error counters of all imported files
+     */
+    public PMTKParser getParser() {
+        return parser;
+    }
+
+    /**
+     * @return number of non empty lines read from all imported files
+     */
+    public long getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * @return number of lines longer than MAX_LINE_LENGTH skipped in all imported files
+     */
+    public long getMalformedLineCount() {
+        return malformedLineCount;
+    }
+}
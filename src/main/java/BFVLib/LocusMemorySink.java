@@ -0,0 +1,144 @@
+package BFVLib;
+
+import java.util.Arrays;
+
+/**
+ * LocusMemorySink keeps LOCUS records in memory in primitive arrays growing as needed.
+ *
+ * Records of all downloads are kept, ie. of many .mtk files imported by one LocusImporter, unless
+ * sink is created to clear them when new download starts. Call clear() to forget them explicitly.
+ *
+ */
+public class LocusMemorySink implements LocusSink {
+    private long[] times;
+    private byte[] fixes;
+    private float[] latitudes;
+    private float[] longitudes;
+    private short[] heights;
+    private int size = 0;
+    private final boolean clearOnStart;
+
+    /**
+     * Creates sink with room for 1024 records keeping records of all downloads
+     *
+     */
+    public LocusMemorySink() {
+        this(1024);
+    }
+
+    /**
+     * Creates sink with provided initial capacity keeping records of all downloads
+     *
+     * @param capacity number of records to allocate room for
+     */
+    public LocusMemorySink(int capacity) {
+        this(capacity, false);
+    }
+
+    /**
+     * Creates sink with provided initial capacity
+     *
+     * @param capacity number of records to allocate room for
+     * @param clearOnStart true to forget records of previous downloads when new download starts
+     */
+    public LocusMemorySink(int capacity, boolean clearOnStart) {
+        assert (capacity > 0);
+        this.clearOnStart = clearOnStart;
+        times = new long[capacity];
+        fixes = new byte[capacity];
+        latitudes = new float[capacity];
+        longitudes = new float[capacity];
+        heights = new short[capacity];
+    }
+
+    @Override
+    public void onStart() {
+        if (clearOnStart) {
+            clear();
+        }
+    }
+
+    @Override
+    public void onFix(long time, int fix, float latitude, float longitude, int height) {
+        if (size == times.length) {
+            int capacity = size * 2;
+            times = Arrays.copyOf(times, capacity);
+            fixes = Arrays.copyOf(fixes, capacity);
+            latitudes = Arrays.copyOf(latitudes, capacity);
+            longitudes = Arrays.copyOf(longitudes, capacity);
+            heights = Arrays.copyOf(heights, capacity);
+        }
+        times[size] = time;
+        fixes[size] = (byte) fix;
+        latitudes[size] = latitude;
+        longitudes[size] = longitude;
+        heights[size] = (short) height;
+        size++;
+    }
+
+    /**
+     * Forgets all records
+     *
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * @return number of records
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param index of record
+     * @return UTC seconds since epoch
+     */
+    public long getTime(int index) {
+        checkIndex(index);
+        return times[index];
+    }
+
+    /**
+     * @param index of record
+     * @return type of fix
+     */
+    public int getFix(int index) {
+        checkIndex(index);
+        return fixes[index] & 0xFF;
+    }
+
+    /**
+     * @param index of record
+     * @return latitude in degrees
+     */
+    public float getLatitude(int index) {
+        checkIndex(index);
+        return latitudes[index];
+    }
+
+    /**
+     * @param index of record
+     * @return longitude in degrees
+     */
+    public float getLongitude(int index) {
+        checkIndex(index);
+        return longitudes[index];
+    }
+
+    /**
+     * @param index of record
+     * @return height in meters
+     */
+    public int getHeight(int index) {
+        checkIndex(index);
+        return heights[index] & 0xFFFF;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package BFVLib;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * LocusMtkSink writes raw $PMTKLOX lines to file, the file can be read again by LOCUS tools.
+ *
+ * Lines are collected in direct buffer and written with FileChannel when the buffer is full.
+ * File is (re)created when download starts and closed when it ends. Write errors stop writing
+ * until next download and are available in getError().
+ *
+ */
+public class LocusMtkSink implements LocusSink, Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path path;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private FileChannel channel;
+    private IOException error;
+
+    /**
+     * Creates sink writing to provided file
+     *
+     * @param path of .mtk file
+     */
+    public LocusMtkSink(Path path) {
+        this.path = path;
+    }
+
+    @Override
+    public void onStart() {
+        close();
+        error = null;
+        buffer.clear();
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException e) {
+            error = e;
+        }
+    }
+
+    @Override
+    public void onFix(long time, int fix, float latitude, float longitude, int height) {
+    }
+
+    @Override
+    public void onLine(byte[] line, int offset, int length) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            while (length >= buffer.remaining()) {
+                int part = buffer.remaining();
+                buffer.put(line, offset, part);
+                offset += part;
+                length -= part;
+                flush();
+            }
+            buffer.put(line, offset, length);
+            buffer.put((byte) '\n');
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    @Override
+    public void onEnd() {
+        close();
+    }
+
+    /**
+     * Writes buffered lines and closes file, called automatically at the end of download
+     *
+     */
+    @Override
+    public void close() {
+        if (channel != null) {
+            try {
+                flush();
+                channel.close();
+            } catch (IOException e) {
+                if (error == null) {
+                    error = e;
+                }
+            }
+            channel = null;
+        }
+    }
+
+    /**
+     * @return first write error of the last download, null if there was none
+     */
+    public IOException getError() {
+        return error;
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void fail(IOException e) {
+        error = e;
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+        channel = null;
+    }
+}
@@ -0,0 +1,45 @@
+package BFVLib;
+
+/**
+ * LocusSink receives LOCUS flash download of GPS module decoded by PMTKParser.
+ *
+ * Records are passed as primitives so sink can store them without allocation.
+ * Callbacks are called synchronously on the thread calling BFV.parseLine.
+ *
+ */
+public interface LocusSink {
+    /**
+     * Called for every record of the download
+     *
+     * @param time UTC seconds since epoch
+     * @param fix type of fix, 2 for 3D fix
+     * @param latitude in degrees
+     * @param longitude in degrees
+     * @param height in meters
+     */
+    void onFix(long time, int fix, float latitude, float longitude, int height);
+
+    /**
+     * Called when download starts ($PMTKLOX,0 line)
+     *
+     */
+    default void onStart() {
+    }
+
+    /**
+     * Called with every raw $PMTKLOX line after its records were passed to onFix
+     *
+     * @param line bytes holding line without line terminator
+     * @param offset of the first byte of the line
+     * @param length of the line
+     */
+    default void onLine(byte[] line, int offset, int length) {
+    }
+
+    /**
+     * Called when download ends ($PMTKLOX,2 line)
+     *
+     */
+    default void onEnd() {
+    }
+}
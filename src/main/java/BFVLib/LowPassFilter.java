@@ -0,0 +1,38 @@
+package BFVLib;
+
+/**
+ * LowPassFilter is first order (one pole) IIR low pass filter
+ * y[n] = y[n-1] + alpha * (x[n] - y[n-1]), starting at the first sample
+ *
+ */
+public class LowPassFilter implements PressureFilter {
+    private final double alpha;
+    private double output = Double.NaN;
+
+    /**
+     * Creates filter with provided cutoff frequency
+     *
+     * @param cutoff frequency in Hz
+     * @param sampleRate of filtered samples in Hz
+     */
+    public LowPassFilter(double cutoff, double sampleRate) {
+        assert (cutoff > 0 && sampleRate > 0);
+        double rc = 1 / (2 * Math.PI * cutoff);
+        double dt = 1 / sampleRate;
+        this.alpha = dt / (rc + dt);
+    }
+
+    @Override
+    public double filter(double value) {
+        if (Double.isNaN(value)) {
+            return Double.NaN;
+        }
+        output = Double.isNaN(output) ? value : output + alpha * (value - output);
+        return output;
+    }
+
+    @Override
+    public void reset() {
+        output = Double.NaN;
+    }
+}
@@ -0,0 +1,182 @@
+package BFVLib;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * MS5611Decoder calculates compensated pressure and temperature from raw MS5611 sensor values
+ * with 64 bit integer first and second order temperature compensation of the sensor datasheet.
+ *
+ * MS5611 line holds space separated decimal values 'MS5611 C1 C2 C3 C4 C5 C6 D1 D2', lines with only
+ * calibration coefficients 'MS5611 C1 C2 C3 C4 C5 C6' or only conversion results 'MS5611 D1 D2' are
+ * accepted too. Terms of calibration coefficients are cached and only recalculated when coefficients
+ * change, decoding does not allocate.
+ *
+ */
+public class MS5611Decoder {
+    static final byte[] PREFIX = "MS5611 ".getBytes(StandardCharsets.ISO_8859_1);
+
+    private final int[] calibration = new int[6];
+    private final long[] lineValues = new long[8];
+    private boolean hasCalibration = false;
+
+    // cached terms of calibration coefficients
+    private long sensitivity;      // C1 * 2^15
+    private long offset;           // C2 * 2^16
+    private long sensitivityTc;    // C3
+    private long offsetTc;         // C4
+    private long referenceTemp;    // C5 * 2^8
+    private long tempSensitivity;  // C6
+
+    private int pressure;
+    private int temperature;
+    private long sampleCount = 0;
+
+    /**
+     * Sets calibration coefficients read from sensor PROM
+     *
+     * @param c1 pressure sensitivity - SENST1
+     * @param c2 pressure offset - OFFT1
+     * @param c3 temperature coefficient of pressure sensitivity - TCS
+     * @param c4 temperature coefficient of pressure offset - TCO
+     * @param c5 reference temperature - TREF
+     * @param c6 temperature coefficient of the temperature - TEMPSENS
+     */
+    public void setCalibration(int c1, int c2, int c3, int c4, int c5, int c6) {
+        if (hasCalibration && calibration[0] == c1 && calibration[1] == c2 && calibration[2] == c3
+                && calibration[3] == c4 && calibration[4] == c5 && calibration[5] == c6) {
+            return;
+        }
+        calibration[0] = c1;
+        calibration[1] = c2;
+        calibration[2] = c3;
+        calibration[3] = c4;
+        calibration[4] = c5;
+        calibration[5] = c6;
+        sensitivity = (long) c1 << 15;
+        offset = (long) c2 << 16;
+        sensitivityTc = c3;
+        offsetTc = c4;
+        referenceTemp = (long) c5 << 8;
+        tempSensitivity = c6;
+        hasCalibration = true;
+    }
+
+    /**
+     * Calculates compensated pressure and temperature from one conversion pair
+     *
+     * @param d1 digital pressure value
+     * @param d2 digital temperature value
+     * @return true if values were calculated, false if there is no calibration
+     */
+    public boolean compensate(long d1, long d2) {
+        if (!hasCalibration) {
+            return false;
+        }
+        // first order
+        long dT = d2 - referenceTemp;
+        long temp = 2000 + dT * tempSensitivity / (1L << 23);
+        long off = offset + offsetTc * dT / (1L << 7);
+        long sens = sensitivity + sensitivityTc * dT / (1L << 8);
+
+        // second order below 20 degrees
+        if (temp < 2000) {
+            long low = (temp - 2000) * (temp - 2000);
+            long t2 = dT * dT / (1L << 31);
+            long off2 = 5 * low / 2;
+            long sens2 = 5 * low / 4;
+            if (temp < -1500) {
+                long veryLow = (temp + 1500) * (temp + 1500);
+                off2 += 7 * veryLow;
+                sens2 += 11 * veryLow / 2;
+            }
+            temp -= t2;
+            off -= off2;
+            sens -= sens2;
+        }
+
+        this.temperature = (int) temp;
+        this.pressure = (int) ((d1 * sens / (1L << 21) - off) / (1L << 15));
+        sampleCount++;
+        return true;
+    }
+
+    /**
+     * Decodes MS5611 line between from (inclusive) and to (exclusive)
+     *
+     * @param line bytes holding line
+     * @param from index of the first byte of the line
+     * @param to index after the last byte of the line
+     * @return true if new pressure and temperature were calculated, false otherwise
+     * @throws NumberFormatException if value is not a decimal number
+     */
+    public boolean parseLine(byte[] line, int from, int to) {
+        if (!Ascii.startsWith(line, from, to - from, PREFIX)) {
+            return false;
+        }
+        int count = 0;
+        int start = from + PREFIX.length;
+        while (start < to && count < lineValues.length) {
+            int end = Ascii.indexOf(line, start, to, (byte) ' ');
+            if (end < 0) {
+                end = to;
+            }
+            if (end > start) {
+                lineValues[count++] = Ascii.parseInt(line, start, end);
+            }
+            start = end + 1;
+        }
+        if (start < to) {
+            // more values than expected
+            return false;
+        }
+        switch (count) {
+            case 2:
+                return compensate(lineValues[0], lineValues[1]);
+            case 6:
+                setCalibrationFromLine();
+                return false;
+            case 8:
+                setCalibrationFromLine();
+                return compensate(lineValues[6], lineValues[7]);
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * @return true if calibration coefficients were set
+     */
+    public boolean hasCalibration() {
+        return hasCalibration;
+    }
+
+    /**
+     * @return compensated pressure of last conversion in Pascals (0.01 mbar)
+     */
+    public int getPressure() {
+        return pressure;
+    }
+
+    /**
+     * @return compensated temperature of last conversion in 0.01 degrees Celsius
+     */
+    public int getTemperature() {
+        return temperature;
+    }
+
+    /**
+     * @return number of compensated conversions since creation
+     */
+    public long getSampleCount() {
+        return sampleCount;
+    }
+
+    /**
+     * Sets calibration from first 6 decoded values of line
+     *
+     */
+    private void setCalibrationFromLine() {
+        setCalibration((int) lineValues[0], (int) lineValues[1], (int) lineValues[2],
+                (int) lineValues[3], (int) lineValues[4], (int) lineValues[5]);
+    }
+}
@@ -0,0 +1,73 @@
+package BFVLib;
+
+/**
+ * MedianFilter outputs median of last 'window' samples, rejecting single sample spikes
+ * (ie. corrupted PRS values) up to half of window long without smoothing edges.
+ * Nothing is output until window fills (ie. after reset) so that a spike in the first samples
+ * is not passed on, NaN samples are ignored.
+ *
+ */
+public class MedianFilter implements PressureFilter {
+    private final double[] samples;
+    private final double[] sorted;
+    private int next = 0;
+    private int count = 0;
+
+    /**
+     * Creates median filter
+     *
+     * @param window number of samples, must be odd and > 0
+     */
+    public MedianFilter(int window) {
+        assert (window > 0 && window % 2 == 1);
+        this.samples = new double[window];
+        this.sorted = new double[window];
+    }
+
+    @Override
+    public double filter(double value) {
+        if (Double.isNaN(value)) {
+            return Double.NaN;
+        }
+        if (count == samples.length) {
+            remove(samples[next]);
+        } else {
+            count++;
+        }
+        samples[next] = value;
+        next = (next + 1) % samples.length;
+        insert(value);
+        return count == samples.length ? sorted[count / 2] : Double.NaN;
+    }
+
+    @Override
+    public void reset() {
+        next = 0;
+        count = 0;
+    }
+
+    /**
+     * Removes value from count sorted samples, leaving the last slot free
+     *
+     */
+    private void remove(double value) {
+        int i = 0;
+        while (sorted[i] != value) {
+            i++;
+        }
+        System.arraycopy(sorted, i + 1, sorted, i, count - 1 - i);
+    }
+
+    /**
+     * Inserts value into sorted samples, count already includes it and the last slot is free
+     *
+     */
+    private void insert(double value) {
+        int i = count - 1;
+        while (i > 0 && sorted[i - 1] > value) {
+            sorted[i] = sorted[i - 1];
+            i--;
+        }
+        sorted[i] = value;
+    }
+}
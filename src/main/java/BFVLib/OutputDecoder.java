@@ -0,0 +1,28 @@
+package BFVLib;
+
+/**
+ * OutputDecoder decodes lines of one of BlueFlyVario hardware output modes (outputMode parameter)
+ * straight from line bytes and passes decoded values to DeviceValues (BFV or device of BFVHub).
+ *
+ * Decoders are stateless and can be shared between devices.
+ *
+ */
+interface OutputDecoder {
+    // line was decoded
+    int DECODED = 0;
+    // line is not in decoders format, LineDecoder tries to parse it as native BlueFlyVario line
+    int NOT_HANDLED = 1;
+    // line is in decoders format but its checksum is invalid, line is ignored
+    int INVALID_CHECKSUM = 2;
+
+    /**
+     * Decodes line and passes decoded values to device
+     *
+     * @param line bytes holding line without line terminator
+     * @param offset of the first byte of the line
+     * @param end index after last byte of the line
+     * @param device to pass decoded values to
+     * @return one of: DECODED, NOT_HANDLED, INVALID_CHECKSUM
+     */
+    int decode(byte[] line, int offset, int end, DeviceValues device);
+}
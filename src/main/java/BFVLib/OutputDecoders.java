@@ -0,0 +1,224 @@
+package BFVLib;
+
+/**
+ * OutputDecoders holds decoders for BlueFlyVario hardware output modes
+ * Output mode -> 0-BlueFlyVario(default), 1-LK8EX1, 2-LX, 3-FlyNet, 4-None, 5-BFVlib, 6-BFX, 7-OpenVario
+ *
+ * BlueFlyVario, BFVlib and BFX modes output native PRS / TMP / BAT lines which are decoded by LineDecoder itself.
+ * NMEA style sentences are checked for valid checksum before any field is decoded,
+ * fields are decoded in place without creating Strings.
+ *
+ */
+final class OutputDecoders {
+    static final OutputDecoder LK8EX1 = new Lk8ex1Decoder();
+    static final OutputDecoder LX = new LxDecoder();
+    static final OutputDecoder FLYNET = new FlyNetDecoder();
+    static final OutputDecoder OPENVARIO = new OpenVarioDecoder();
+
+    private OutputDecoders() {
+    }
+
+    /**
+     * Returns decoder for provided output mode
+     *
+     * @param mode value of outputMode parameter
+     * @return decoder for mode, null if lines are native BlueFlyVario lines decoded by LineDecoder
+     */
+    static OutputDecoder forMode(int mode) {
+        switch (mode) {
+            case BFV.OUTPUT_MODE_LK8EX1:
+                return LK8EX1;
+            case BFV.OUTPUT_MODE_LX:
+                return LX;
+            case BFV.OUTPUT_MODE_FLYNET:
+                return FLYNET;
+            case BFV.OUTPUT_MODE_OPENVARIO:
+                return OPENVARIO;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Returns index of end of field starting at from, fields are separated by ',' and end with '*'
+     *
+     * @param line bytes holding line
+     * @param from index of first character of field
+     * @param end index of '*'
+     * @return index of ',' or '*' after field
+     */
+    private static int fieldEnd(byte[] line, int from, int end) {
+        int i = from;
+        while (i < end && line[i] != ',') {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Check if sentence starting at offset has provided tag ie. '$LK8EX1,'
+     *
+     */
+    private static boolean hasTag(byte[] line, int offset, int end, byte[] tag) {
+        return Ascii.startsWith(line, offset, end - offset, tag);
+    }
+
+    /**
+     * LK8EX1 sentence
+     * $LK8EX1,pressure,altitude,vario,temperature,battery,*checksum
+     *
+     * pressure in Pascals (999999 if not available), altitude in meters used only if pressure is not available
+     * (99999 if not available), vario in cm/s (9999 if not available, ignored in favour of BFV Kalman filter),
+     * temperature in C (99 if not available), battery voltage or percentage + 1000 (999 if not available)
+     *
+     */
+    private static final class Lk8ex1Decoder implements OutputDecoder {
+        private static final byte[] TAG = {'$', 'L', 'K', '8', 'E', 'X', '1', ','};
+
+        @Override
+        public int decode(byte[] line, int offset, int end, DeviceValues device) {
+            if (!hasTag(line, offset, end, TAG)) {
+                return NOT_HANDLED;
+            }
+            int star = Ascii.nmeaChecksumEnd(line, offset, end);
+            if (star < 0) {
+                return INVALID_CHECKSUM;
+            }
+
+            int start = offset + TAG.length;
+            int stop = fieldEnd(line, start, star);
+            double pressure = stop > start ? Ascii.parseDecimal(line, start, stop) : 999999;
+
+            start = stop + 1;
+            stop = fieldEnd(line, start, star);
+            double altitude = stop > start ? Ascii.parseDecimal(line, start, stop) : 99999;
+
+            // vario
+            start = stop + 1;
+            stop = fieldEnd(line, start, star);
+
+            start = stop + 1;
+            stop = fieldEnd(line, start, star);
+            double temperature = stop > start ? Ascii.parseDecimal(line, start, stop) : 99;
+
+            start = stop + 1;
+            stop = fieldEnd(line, start, star);
+            double battery = stop > start ? Ascii.parseDecimal(line, start, stop) : 999;
+
+            if (pressure != 999999) {
+                device.updatePressure(pressure);
+            } else if (altitude != 99999) {
+                device.updateAltitudeFromDevice(altitude);
+            }
+            if (temperature != 99) {
+                device.setTemperature(temperature);
+            }
+            if (battery < 999) {
+                device.setBattery(battery);
+            }
+            return DECODED;
+        }
+    }
+
+    /**
+     * LX sentence
+     * $LXWP0,logger,airspeed,altitude,vario1,vario2,vario3,vario4,vario5,vario6,heading,windDirection,windSpeed*checksum
+     *
+     * only altitude in meters (calculated by device using outputQNH parameter) is used,
+     * varios are ignored in favour of BFV Kalman filter
+     *
+     */
+    private static final class LxDecoder implements OutputDecoder {
+        private static final byte[] TAG = {'$', 'L', 'X', 'W', 'P', '0', ','};
+
+        @Override
+        public int decode(byte[] line, int offset, int end, DeviceValues device) {
+            if (!hasTag(line, offset, end, TAG)) {
+                return NOT_HANDLED;
+            }
+            int star = Ascii.nmeaChecksumEnd(line, offset, end);
+            if (star < 0) {
+                return INVALID_CHECKSUM;
+            }
+
+            // skip logger and airspeed
+            int start = fieldEnd(line, offset + TAG.length, star) + 1;
+            start = fieldEnd(line, start, star) + 1;
+            int stop = fieldEnd(line, start, star);
+            if (stop > start) {
+                device.updateAltitudeFromDevice(Ascii.parseDecimal(line, start, stop));
+            }
+            return DECODED;
+        }
+    }
+
+    /**
+     * FlyNet lines, without checksum
+     * _PRS hexPressure
+     * _BAT level
+     *
+     * pressure in Pascals, battery is reported as charge level (0-10) instead of voltage and is ignored
+     *
+     */
+    private static final class FlyNetDecoder implements OutputDecoder {
+        private static final byte[] PRESSURE_TAG = {'_', 'P', 'R', 'S', ' '};
+        private static final byte[] BATTERY_TAG = {'_', 'B', 'A', 'T', ' '};
+
+        @Override
+        public int decode(byte[] line, int offset, int end, DeviceValues device) {
+            if (hasTag(line, offset, end, PRESSURE_TAG)) {
+                device.updatePressure(Ascii.parseHex(line, offset + PRESSURE_TAG.length, end));
+                return DECODED;
+            }
+            if (hasTag(line, offset, end, BATTERY_TAG)) {
+                return DECODED;
+            }
+            return NOT_HANDLED;
+        }
+    }
+
+    /**
+     * OpenVario sentence, pairs of value type and value
+     * $POV,P,pressure,T,temperature,V,battery*checksum
+     *
+     * P - static pressure in hPa, T - temperature in C, V - battery voltage,
+     * other types (Q - dynamic pressure, E - TE vario, H - humidity) are ignored
+     *
+     */
+    private static final class OpenVarioDecoder implements OutputDecoder {
+        private static final byte[] TAG = {'$', 'P', 'O', 'V', ','};
+
+        @Override
+        public int decode(byte[] line, int offset, int end, DeviceValues device) {
+            if (!hasTag(line, offset, end, TAG)) {
+                return NOT_HANDLED;
+            }
+            int star = Ascii.nmeaChecksumEnd(line, offset, end);
+            if (star < 0) {
+                return INVALID_CHECKSUM;
+            }
+
+            int start = offset + TAG.length;
+            while (start < star) {
+                int typeEnd = fieldEnd(line, start, star);
+                int valueStart = typeEnd + 1;
+                int valueEnd = fieldEnd(line, valueStart, star);
+                if (typeEnd - start == 1 && valueEnd > valueStart) {
+                    switch (line[start]) {
+                        case 'P':
+                            device.updatePressure(Ascii.parseDecimal(line, valueStart, valueEnd) * 100.0);
+                            break;
+                        case 'T':
+                            device.setTemperature(Ascii.parseDecimal(line, valueStart, valueEnd));
+                            break;
+                        case 'V':
+                            device.setBattery(Ascii.parseDecimal(line, valueStart, valueEnd));
+                            break;
+                    }
+                }
+                start = valueEnd + 1;
+            }
+            return DECODED;
+        }
+    }
+}
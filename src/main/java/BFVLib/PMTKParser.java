@@ -1,121 +1,271 @@
 package BFVLib;
 
-import java.io.FileWriter;
-import java.io.IOException;
-import java.io.PrintWriter;
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.TimeZone;
+import java.nio.charset.StandardCharsets;
 
 /**
- * UNTESTED!!!! as provided by BlueFlyVario flying instrument creator mr. Alistair Dickie
+ * PMTKParser decodes LOCUS flash download of GPS module ($PMTKLOX lines received after 'queryLocusData' command)
+ * $PMTKLOX,0,numberOfLines*checksum - start of download
+ * $PMTKLOX,1,lineNumber,word,word,...*checksum - data, every 4 hex words of 8 characters is one 16 byte record
+ * $PMTKLOX,2*checksum - end of download
+ *
+ * Lines with invalid checksum and records with invalid record checksum are dropped and counted.
+ *
+ * Parser is long lived, one instance follows the whole download across lines. Records are decoded
+ * straight from hex characters into primitive fields and passed to LocusSink if one is set,
+ * see LocusMemorySink, LocusCsvSink and LocusMtkSink.
  *
  */
 public class PMTKParser {
-    private PrintWriter printWriterMTK;
-    private PrintWriter printWriterCSV;
+    private static final byte[] LOX_PREFIX = "$PMTKLOX,".getBytes(StandardCharsets.ISO_8859_1);
+
+    private static final int RECORD_VALID = 0;
+    private static final int RECORD_EMPTY = 1;
+    private static final int RECORD_INVALID_CHECKSUM = 2;
+    private static final int RECORD_MALFORMED = 3;
+
+    private LocusSink sink;
+
+    private byte[] lineBuffer = new byte[256];
+
+    // last decoded record
+    private long timeStamp;
+    private int fix;
+    private float latitude;
+    private float longitude;
+    private int height;
+
+    private long recordCount = 0;
+    private long lineChecksumErrorCount = 0;
+    private long recordChecksumErrorCount = 0;
 
     /**
-     * UNTESTED!!!! as provided by BlueFlyVario flying instrument creator mr. Alistair Dickie
+     * Creates parser waiting for start of LOCUS download
      *
-     * @param line UNTESTED!!!! as provided by BlueFlyVario flying instrument creator mr. Alistair Dickie
      */
-    public PMTKParser(String line){
-        String[] mainSplit = line.split("\\*");
-        String[] split = mainSplit[0].split(",");
+    public PMTKParser() {
+    }
 
-        if(split[0].equals("$PMTKLOX")){
-            if(split[1].equals("0")){
-                try {
-                    printWriterMTK = new PrintWriter(new FileWriter("locus_record.mtk"));
-                    printWriterCSV = new PrintWriter(new FileWriter("locus_record.csv"));
+    /**
+     * Creates parser passing records to provided sink
+     *
+     * @param sink to pass records to, null to only decode
+     */
+    public PMTKParser(LocusSink sink) {
+        this.sink = sink;
+    }
 
-                    printWriterMTK.println(line);
-                }
-                catch (IOException e){
-                    // e.printStackTrace();
-                }
+    /**
+     * Creates parser and parses provided line
+     *
+     * @param line to parse
+     * @deprecated parser keeps state of the download between lines, create one parser and call parseLine for each line
+     */
+    @Deprecated
+    public PMTKParser(String line) {
+        this();
+        parseLine(line);
+    }
 
-            }
-            if(split[1].equals("1")){
-                int fourByteNum = 0;
-                StringBuilder record = new StringBuilder();
-                for(int b = 3; b < split.length; b++){
-                    record.append(split[b]);
-                    fourByteNum++;
-                    if(fourByteNum == 4){
-                        fourByteNum = 0;
-                        byte[] bytes = hexStringToByteArray(record.toString());
-
-                        byte[] timeBytes = new byte[4];
-                        timeBytes[0] = bytes[0];
-                        timeBytes[1] = bytes[1];
-                        timeBytes[2] = bytes[2];
-                        timeBytes[3] = bytes[3];
-                        int timeStamp = ByteBuffer.wrap(timeBytes).order(ByteOrder.LITTLE_ENDIAN).getInt();
-
-//                        int timeStamp = ((bytes[3] & 0xFF) << 24)|((bytes[2] & 0xFF) << 16)|((bytes[1] & 0xFF) << 8 )|((bytes[0] & 0xFF) << 0 );
-                        Date time = new Date((long)timeStamp*1000);
-
-                        int fix = bytes[4];
-
-                        byte[] latBytes = new byte[4];
-                        latBytes[0] = bytes[5];
-                        latBytes[1] = bytes[6];
-                        latBytes[2] = bytes[7];
-                        latBytes[3] = bytes[8];
-                        float latitude = ByteBuffer.wrap(latBytes).order(ByteOrder.LITTLE_ENDIAN).getFloat();
-
-                        byte[] longBytes = new byte[4];
-                        longBytes[0] = bytes[9];
-                        longBytes[1] = bytes[10];
-                        longBytes[2] = bytes[11];
-                        longBytes[3] = bytes[12];
-                        float longitude = ByteBuffer.wrap(longBytes).order(ByteOrder.LITTLE_ENDIAN).getFloat();
-
-                        byte[] heightBytes = new byte[4];
-                        heightBytes[0] = bytes[13];
-                        heightBytes[1] = bytes[14];
-                        heightBytes[2] = 0;
-                        heightBytes[3] = 0;
-                        int height = ByteBuffer.wrap(heightBytes).order(ByteOrder.LITTLE_ENDIAN).getInt();
-
-                        if(fix == 2){
-                            SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-DD'T'HH:mm:ss'Z'");
-                            dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
-                            String CSVLine = timeStamp + "," + dateFormat.format(time) + "," + fix + "," + latitude + "," + longitude + "," + height;
-                            printWriterCSV.println(CSVLine);
+    /**
+     * Sets sink receiving decoded records
+     *
+     * @param sink to pass records to, null to only decode
+     */
+    public void setSink(LocusSink sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * @return sink receiving decoded records, null if there is none
+     */
+    public LocusSink getSink() {
+        return sink;
+    }
+
+    /**
+     * Parses PMTK line
+     *
+     * @param line to parse
+     */
+    public void parseLine(String line) {
+        int length = line.length();
+        if (lineBuffer.length < length) {
+            lineBuffer = new byte[Math.max(length, lineBuffer.length * 2)];
+        }
+        for (int i = 0; i < length; i++) {
+            lineBuffer[i] = (byte) line.charAt(i);
+        }
+        parseLine(lineBuffer, 0, length);
+    }
+
+    /**
+     * Parses PMTK line of ASCII bytes without line terminator, lines other than $PMTKLOX are ignored
+     *
+     * @param line bytes holding line
+     * @param offset of the first byte of the line
+     * @param length of the line
+     */
+    public void parseLine(byte[] line, int offset, int length) {
+        int end = offset + length;
+        if (!Ascii.startsWith(line, offset, length, LOX_PREFIX) || length <= LOX_PREFIX.length) {
+            return;
+        }
+        int star = Ascii.nmeaChecksumEnd(line, offset, end);
+        if (star < 0) {
+            lineChecksumErrorCount++;
+            return;
+        }
+
+        int type = offset + LOX_PREFIX.length;
+        switch (line[type]) {
+            case '0':
+                if (sink != null) {
+                    sink.onStart();
+                    sink.onLine(line, offset, length);
+                }
+                break;
+            case '1':
+                // skip type and line number
+                int position = Ascii.indexOf(line, type, star, (byte) ',');
+                position = position < 0 ? -1 : Ascii.indexOf(line, position + 1, star, (byte) ',');
+                while (position >= 0 && position + 36 <= star) {
+                    int result = decodeRecord(line, position + 1);
+                    if (result == RECORD_MALFORMED) {
+                        break;
+                    }
+                    if (result == RECORD_VALID) {
+                        recordCount++;
+                        if (sink != null) {
+                            sink.onFix(timeStamp, fix, latitude, longitude, height);
                         }
-                        record = new StringBuilder();
-                        printWriterMTK.println(line);
+                    } else if (result == RECORD_INVALID_CHECKSUM) {
+                        recordChecksumErrorCount++;
                     }
+                    position += 36;
                 }
-            }
+                if (sink != null) {
+                    sink.onLine(line, offset, length);
+                }
+                break;
+            case '2':
+                if (sink != null) {
+                    sink.onLine(line, offset, length);
+                    sink.onEnd();
+                }
+                break;
+        }
+    }
 
-            if(split[1].equals("2")){
-                printWriterMTK.println(line);
-                printWriterMTK.close();
-                printWriterCSV.close();
+    /**
+     * @return number of records decoded since creation
+     */
+    public long getRecordCount() {
+        return recordCount;
+    }
 
-            }
-        }
+    /**
+     * @return number of $PMTKLOX lines dropped because of missing or invalid checksum since creation
+     */
+    public long getLineChecksumErrorCount() {
+        return lineChecksumErrorCount;
     }
 
     /**
-     * UNTESTED!!!! as provided by BlueFlyVario flying instrument creator mr. Alistair Dickie
+     * @return number of records dropped because of invalid record checksum since creation
+     */
+    public long getRecordChecksumErrorCount() {
+        return recordChecksumErrorCount;
+    }
+
+    /**
+     * @return UTC seconds since epoch of last decoded record
+     */
+    public long getTimeStamp() {
+        return timeStamp;
+    }
+
+    /**
+     * @return fix type of last decoded record
+     */
+    public int getFix() {
+        return fix;
+    }
+
+    /**
+     * @return latitude in degrees of last decoded record
+     */
+    public float getLatitude() {
+        return latitude;
+    }
+
+    /**
+     * @return longitude in degrees of last decoded record
+     */
+    public float getLongitude() {
+        return longitude;
+    }
+
+    /**
+     * @return height in meters of last decoded record
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Decodes 16 byte record from 4 comma separated words of 8 hex characters starting at position
+     * UTC(4) fix(1) latitude(4) longitude(4) height(2) checksum(1), all little endian,
+     * checksum is XOR of the first 15 bytes
      *
+     * @param line bytes holding record
+     * @param position of the first hex character of the record
+     * @return RECORD_VALID if record was decoded, RECORD_EMPTY for erased flash (all bytes 0xFF),
+     * RECORD_INVALID_CHECKSUM or RECORD_MALFORMED otherwise
      */
-    private static byte[] hexStringToByteArray(String s) {
-        int len = s.length();
-        assert len % 2 == 1;
-        byte[] data = new byte[len / 2];
-        for (int i = 0; i < len; i += 2) {
-            data[i / 2] = (byte) ((Character.digit(s.charAt(i), 16) << 4)
-                    + Character.digit(s.charAt(i+1), 16));
+    private int decodeRecord(byte[] line, int position) {
+        long w0 = word(line, position);
+        long w1 = word(line, position + 9);
+        long w2 = word(line, position + 18);
+        long w3 = word(line, position + 27);
+        if (w0 < 0 || w1 < 0 || w2 < 0 || w3 < 0) {
+            return RECORD_MALFORMED;
+        }
+        if ((w0 & w1 & w2 & w3) == 0xFFFFFFFFL) {
+            return RECORD_EMPTY;
         }
-        return data;
+        // XOR of all 16 bytes including checksum is 0 for valid record
+        long checksum = w0 ^ w1 ^ w2 ^ w3;
+        checksum ^= checksum >>> 16;
+        checksum ^= checksum >>> 8;
+        if ((checksum & 0xFF) != 0) {
+            return RECORD_INVALID_CHECKSUM;
+        }
+        timeStamp = w0;
+        fix = (int) (w1 & 0xFF);
+        latitude = Float.intBitsToFloat((int) ((w1 >>> 8) | (w2 << 24)));
+        longitude = Float.intBitsToFloat((int) ((w2 >>> 8) | (w3 << 24)));
+        height = (int) ((w3 >>> 8) & 0xFFFF);
+        return RECORD_VALID;
     }
 
+    /**
+     * Decodes word of 4 bytes written as 8 hex characters as little endian unsigned int
+     *
+     * @param line bytes holding word
+     * @param position of the first hex character
+     * @return decoded word, -1 if word is not 8 hex characters followed by ',' or '*'
+     */
+    private static long word(byte[] line, int position) {
+        long value = 0;
+        for (int i = 0; i < 8; i += 2) {
+            int high = Ascii.hexDigit(line[position + i]);
+            int low = Ascii.hexDigit(line[position + i + 1]);
+            if (high < 0 || low < 0) {
+                return -1;
+            }
+            value |= (long) ((high << 4) | low) << (i * 4);
+        }
+        byte separator = line[position + 8];
+        return separator == ',' || separator == '*' ? value : -1;
+    }
 }
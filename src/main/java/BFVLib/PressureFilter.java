@@ -0,0 +1,31 @@
+package BFVLib;
+
+/**
+ * PressureFilter is one stage of processing of pressure samples between decoding and altitude
+ * conversion in BFV (see BFV.setPressureFilter), stages are composed with FilterChain.
+ *
+ * Filters keep their state in preallocated primitive fields and do not allocate per sample.
+ *
+ */
+public interface PressureFilter {
+    /**
+     * Filters next sample
+     *
+     * @param value input sample
+     * @return output sample, Double.NaN if stage produces no output for this input (ie. decimation)
+     */
+    double filter(double value);
+
+    /**
+     * Clears state, next sample is filtered as the first one
+     *
+     */
+    void reset();
+
+    /**
+     * @return number of input samples per output sample
+     */
+    default int getDecimation() {
+        return 1;
+    }
+}
@@ -0,0 +1,151 @@
+package BFVLib;
+
+/**
+ * RollingWindow keeps mean, minimum and maximum of last 'size' appended samples.
+ *
+ * Append is O(1) amortized and mean(), min(), max() are O(1): minimum and maximum are kept in
+ * monotonic queues of sample sequence numbers, sum is updated incrementally and recalculated
+ * from stored samples once per 'size' appends so rounding errors don't accumulate over long flights.
+ * All state is preallocated in primitive arrays, appending does not allocate.
+ * Samples are expected to be finite numbers.
+ *
+ */
+public class RollingWindow {
+    private final int size;
+    private final double[] values;
+    private long count = 0;
+    private double sum = 0;
+
+    private final long[] minQueue;
+    private int minHead = 0;
+    private int minLength = 0;
+
+    private final long[] maxQueue;
+    private int maxHead = 0;
+    private int maxLength = 0;
+
+    /**
+     * Creates window over last 'size' samples
+     *
+     * @param size number of samples in window, must be > 0
+     */
+    public RollingWindow(int size) {
+        assert (size > 0);
+        this.size = size;
+        this.values = new double[size];
+        this.minQueue = new long[size];
+        this.maxQueue = new long[size];
+    }
+
+    /**
+     * Appends sample to window, dropping the oldest sample if window is full
+     *
+     * @param value sample to append
+     */
+    public void append(double value) {
+        long sequence = count;
+        int index = (int) (sequence % size);
+        if (sequence >= size) {
+            sum -= values[index];
+        }
+        values[index] = value;
+        sum += value;
+        count++;
+
+        if (index == size - 1) {
+            // recalculate once per window to get rid of accumulated rounding errors
+            double exact = 0;
+            for (double v : values) {
+                exact += v;
+            }
+            sum = exact;
+        }
+
+        long expired = sequence - size;
+
+        while (minLength > 0 && minQueue[minHead] <= expired) {
+            minHead = (minHead + 1) % size;
+            minLength--;
+        }
+        while (minLength > 0 && valueOf(minQueue[(minHead + minLength - 1) % size]) >= value) {
+            minLength--;
+        }
+        minQueue[(minHead + minLength) % size] = sequence;
+        minLength++;
+
+        while (maxLength > 0 && maxQueue[maxHead] <= expired) {
+            maxHead = (maxHead + 1) % size;
+            maxLength--;
+        }
+        while (maxLength > 0 && valueOf(maxQueue[(maxHead + maxLength - 1) % size]) <= value) {
+            maxLength--;
+        }
+        maxQueue[(maxHead + maxLength) % size] = sequence;
+        maxLength++;
+    }
+
+    /**
+     * Removes all samples from window
+     *
+     */
+    public void clear() {
+        count = 0;
+        sum = 0;
+        minHead = 0;
+        minLength = 0;
+        maxHead = 0;
+        maxLength = 0;
+    }
+
+    /**
+     * @return mean of samples in window, Double.NaN if window is empty
+     */
+    public double mean() {
+        return count == 0 ? Double.NaN : sum / length();
+    }
+
+    /**
+     * @return minimum of samples in window, Double.NaN if window is empty
+     */
+    public double min() {
+        return minLength == 0 ? Double.NaN : valueOf(minQueue[minHead]);
+    }
+
+    /**
+     * @return maximum of samples in window, Double.NaN if window is empty
+     */
+    public double max() {
+        return maxLength == 0 ? Double.NaN : valueOf(maxQueue[maxHead]);
+    }
+
+    /**
+     * @return number of samples currently in window
+     */
+    public int length() {
+        return (int) Math.min(count, size);
+    }
+
+    /**
+     * @return maximum number of samples in window
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return true if window holds 'size' samples
+     */
+    public boolean isFull() {
+        return count >= size;
+    }
+
+    /**
+     * Returns stored sample with provided sequence number, sample must still be in window
+     *
+     * @param sequence of sample
+     * @return sample value
+     */
+    private double valueOf(long sequence) {
+        return values[(int) (sequence % size)];
+    }
+}
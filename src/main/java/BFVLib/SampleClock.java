@@ -0,0 +1,185 @@
+package BFVLib;
+
+/**
+ * SampleClock recovers time of samples on the device from their arrival times on the host.
+ *
+ * Device sends samples at fixed cadence (20ms multiplied by outputFrequency parameter) but
+ * Bluetooth delivers them with varying latency, often in bursts of several samples. Device time
+ * of every sample is predicted from the previous one and the cadence, prediction is pulled down to
+ * samples arriving with lower latency than seen before and slowly follows later arrivals to
+ * track drift of device clock.
+ *
+ * Sample arriving earlier than half a period before prediction is counted as duplicate once clock
+ * is settled, if all samples of window arrive more than half a period after prediction
+ * the missing samples are counted as dropped and prediction skips over them.
+ *
+ * All state is kept in primitive fields, update does not allocate.
+ *
+ */
+public class SampleClock {
+    public static final long NO_TIME = Long.MIN_VALUE;
+    public static final int DEFAULT_WINDOW = 16;
+
+    public static final int IN_CADENCE = 0;
+    public static final int AFTER_DROP = 1;
+    public static final int DUPLICATE = 2;
+
+    // later arrivals move prediction by 1/2^SMOOTHING_SHIFT of their lateness
+    private static final int SMOOTHING_SHIFT = 8;
+
+    private final int window;
+
+    private long periodNanos = 0;
+    private long time = NO_TIME;
+    private long arrivalTime = NO_TIME;
+    private long lateness = 0;
+
+    // samples since start or cadence change, clock is settled after 'window' samples
+    private long cadenceSampleCount = 0;
+    private long minWindowLateness = Long.MAX_VALUE;
+    private int windowSampleCount = 0;
+
+    private long sampleCount = 0;
+    private long droppedCount = 0;
+    private long duplicateCount = 0;
+
+    /**
+     * Creates clock detecting dropped samples over DEFAULT_WINDOW samples
+     *
+     */
+    public SampleClock() {
+        this(DEFAULT_WINDOW);
+    }
+
+    /**
+     * Creates clock detecting dropped samples over provided number of samples,
+     * window should span longer time than the longest Bluetooth burst
+     *
+     * @param window number of samples, must be > 0
+     */
+    public SampleClock(int window) {
+        assert (window > 0);
+        this.window = window;
+    }
+
+    /**
+     * Updates clock with sample arrived at provided time
+     *
+     * @param arrivalNanos monotonic time of arrival (ie. System.nanoTime()) in nanoseconds
+     * @param periodNanos time between samples on the device in nanoseconds, restarts recovery if changed
+     * @return IN_CADENCE, AFTER_DROP if samples before this one were dropped or DUPLICATE
+     */
+    public int update(long arrivalNanos, long periodNanos) {
+        assert (periodNanos > 0);
+        this.arrivalTime = arrivalNanos;
+        if (time == NO_TIME || periodNanos != this.periodNanos) {
+            restart(arrivalNanos, periodNanos);
+            sampleCount++;
+            return IN_CADENCE;
+        }
+
+        long predicted = time + periodNanos;
+        long late = arrivalNanos - predicted;
+        boolean settled = cadenceSampleCount >= window;
+        if (settled && late <= -periodNanos / 2) {
+            duplicateCount++;
+            return DUPLICATE;
+        }
+
+        sampleCount++;
+        cadenceSampleCount++;
+        lateness = late;
+        // lower latency than seen before moves clock down, later arrival follows slowly
+        time = late < 0 ? arrivalNanos : predicted + (late >> SMOOTHING_SHIFT);
+
+        minWindowLateness = Math.min(minWindowLateness, late);
+        if (++windowSampleCount < window) {
+            return IN_CADENCE;
+        }
+        long minLateness = minWindowLateness;
+        minWindowLateness = Long.MAX_VALUE;
+        windowSampleCount = 0;
+        if (minLateness < periodNanos / 2) {
+            return IN_CADENCE;
+        }
+        // every sample of window arrived late, device sent samples that never arrived
+        long missing = (minLateness + periodNanos / 2) / periodNanos;
+        droppedCount += missing;
+        time += missing * periodNanos;
+        lateness -= missing * periodNanos;
+        return AFTER_DROP;
+    }
+
+    /**
+     * Restarts recovery, keeps counters
+     *
+     */
+    public void reset() {
+        time = NO_TIME;
+        arrivalTime = NO_TIME;
+        lateness = 0;
+    }
+
+    /**
+     * Starts recovery from sample arrived at provided time
+     *
+     */
+    private void restart(long arrivalNanos, long periodNanos) {
+        this.periodNanos = periodNanos;
+        this.time = arrivalNanos;
+        this.lateness = 0;
+        this.cadenceSampleCount = 1;
+        this.minWindowLateness = Long.MAX_VALUE;
+        this.windowSampleCount = 0;
+    }
+
+    /**
+     * @return recovered device time of last sample in nanoseconds (same time base as arrival times),
+     * NO_TIME if there was no sample
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * @return arrival time of last sample in nanoseconds, NO_TIME if there was no sample
+     */
+    public long getArrivalTime() {
+        return arrivalTime;
+    }
+
+    /**
+     * @return nanoseconds last sample arrived after its predicted time, negative if it arrived sooner
+     */
+    public long getLateness() {
+        return lateness;
+    }
+
+    /**
+     * @return time between samples on the device in nanoseconds
+     */
+    public long getPeriod() {
+        return periodNanos;
+    }
+
+    /**
+     * @return number of samples received excluding duplicates
+     */
+    public long getSampleCount() {
+        return sampleCount;
+    }
+
+    /**
+     * @return number of samples sent by the device that did not arrive
+     */
+    public long getDroppedCount() {
+        return droppedCount;
+    }
+
+    /**
+     * @return number of samples that arrived more than once
+     */
+    public long getDuplicateCount() {
+        return duplicateCount;
+    }
+}
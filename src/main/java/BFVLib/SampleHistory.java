@@ -0,0 +1,109 @@
+package BFVLib;
+
+import java.util.Arrays;
+
+/**
+ * SampleHistory keeps last 'capacity' samples in fixed size primitive ring buffer
+ * and feeds every appended sample to registered RollingWindows.
+ *
+ * Memory used is fixed at creation, appending does not allocate.
+ *
+ */
+public class SampleHistory {
+    private final int capacity;
+    private final double[] values;
+    private long count = 0;
+
+    private RollingWindow[] windows = new RollingWindow[0];
+
+    /**
+     * Creates history of last 'capacity' samples
+     *
+     * @param capacity number of samples to keep, must be > 0
+     */
+    public SampleHistory(int capacity) {
+        assert (capacity > 0);
+        this.capacity = capacity;
+        this.values = new double[capacity];
+    }
+
+    /**
+     * Appends sample to history and all windows, overwriting the oldest sample if history is full
+     *
+     * @param value sample to append
+     */
+    public void append(double value) {
+        values[(int) (count % capacity)] = value;
+        count++;
+        for (RollingWindow window : windows) {
+            window.append(value);
+        }
+    }
+
+    /**
+     * Creates window over last 'size' samples that is fed from this history from now on
+     *
+     * @param size number of samples in window
+     * @return created window
+     */
+    public RollingWindow addWindow(int size) {
+        RollingWindow window = new RollingWindow(size);
+        RollingWindow[] added = Arrays.copyOf(windows, windows.length + 1);
+        added[windows.length] = window;
+        windows = added;
+        return window;
+    }
+
+    /**
+     * Returns sample stored 'age' samples ago
+     *
+     * @param age 0 for the latest sample, length() - 1 for the oldest
+     * @return sample value
+     * @throws IndexOutOfBoundsException if age is not in range 0 <= age < length()
+     */
+    public double get(int age) {
+        if (age < 0 || age >= length()) {
+            throw new IndexOutOfBoundsException("age: " + age + ", length: " + length());
+        }
+        return values[(int) ((count - 1 - age) % capacity)];
+    }
+
+    /**
+     * @return the latest sample, Double.NaN if history is empty
+     */
+    public double latest() {
+        return count == 0 ? Double.NaN : get(0);
+    }
+
+    /**
+     * Removes all samples from history and its windows
+     *
+     */
+    public void clear() {
+        count = 0;
+        for (RollingWindow window : windows) {
+            window.clear();
+        }
+    }
+
+    /**
+     * @return number of samples currently in history
+     */
+    public int length() {
+        return (int) Math.min(count, capacity);
+    }
+
+    /**
+     * @return total number of samples appended since creation or last clear()
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * @return maximum number of samples in history
+     */
+    public int capacity() {
+        return capacity;
+    }
+}
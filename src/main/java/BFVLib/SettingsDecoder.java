@@ -0,0 +1,108 @@
+package BFVLib;
+
+/**
+ * SettingsDecoder decodes BST and SET lines straight from ASCII bytes
+ *
+ * BST [space separated list of settings codes]
+ * SET [0(skip) followed by a space separated list of settings integer values in order of BST codes]
+ *
+ * Codes are decoded once per BST line into ordinals of CommandRegistry.PARAMETER_LIST,
+ * values of every SET line are decoded into preallocated array without any allocation.
+ *
+ */
+final class SettingsDecoder {
+    private SettingsDecoder() {
+    }
+
+    /**
+     * Decodes codes of BST line into ordinals of parameters
+     *
+     * @param line bytes holding codes
+     * @param from index of the first code
+     * @param to index after the last code
+     * @param reuse array returned by previous call, reused if number of codes did not change
+     * @return ordinal of every code in order of line, CodeTable.NOT_FOUND for unknown codes
+     */
+    static int[] decodeKeys(byte[] line, int from, int to, int[] reuse) {
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if (line[i] != ' ' && (i == from || line[i - 1] == ' ')) {
+                count++;
+            }
+        }
+        int[] ordinals = reuse != null && reuse.length == count ? reuse : new int[count];
+        int key = 0;
+        int start = from;
+        for (int i = from; i <= to; i++) {
+            if (i == to || line[i] == ' ') {
+                if (i > start) {
+                    ordinals[key++] = i - start == 3
+                            ? CommandRegistry.PARAMETER_CODES.get(line, start) : CodeTable.NOT_FOUND;
+                }
+                start = i + 1;
+            }
+        }
+        return ordinals;
+    }
+
+    /**
+     * Checks if codes are listed in order of ordinals, then values of SET line can be copied at once
+     *
+     * @param ordinals decoded by decodeKeys
+     * @return true if ordinals are 0 ... PARAMETER_LIST.length - 1
+     */
+    static boolean isInOrder(int[] ordinals) {
+        if (ordinals.length != CommandRegistry.PARAMETER_LIST.length) {
+            return false;
+        }
+        for (int i = 0; i < ordinals.length; i++) {
+            if (ordinals[i] != i) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Decodes space separated integer values of SET line
+     *
+     * @param line bytes holding values
+     * @param from index of the first value (after the skipped reset flag)
+     * @param to index after the last value
+     * @param values array to decode values into
+     * @param count expected number of values, number of codes of last BST line
+     * @return true if exactly count values were decoded, false if their number differs
+     * @throws NumberFormatException if value is not an integer
+     */
+    static boolean decodeValues(byte[] line, int from, int to, int[] values, int count) {
+        int decoded = 0;
+        int start = from;
+        for (int i = from; i <= to; i++) {
+            if (i == to || line[i] == ' ') {
+                if (i > start) {
+                    if (decoded == count) {
+                        return false;
+                    }
+                    values[decoded++] = Ascii.parseInt(line, start, i);
+                }
+                start = i + 1;
+            }
+        }
+        return decoded == count;
+    }
+
+    /**
+     * Checks if any of first count values is negative
+     *
+     * @param values to check
+     * @param count number of values to check
+     * @return true if at least one value is negative, false otherwise
+     */
+    static boolean hasNegative(int[] values, int count) {
+        int or = 0;
+        for (int i = 0; i < count; i++) {
+            or |= values[i];
+        }
+        return or < 0;
+    }
+}
@@ -0,0 +1,259 @@
+package BFVLib;
+
+import java.util.Map;
+
+/**
+ * ToneGenerator synthesizes vario audio on the host when hardware audio of the device is off
+ * (useAudioWhenConnected parameter), driven by vertical speed.
+ *
+ * Lift beeps start above liftThreshold and stop below liftOffThreshold, their frequency is
+ * liftFreqBase + liftFreqIncrement for each 1 m/s and their cadence speeds up with lift scaled by
+ * rateMultiplier and speedMultiplier. Sink tone starts below -sinkThreshold and stops above
+ * -sinkOffThreshold, its frequency is sinkFreqBase - sinkFreqIncrement for each -1 m/s.
+ * Amplitude is square root of volume, so volume of 0.1 sounds about half as loud as 1.0.
+ *
+ * Register generator as BFVListener to follow vertical speed and call configure with
+ * BFV.getAllParameters() when settings are received (BFVListener.onSettings). Audio thread
+ * fills caller supplied PCM buffers, oscillator reads a sine wavetable with fixed point phase
+ * and does not allocate.
+ *
+ */
+public class ToneGenerator implements BFVListener {
+    private static final int TABLE_BITS = 12;
+    private static final float[] SINE = new float[1 << TABLE_BITS];
+
+    static {
+        for (int i = 0; i < SINE.length; i++) {
+            SINE[i] = (float) Math.sin(2 * Math.PI * i / SINE.length);
+        }
+    }
+
+    // cadence of lift beeps at 0 m/s, half of period is tone
+    private static final double BEEP_PERIOD = 0.5;
+    private static final double MIN_BEEP_PERIOD = 0.05;
+    private static final double MIN_FREQUENCY = 20.0;
+    // seconds to fade tone in and out without clicks
+    private static final double RAMP_TIME = 0.002;
+
+    /**
+     * Parameter values converted by their factors, replaced as whole by configure
+     * so the audio thread always sees consistent settings
+     *
+     */
+    private static final class Settings {
+        double liftThreshold;
+        double liftOffThreshold;
+        double liftFreqBase;
+        double liftFreqIncrement;
+        double sinkThreshold;
+        double sinkOffThreshold;
+        double sinkFreqBase;
+        double sinkFreqIncrement;
+        double rateMultiplier;
+        double speedMultiplier;
+        float amplitude;
+    }
+
+    private final int sampleRate;
+    private final float rampStep;
+
+    private volatile Settings settings;
+    private volatile double verticalSpeed = 0;
+
+    // state of audio thread
+    private boolean lift = false;
+    private boolean sink = false;
+    private double frequency = 0;
+    private int phase = 0;
+    private int increment = 0;
+    private double beepPosition = 0;
+    private float gain = 0;
+
+    /**
+     * Creates generator using default values of parameters
+     *
+     * @param sampleRate of generated PCM in Hz
+     */
+    public ToneGenerator(int sampleRate) {
+        assert (sampleRate > 0);
+        this.sampleRate = sampleRate;
+        this.rampStep = (float) (1.0 / Math.max(1.0, RAMP_TIME * sampleRate));
+        configure(null);
+    }
+
+    /**
+     * Reads audio parameters, parameters without value use their default value
+     *
+     * @param parameters as returned by BFV.getAllParameters(), null to use default values
+     */
+    public void configure(Map<String, Command> parameters) {
+        Settings next = new Settings();
+        next.liftThreshold = parameterValue(parameters, "liftThreshold");
+        next.liftOffThreshold = parameterValue(parameters, "liftOffThreshold");
+        next.liftFreqBase = parameterValue(parameters, "liftFreqBase");
+        next.liftFreqIncrement = parameterValue(parameters, "liftFreqIncrement");
+        next.sinkThreshold = parameterValue(parameters, "sinkThreshold");
+        next.sinkOffThreshold = parameterValue(parameters, "sinkOffThreshold");
+        next.sinkFreqBase = parameterValue(parameters, "sinkFreqBase");
+        next.sinkFreqIncrement = parameterValue(parameters, "sinkFreqIncrement");
+        next.rateMultiplier = parameterValue(parameters, "rateMultiplier");
+        next.speedMultiplier = parameterValue(parameters, "speedMultiplier");
+        next.amplitude = (float) Math.sqrt(parameterValue(parameters, "volume"));
+        this.settings = next;
+    }
+
+    /**
+     * Sets vertical speed driving the tone, can be called from any thread
+     *
+     * @param verticalSpeed in m/s, positive when climbing
+     */
+    public void setVerticalSpeed(double verticalSpeed) {
+        this.verticalSpeed = verticalSpeed;
+    }
+
+    @Override
+    public void onVerticalSpeed(double verticalSpeed) {
+        setVerticalSpeed(verticalSpeed);
+    }
+
+    /**
+     * Fills buffer with 16 bit mono PCM samples
+     *
+     * @param buffer to fill
+     * @param offset of the first sample to fill
+     * @param length number of samples to fill
+     */
+    public void fill(short[] buffer, int offset, int length) {
+        Settings current = settings;
+        double beepStep = updateTone(current);
+        int phaseStep = phaseIncrement();
+        float amplitude = current.amplitude * Short.MAX_VALUE;
+        for (int i = offset; i < offset + length; i++) {
+            buffer[i] = (short) (nextSample(beepStep, phaseStep) * amplitude);
+        }
+    }
+
+    /**
+     * Fills buffer with float mono PCM samples in range -1..1
+     *
+     * @param buffer to fill
+     * @param offset of the first sample to fill
+     * @param length number of samples to fill
+     */
+    public void fill(float[] buffer, int offset, int length) {
+        Settings current = settings;
+        double beepStep = updateTone(current);
+        int phaseStep = phaseIncrement();
+        float amplitude = current.amplitude;
+        for (int i = offset; i < offset + length; i++) {
+            buffer[i] = nextSample(beepStep, phaseStep) * amplitude;
+        }
+    }
+
+    /**
+     * @return true if lift beeps are playing
+     */
+    public boolean isLift() {
+        return lift;
+    }
+
+    /**
+     * @return true if sink tone is playing
+     */
+    public boolean isSink() {
+        return sink;
+    }
+
+    /**
+     * @return frequency of tone in Hz, 0 if there is no tone
+     */
+    public double getFrequency() {
+        return frequency;
+    }
+
+    /**
+     * Updates lift and sink state and frequency from vertical speed, called once per block
+     *
+     * @param current settings read once for the whole block
+     * @return advance of beep position per sample, 0 if tone is continuous
+     */
+    private double updateTone(Settings current) {
+        double speed = verticalSpeed;
+
+        lift = lift ? speed > current.liftOffThreshold : speed > current.liftThreshold;
+        sink = !lift && (sink ? speed < -current.sinkOffThreshold : speed < -current.sinkThreshold);
+
+        if (lift) {
+            frequency = current.liftFreqBase + current.liftFreqIncrement * speed;
+            double period = current.rateMultiplier * BEEP_PERIOD / (1 + speed / current.speedMultiplier);
+            return 1.0 / (Math.max(MIN_BEEP_PERIOD, period) * sampleRate);
+        }
+        if (sink) {
+            frequency = Math.max(MIN_FREQUENCY, current.sinkFreqBase + current.sinkFreqIncrement * speed);
+        } else {
+            frequency = 0;
+        }
+        beepPosition = 0;
+        return 0;
+    }
+
+    /**
+     * Returns advance of oscillator phase per sample for current frequency, 2^32 is one cycle.
+     * Last frequency is kept without tone so that the tone fades out at its pitch.
+     *
+     * @return advance of oscillator phase per sample
+     */
+    private int phaseIncrement() {
+        if (frequency > 0) {
+            increment = (int) (long) (frequency / sampleRate * 4294967296.0);
+        }
+        return increment;
+    }
+
+    /**
+     * Advances oscillator by one sample
+     *
+     * @param beepStep advance of beep position per sample, 0 if tone is continuous
+     * @param increment advance of oscillator phase per sample
+     * @return sample in range -1..1 before amplitude is applied
+     */
+    private float nextSample(double beepStep, int increment) {
+        float target;
+        if (beepStep > 0) {
+            beepPosition += beepStep;
+            if (beepPosition >= 1) {
+                beepPosition -= 1;
+            }
+            target = beepPosition < 0.5 ? 1f : 0f;
+        } else {
+            target = frequency > 0 ? 1f : 0f;
+        }
+        if (gain < target) {
+            gain = Math.min(target, gain + rampStep);
+        } else if (gain > target) {
+            gain = Math.max(target, gain - rampStep);
+        }
+        // keep oscillator running while fading out
+        if (gain == 0) {
+            phase = 0;
+            return 0;
+        }
+        float value = SINE[phase >>> (32 - TABLE_BITS)] * gain;
+        phase += increment;
+        return value;
+    }
+
+    /**
+     * Returns parameter value converted to its unit (ie. m/s, Hz) as shown by Command.getValueAsString()
+     *
+     * @param parameters to read value from, null to use default value
+     * @param name of parameter
+     * @return converted value of parameter or its default value if it has no value
+     */
+    private static double parameterValue(Map<String, Command> parameters, String name) {
+        Command parameter = parameters == null ? null : parameters.get(name);
+        CommandDefinition definition = parameter != null ? parameter.getDefinition() : CommandRegistry.PARAMETERS.get(name);
+        int value = parameter != null && parameter.hasValue() ? parameter.getValue() : definition.getDefaultValue();
+        return definition.getType() == BFV.TYPE_DOUBLE ? value / definition.getFactor() : value;
+    }
+}
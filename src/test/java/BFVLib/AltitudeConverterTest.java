@@ -0,0 +1,61 @@
+package BFVLib;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class AltitudeConverterTest {
+
+    /**
+     * Interpolated altitude must stay within documented error of the exact formula
+     * over whole table range
+     */
+    @Test
+    void lookupError() {
+        for (double qnh : new double[] {90000.0, 101325.0, 103012.5, 110000.0}) {
+            AltitudeConverter converter = new AltitudeConverter(qnh);
+            double maxError = 0;
+            double maxErrorAbove70kPa = 0;
+            for (int pressure = AltitudeConverter.TABLE_MIN_PRESSURE; pressure <= AltitudeConverter.TABLE_MAX_PRESSURE; pressure++) {
+                double error = Math.abs(converter.toAltitude(pressure) - AltitudeConverter.exactAltitude(pressure, qnh));
+                maxError = Math.max(maxError, error);
+                if (pressure >= 70000) {
+                    maxErrorAbove70kPa = Math.max(maxErrorAbove70kPa, error);
+                }
+            }
+            Assertions.assertTrue(maxError < 0.004, "max error " + maxError + " for qnh " + qnh);
+            Assertions.assertTrue(maxErrorAbove70kPa < 0.0001, "max error " + maxErrorAbove70kPa + " for qnh " + qnh);
+        }
+    }
+
+    @Test
+    void qnhIsZeroAltitude() {
+        AltitudeConverter converter = new AltitudeConverter(101325.0);
+        Assertions.assertEquals(converter.toAltitude(101325), 0.0);
+
+        converter.setQnh(98765.0);
+        Assertions.assertEquals(converter.toAltitude(98765), 0.0);
+        Assertions.assertEquals(converter.getQnh(), 98765.0);
+    }
+
+    @Test
+    void outsideOfTable() {
+        AltitudeConverter converter = new AltitudeConverter(101325.0);
+        Assertions.assertEquals(converter.toAltitude(0), 44330.0);
+        Assertions.assertEquals(converter.toAltitude(130000), AltitudeConverter.exactAltitude(130000, 101325.0));
+        Assertions.assertEquals(converter.toAltitude(9000.5), AltitudeConverter.exactAltitude(9000.5, 101325.0));
+
+        converter.setQnh(0.0);
+        Assertions.assertTrue(Double.isInfinite(converter.toAltitude(50000)));
+    }
+
+    @Test
+    void exactMode() {
+        AltitudeConverter converter = new AltitudeConverter(101325.0);
+        converter.setMode(AltitudeConverter.MODE_EXACT);
+        Assertions.assertEquals(converter.getMode(), AltitudeConverter.MODE_EXACT);
+
+        for (double pressure = 10000.5; pressure < 120000; pressure += 997.3) {
+            Assertions.assertEquals(converter.toAltitude(pressure), AltitudeConverter.exactAltitude(pressure, 101325.0));
+        }
+    }
+}
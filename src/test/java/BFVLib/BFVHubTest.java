@@ -0,0 +1,135 @@
+package BFVLib;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+class BFVHubTest {
+
+    @Test
+    void routeByDevice() {
+        BFVHub hub = new BFVHub(1);
+        int first = hub.addDevice();
+        int second = hub.addDevice();
+        int third = hub.addDevice();
+        Assertions.assertEquals(hub.getDeviceCount(), 3);
+
+        hub.parseLine(first, "PRS 18BCD");
+        hub.parseLine(second, "PRS 17318\r\n");
+        hub.parseLine(second, "TMP 215");
+        hub.parseLine(third, "BAT 1004");
+
+        Assertions.assertEquals(hub.getAltitude(first), 0.0, 0.01);
+        Assertions.assertEquals(hub.getAltitude(second), new BFV().getAltitudeConverter().toAltitude(0x17318));
+        Assertions.assertEquals(hub.getSampleCount(first), 1);
+        Assertions.assertEquals(hub.getTemperature(second), 21.5);
+        Assertions.assertTrue(Double.isNaN(hub.getTemperature(first)));
+        Assertions.assertEquals(hub.getBattery(third), 4.1);
+        Assertions.assertTrue(Double.isNaN(hub.getPressure(third)));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> hub.getAltitude(3));
+
+        hub.resetDevice(first);
+        Assertions.assertTrue(Double.isNaN(hub.getAltitude(first)));
+        Assertions.assertEquals(hub.getSampleCount(first), 0);
+    }
+
+    @Test
+    void settings() {
+        BFVHub hub = new BFVHub();
+        int first = hub.addDevice();
+        int second = hub.addDevice();
+
+        hub.parseLine(first, "BFV 12 3");
+        hub.parseLine(first, "BST BFK BOF XYZ");
+        hub.parseLine(first, "SET 0 200 2 7");
+        hub.parseLine(second, "SET 0 300 3 7");
+
+        Assertions.assertEquals(hub.getHardwareVersion(first), "12.3");
+        Assertions.assertEquals(hub.getParameterValue(first, "BFK"), 200);
+        Assertions.assertEquals(hub.getParameterValue(first, "BOF"), 2);
+        Assertions.assertEquals(hub.getParameterValue(first, "XYZ"), BFVReading.NO_VALUE);
+        // second device did not send BST yet
+        Assertions.assertEquals(hub.getParameterValue(second, "BFK"), BFVReading.NO_VALUE);
+
+        hub.parseLine(second, "BST BFK BOF XYZ");
+        hub.parseLine(second, "SET 0 300 3");
+        Assertions.assertEquals(hub.getParameterValue(second, "BFK"), BFVReading.NO_VALUE);
+        hub.parseLine(second, "SET 0 300 3 7");
+        Assertions.assertEquals(hub.getParameterValue(second, "BFK"), 300);
+        Assertions.assertEquals(hub.getParameterValue(first, "BFK"), 200);
+    }
+
+    @Test
+    void listenerAndFramer() {
+        BFVHub hub = new BFVHub();
+        int first = hub.addDevice();
+        int second = hub.addDevice();
+        int[] pressureDevice = {-1};
+        int[] settingsCount = {0};
+        hub.addListener(new BFVHubListener() {
+            @Override
+            public void onPressure(int device, double pressure) {
+                pressureDevice[0] = device;
+            }
+
+            @Override
+            public void onSettings(int device) {
+                settingsCount[0]++;
+            }
+        });
+
+        LineFramer framer = hub.createFramer(second);
+        byte[] stream = "PRS 18BCD\nBST BFK\nSET 0 150\nPRS 18B".getBytes(StandardCharsets.US_ASCII);
+        framer.feed(stream, 0, stream.length);
+
+        Assertions.assertEquals(pressureDevice[0], second);
+        Assertions.assertEquals(settingsCount[0], 1);
+        Assertions.assertEquals(hub.getSampleCount(second), 1);
+        Assertions.assertEquals(hub.getSampleCount(first), 0);
+        Assertions.assertEquals(hub.getParameterValue(second, "BFK"), 150);
+    }
+
+    @Test
+    void outputModes() {
+        BFVHub hub = new BFVHub();
+        int lk8ex1 = hub.addDevice();
+        int lx = hub.addDevice();
+        Assertions.assertEquals(hub.getOutputMode(lk8ex1), BFV.OUTPUT_MODE_BLUEFLYVARIO);
+
+        // selected from received outputMode parameter
+        hub.parseLine(lk8ex1, "BST BOM");
+        hub.parseLine(lk8ex1, "SET 0 1");
+        Assertions.assertEquals(hub.getOutputMode(lk8ex1), BFV.OUTPUT_MODE_LK8EX1);
+        hub.parseLine(lk8ex1, OutputDecodersTest.nmea("LK8EX1,101325,99999,9999,25,1000,"));
+        Assertions.assertEquals(hub.getAltitude(lk8ex1), 0.0, 0.01);
+        Assertions.assertEquals(hub.getTemperature(lk8ex1), 25.0);
+        Assertions.assertEquals(hub.getSampleCount(lk8ex1), 1);
+
+        // selected by caller and kept when settings are received
+        hub.setOutputMode(lx, BFV.OUTPUT_MODE_LX);
+        hub.parseLine(lx, "BST BOM");
+        hub.parseLine(lx, "SET 0 0");
+        Assertions.assertEquals(hub.getOutputMode(lx), BFV.OUTPUT_MODE_LX);
+        hub.parseLine(lx, OutputDecodersTest.nmea("LXWP0,Y,,1234.5,0.1,,,,,,,,"));
+        Assertions.assertEquals(hub.getAltitude(lx), 1234.5);
+        Assertions.assertTrue(Double.isNaN(hub.getPressure(lx)));
+    }
+
+    @Test
+    void countIgnoredLines() {
+        BFVHub hub = new BFVHub();
+        int device = hub.addDevice();
+        hub.setOutputMode(device, BFV.OUTPUT_MODE_LK8EX1);
+
+        hub.parseLine(device, "$LK8EX1,101325,99999,9999,25,1000,*00");
+        hub.parseLine(device, "$PMTKLOX,0,1*5A");
+        hub.parseLine(device, "MS5611 9085466 8569150");
+        hub.parseLine(device, "Bluetooth Connected");
+        hub.parseLine(device, "PRS 18BCD");
+
+        Assertions.assertEquals(hub.getChecksumErrorCount(device), 1);
+        Assertions.assertEquals(hub.getIgnoredLineCount(device), 3);
+        Assertions.assertEquals(hub.getSampleCount(device), 1);
+    }
+}
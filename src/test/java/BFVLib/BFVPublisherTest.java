@@ -0,0 +1,135 @@
+package BFVLib;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+class BFVPublisherTest {
+
+    static class Recorder implements BFVFlow.Subscriber<BFVEvent> {
+        final List<BFVEvent> events = new ArrayList<>();
+        final CountDownLatch done = new CountDownLatch(1);
+        BFVFlow.Subscription subscription;
+        Throwable error;
+
+        @Override
+        public void onSubscribe(BFVFlow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(BFVEvent item) {
+            events.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            done.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            done.countDown();
+        }
+    }
+
+    @Test
+    void bufferDropsOldest() {
+        BFVPublisher publisher = new BFVPublisher(Runnable::run);
+        Recorder recorder = new Recorder();
+        BFVPublisher.Subscription subscription = publisher.subscribe(recorder, BFVPublisher.POLICY_BUFFER, 4);
+
+        for (int i = 0; i < 6; i++) {
+            publisher.onPressure(100000 + i);
+        }
+        Assertions.assertTrue(recorder.events.isEmpty());
+        Assertions.assertEquals(subscription.getDroppedCount(), 2);
+
+        recorder.subscription.request(3);
+        Assertions.assertEquals(recorder.events.size(), 3);
+        Assertions.assertEquals(recorder.events.get(0).getSequence(), 2);
+        Assertions.assertEquals(recorder.events.get(2).getValue(), 100004.0);
+
+        recorder.subscription.request(10);
+        publisher.onAltitude(120.5);
+        Assertions.assertEquals(recorder.events.size(), 5);
+        Assertions.assertEquals(recorder.events.get(4).getType(), BFVEvent.TYPE_ALTITUDE);
+
+        publisher.close();
+        Assertions.assertEquals(recorder.done.getCount(), 0);
+        Assertions.assertEquals(publisher.getSubscriberCount(), 0);
+    }
+
+    @Test
+    void conflateKeepsLatest() {
+        BFVPublisher publisher = new BFVPublisher(Runnable::run);
+        Recorder recorder = new Recorder();
+        publisher.subscribe(recorder, BFVPublisher.POLICY_CONFLATE, 1);
+
+        publisher.onPressure(100000);
+        publisher.onAltitude(100);
+        publisher.onPressure(100001);
+        publisher.onSettings();
+        publisher.onAltitude(101);
+
+        recorder.subscription.request(10);
+        Assertions.assertEquals(recorder.events.size(), 3);
+        Assertions.assertEquals(recorder.events.get(0).getValue(), 100001.0);
+        Assertions.assertEquals(recorder.events.get(1).getType(), BFVEvent.TYPE_SETTINGS);
+        Assertions.assertEquals(recorder.events.get(2).getValue(), 101.0);
+    }
+
+    @Test
+    void dropWithoutDemand() {
+        BFVPublisher publisher = new BFVPublisher(Runnable::run);
+        Recorder recorder = new Recorder();
+        BFVPublisher.Subscription subscription = publisher.subscribe(recorder, BFVPublisher.POLICY_DROP, 16);
+
+        publisher.onPressure(100000);
+        recorder.subscription.request(1);
+        publisher.onPressure(100001);
+        publisher.onPressure(100002);
+
+        Assertions.assertEquals(recorder.events.size(), 1);
+        Assertions.assertEquals(recorder.events.get(0).getValue(), 100001.0);
+        Assertions.assertEquals(subscription.getDroppedCount(), 2);
+
+        recorder.subscription.request(0);
+        Assertions.assertTrue(recorder.error instanceof IllegalArgumentException);
+        Assertions.assertEquals(publisher.getSubscriberCount(), 0);
+    }
+
+    @Test
+    void deliverFromDevice() throws InterruptedException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            BFV device = new BFV();
+            BFVPublisher publisher = new BFVPublisher(executor);
+            device.addListener(publisher);
+            Recorder recorder = new Recorder();
+            publisher.subscribe(recorder, BFVPublisher.POLICY_BUFFER, 2048);
+            recorder.subscription.request(Long.MAX_VALUE);
+
+            for (int i = 0; i < 500; i++) {
+                device.parseLine(i % 2 == 0 ? "PRS 17318" : "PRS 17319");
+            }
+            publisher.close();
+            Assertions.assertTrue(recorder.done.await(5, TimeUnit.SECONDS));
+
+            // every sample publishes pressure and changed altitude
+            Assertions.assertEquals(recorder.events.size(), 1000);
+            for (int i = 0; i < recorder.events.size(); i++) {
+                Assertions.assertEquals(recorder.events.get(i).getSequence(), i);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
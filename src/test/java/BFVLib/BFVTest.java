@@ -5,6 +5,8 @@ import BFVLib.Command;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Map;
 
@@ -245,4 +247,216 @@ public class BFVTest {
         Assertions.assertTrue(device.checkUpdatedValues());
         Assertions.assertFalse(device.checkUpdatedValues());
     }
-}
\ No newline at end of file
+
+    @Test
+    void parseLineBytes() {
+        BFV device = new BFV();
+
+        byte[] line = "xxPRS 18BCD\r\nxx".getBytes(StandardCharsets.US_ASCII);
+        device.parseLine(line, 2, 11);
+        Assertions.assertEquals(device.getAltitude(), 0.0);
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(32);
+        direct.put("TMP 235 BAT 3E8".getBytes(StandardCharsets.US_ASCII));
+        device.parseLine(direct, 0, 7);
+        Assertions.assertEquals(device.getTemperature(), 23.5);
+        device.parseLine(direct, 8, 7);
+        Assertions.assertEquals(device.getBattery(), 1);
+        Assertions.assertEquals(direct.position(), 15);
+
+        // lines without value are ignored
+        device.parseLine("PRS ");
+        Assertions.assertFalse(device.isUpdatedAltitude());
+
+        Assertions.assertThrows(NumberFormatException.class, () -> device.parseLine("PRS 18XCD"));
+    }
+
+    @Test
+    void listener() {
+        BFV device = new BFV();
+        double[] received = new double[4];
+        String[] version = new String[1];
+        int[] settings = new int[1];
+
+        BFVListener listener = new BFVListener() {
+            @Override
+            public void onPressure(double pressure) {
+                received[0] = pressure;
+            }
+
+            @Override
+            public void onAltitude(double altitude) {
+                received[1] = altitude;
+            }
+
+            @Override
+            public void onTemperature(double temperature) {
+                received[2] = temperature;
+            }
+
+            @Override
+            public void onBattery(double battery) {
+                received[3] = battery;
+            }
+
+            @Override
+            public void onHardwareVersion(String hardwareVersion) {
+                version[0] = hardwareVersion;
+            }
+
+            @Override
+            public void onSettings() {
+                settings[0]++;
+            }
+        };
+        device.addListener(listener);
+
+        device.parseLine("PRS 18BCD");
+        device.parseLine("TMP 100");
+        device.parseLine("BAT 3E8");
+        device.parseLine("BFV 12");
+        device.parseLine("BST BFK BFL");
+        device.parseLine("SET 0 100 35");
+
+        Assertions.assertArrayEquals(received, new double[] {101325.0, 0.0, 10.0, 1.0});
+        Assertions.assertEquals(version[0], "12");
+        Assertions.assertEquals(settings[0], 1);
+
+        Assertions.assertTrue(device.removeListener(listener));
+        Assertions.assertFalse(device.removeListener(listener));
+        device.parseLine("TMP 200");
+        Assertions.assertEquals(received[2], 10.0);
+    }
+
+    @Test
+    void getPrimitiveValues() {
+        BFV device = new BFV();
+
+        Assertions.assertTrue(Double.isNaN(device.getAltitudeValue()));
+        Assertions.assertTrue(Double.isNaN(device.getTemperatureValue()));
+        Assertions.assertTrue(Double.isNaN(device.getBatteryValue()));
+
+        device.parseLine("PRS 18BCD");
+        device.parseLine("TMP 100");
+        device.parseLine("BAT 3E8");
+        Assertions.assertEquals(device.getAltitudeValue(), 0.0);
+        Assertions.assertEquals(device.getTemperatureValue(), 10.0);
+        Assertions.assertEquals(device.getBatteryValue(), 1.0);
+
+        // same pressure again is not reported as updated altitude
+        device.parseLine("PRS 18BCD");
+        Assertions.assertFalse(device.isUpdatedAltitude());
+        device.parseLine("PRS 18BCC");
+        Assertions.assertTrue(device.isUpdatedAltitude());
+    }
+
+    @Test
+    void getVerticalSpeed() {
+        BFV device = new BFV();
+
+        Assertions.assertTrue(Double.isNaN(device.getVerticalSpeed()));
+        Assertions.assertEquals(device.getVario().getPositionNoise(), 0.1, 1e-12);
+
+        device.parseLine("BST BFK BOF");
+        device.parseLine("SET 0 200 2");
+        Assertions.assertEquals(device.getVario().getPositionNoise(), 0.2, 1e-12);
+
+        // steady sink of 1 Pa per 40ms sample (~2.1 m/s) near sea level
+        int pressure = 100000;
+        for (int i = 0; i < 250; i++) {
+            device.parseLine("PRS " + Integer.toHexString(pressure));
+            pressure += 1;
+        }
+        Assertions.assertEquals(device.getVerticalSpeed(), -2.1, 0.1);
+    }
+
+    @Test
+    void concurrentReads() throws InterruptedException {
+        BFV device = new BFV();
+        BFVReading reading = device.createReading();
+        Assertions.assertFalse(device.read(reading));
+
+        device.enableConcurrentReads();
+        Assertions.assertTrue(device.read(reading));
+        Assertions.assertEquals(reading.getSampleCount(), 0);
+        Assertions.assertTrue(Double.isNaN(reading.getAltitude()));
+        Assertions.assertEquals(reading.getParameterValue("BFK"), BFVReading.NO_VALUE);
+
+        device.parseLine("BST BFK BOF");
+        device.parseLine("SET 0 200 2");
+        device.parseLine("TMP 215");
+        device.read(reading);
+        Assertions.assertEquals(reading.getParameterValue("BFK"), 200);
+        Assertions.assertEquals(reading.getParameterValue("XYZ"), BFVReading.NO_VALUE);
+        Assertions.assertEquals(reading.getTemperature(), 21.5);
+
+        // reader must always see altitude belonging to pressure of the same sample
+        AltitudeConverter converter = new AltitudeConverter(101325.0);
+        Thread parser = new Thread(() -> {
+            for (int i = 0; i < 200000; i++) {
+                device.parseLine("PRS " + Integer.toHexString(90000 + i % 20000));
+            }
+        });
+        parser.start();
+        long lastCount = 0;
+        while (parser.isAlive()) {
+            device.read(reading);
+            Assertions.assertTrue(reading.getSampleCount() >= lastCount);
+            lastCount = reading.getSampleCount();
+            if (lastCount > 0) {
+                Assertions.assertEquals(reading.getAltitude(), converter.toAltitude(reading.getPressure()));
+            }
+        }
+        parser.join();
+        device.read(reading);
+        Assertions.assertEquals(reading.getSampleCount(), 200000);
+        Assertions.assertEquals(reading.getParameterValue("BOF"), 2);
+    }
+
+    @Test
+    void settingsInFirmwareOrder() {
+        BFV device = new BFV();
+        Map<String, Command> PARAMETERS = device.getAllParameters();
+        Command positionNoise = PARAMETERS.get("positionNoise");
+        Assertions.assertFalse(positionNoise.hasValue());
+        Assertions.assertSame(positionNoise.getDefinition(), new BFV().getAllParameters().get("positionNoise").getDefinition());
+
+        device.parseLine("BST BFK BFL BFP BAC BAD BTH BFQ BFI BSQ BSI BFS BOL BOS BRM BVL BOM BOF BQH BRB BPT BUR BLD BR2 BHV BHT BBZ BZT BSM BUP BTT BDM BQS BGL");
+        device.parseLine("SET 0 100 35 1 1 1 180 1000 100 400 100 300 20 190 100 1000 0 1 21325 207 1 0 0 16 20 1200 0 60 100 0 2000 0 0 10");
+
+        // views returned before settings were received see new values
+        Assertions.assertSame(device.getAllParameters(), PARAMETERS);
+        Assertions.assertEquals(positionNoise.getValue(), 100);
+        Assertions.assertEquals(PARAMETERS.get("liftThreshold").getValue(), 35);
+        Assertions.assertEquals(PARAMETERS.get("outputQNH").getValue(), 21325);
+        Assertions.assertEquals(PARAMETERS.get("toggleThreshold").getValue(), 2000);
+        Assertions.assertEquals(PARAMETERS.get("gpsLogInterval").getValue(), 10);
+
+        Assertions.assertTrue(positionNoise.setValue(0.2));
+        Assertions.assertEquals(positionNoise.getValue(), 200);
+        Assertions.assertEquals(positionNoise.serializeCommand(), "$BFK 200*");
+        // other devices are not affected
+        Assertions.assertFalse(new BFV().getAllParameters().get("positionNoise").hasValue());
+    }
+
+    @Test
+    void negativeSettingsIgnored() {
+        String[] keys = {
+                "BST BFK BFL BFP BAC BAD BTH BFQ BFI BSQ BSI BFS BOL BOS BRM BVL BOM BOF BQH BRB BPT BUR BLD BR2 BHV BHT BBZ BZT BSM BUP BTT BDM BQS BGL",
+                "BST BFL BFK BFP BAC BAD BTH BFQ BFI BSQ BSI BFS BOL BOS BRM BVL BOM BOF BQH BRB BPT BUR BLD BR2 BHV BHT BBZ BZT BSM BUP BTT BDM BQS BGL"};
+        String[] values = {
+                " 1 1 1 180 1000 100 400 100 300 20 190 100 1000 0 1 21325 207 1 0 0 16 20 1200 0 60 100 0 2000 0 0 10",
+                " 1 1 1 180 1000 100 400 100 300 20 190 100 1000 0 1 21325 207 1 0 0 16 20 1200 0 60 100 0 2000 0 0 10"};
+        for (int i = 0; i < keys.length; i++) {
+            BFV device = new BFV();
+            device.parseLine(keys[i]);
+            device.parseLine(i == 0 ? "SET 0 100 35" + values[i] : "SET 0 35 100" + values[i]);
+            device.parseLine(i == 0 ? "SET 0 -1 36" + values[i] : "SET 0 36 -1" + values[i]);
+
+            // same dump decodes the same regardless of order of BST codes
+            Map<String, Command> parameters = device.getAllParameters();
+            Assertions.assertEquals(parameters.get("positionNoise").getValue(), 100);
+            Assertions.assertEquals(parameters.get("liftThreshold").getValue(), 36);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package BFVLib;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+class CodeTableTest {
+
+    @Test
+    void allParameterCodes() {
+        BFV device = new BFV();
+        String[] codes = new String[device.getAllParameters().size()];
+        int i = 0;
+        for (Command parameter : device.getAllParameters().values()) {
+            codes[i++] = parameter.getCommandCode();
+        }
+
+        CodeTable table = new CodeTable(codes);
+        for (i = 0; i < codes.length; i++) {
+            Assertions.assertEquals(table.get(codes[i]), i);
+            byte[] line = ("x" + codes[i] + " 1").getBytes(StandardCharsets.US_ASCII);
+            Assertions.assertEquals(table.get(line, 1), i);
+        }
+        Assertions.assertEquals(table.get("PRS"), CodeTable.NOT_FOUND);
+        Assertions.assertEquals(table.get("BF"), CodeTable.NOT_FOUND);
+        Assertions.assertEquals(table.get(0), CodeTable.NOT_FOUND);
+    }
+
+    @Test
+    void values() {
+        CodeTable table = new CodeTable(new String[] {"PRS", "TMP"}, new int[] {7, 3});
+        Assertions.assertEquals(table.get("PRS"), 7);
+        Assertions.assertEquals(table.get("TMP"), 3);
+        Assertions.assertEquals(table.get("BAT"), CodeTable.NOT_FOUND);
+    }
+
+    /**
+     * Settings with unknown code (ie. from newer firmware) must not break parsing of known ones
+     */
+    @Test
+    void unknownSettingsCode() {
+        BFV device = new BFV();
+        device.parseLine("BST BFK XYZ BFL");
+        device.parseLine("SET 0 150 7 35");
+
+        Assertions.assertEquals(device.getAllParameters().get("positionNoise").getValue(), 150);
+        Assertions.assertEquals(device.getAllParameters().get("liftThreshold").getValue(), 35);
+    }
+}
@@ -3,6 +3,12 @@ package BFVLib;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class CommandTest {
@@ -28,6 +34,30 @@ class CommandTest {
         Assertions.fail("Test not implemented!");
     }
 
+    @Test
+    void serializeInto() {
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        BFV device = new BFV();
+        device.parseLine("BST BFK BOF");
+        device.parseLine("SET 0 200 2");
+
+        List<Command> commands = new ArrayList<>(device.getAllCommands().values());
+        commands.addAll(device.getAllParameters().values());
+        Command playSound = device.getAllCommands().get("playSound");
+        playSound.serializeCommand("1000 200 0 0");
+        commands.add(playSound);
+
+        for (Command command : commands) {
+            buffer.clear();
+            int length = command.serializeInto(buffer);
+            Assertions.assertEquals(length, buffer.position());
+            Assertions.assertEquals(command.serializeCommand(),
+                    new String(buffer.array(), 0, length, StandardCharsets.US_ASCII));
+        }
+        Assertions.assertThrows(BufferOverflowException.class,
+                () -> device.getAllParameters().get("positionNoise").serializeInto(ByteBuffer.allocate(4)));
+    }
+
     @Test
     void testSerializeCommand() {
         Assertions.fail("Test not implemented!");
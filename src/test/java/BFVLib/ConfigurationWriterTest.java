@@ -0,0 +1,56 @@
+package BFVLib;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+class ConfigurationWriterTest {
+
+    @Test
+    void writeChanged() throws IOException {
+        BFV device = new BFV();
+        device.parseLine("BST BFK BFL BOF");
+        device.parseLine("SET 0 100 35 1");
+
+        ConfigurationWriter writer = new ConfigurationWriter(device);
+        writer.setPacing(0);
+        Assertions.assertTrue(writer.setValue("BFK", 100));
+        Assertions.assertTrue(writer.setValue("BOF", 2));
+        Assertions.assertTrue(writer.setValue("BTH", 150));
+        Assertions.assertFalse(writer.setValue("XYZ", 1));
+        Assertions.assertFalse(writer.setValue("BFK", 10001));
+        Assertions.assertEquals(writer.getValue("BFK"), 100);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        // BFK is unchanged and BTH is not reported by firmware of the device
+        Assertions.assertEquals(writer.write(Channels.newChannel(output)), 1);
+        Assertions.assertEquals(new String(output.toByteArray(), StandardCharsets.US_ASCII), "$BOF 2*$BST*");
+        Assertions.assertFalse(writer.isConfirmed());
+
+        device.parseLine("BST BFK BFL BOF");
+        device.parseLine("SET 0 100 35 1");
+        Assertions.assertFalse(writer.isConfirmed());
+
+        device.parseLine("SET 0 100 35 2");
+        Assertions.assertTrue(writer.isConfirmed());
+    }
+
+    @Test
+    void writeAllWithoutSettings() throws IOException {
+        ConfigurationWriter writer = new ConfigurationWriter(new BFV());
+        writer.setPacing(1000);
+        writer.setValue("BFK", 100);
+        writer.setValue("BOM", 0);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        Assertions.assertEquals(writer.write(Channels.newChannel(output)), 2);
+        Assertions.assertEquals(new String(output.toByteArray(), StandardCharsets.US_ASCII), "$BFK 100*$BOM 0*$BST*");
+
+        writer.clearValues();
+        Assertions.assertEquals(writer.prepare(), 0);
+    }
+}
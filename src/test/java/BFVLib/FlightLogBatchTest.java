@@ -0,0 +1,67 @@
+package BFVLib;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+class FlightLogBatchTest {
+
+    @Test
+    void process() throws IOException {
+        List<Path> files = new ArrayList<>();
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            for (int file = 0; file < 5; file++) {
+                StringBuilder log = new StringBuilder();
+                for (int i = 0; i <= file * 10; i++) {
+                    log.append("PRS ").append(Integer.toHexString(101325 - i * 12).toUpperCase()).append("\r\n");
+                }
+                log.append("TMP 215\nPRS XYZ\nBAT 1004");
+                Path path = Files.createTempFile("flight", ".log");
+                Files.write(path, log.toString().getBytes(StandardCharsets.US_ASCII));
+                files.add(path);
+            }
+            files.add(files.get(0).resolveSibling("missing-" + System.nanoTime() + ".log"));
+            // the same file listed twice has result for each occurrence
+            files.add(files.get(2));
+
+            FlightLogBatch batch = new FlightLogBatch(pool, BFV::new);
+            batch.setTrackEnabled(true);
+            List<FlightLogResult> results = batch.process(files);
+
+            Assertions.assertEquals(results.size(), files.size());
+            Assertions.assertNotSame(results.get(6), results.get(2));
+            for (int i = 0; i < results.size(); i++) {
+                FlightLogResult result = results.get(i);
+                Assertions.assertEquals(result.getPath(), files.get(i));
+                if (i == 5) {
+                    Assertions.assertNotNull(result.getError());
+                    Assertions.assertEquals(result.getSampleCount(), 0);
+                    Assertions.assertTrue(Double.isNaN(result.getMaxAltitude()));
+                    continue;
+                }
+                int file = i == 6 ? 2 : i;
+                Assertions.assertNull(result.getError());
+                Assertions.assertEquals(result.getLineCount(), file * 10 + 4);
+                Assertions.assertEquals(result.getMalformedLineCount(), 1);
+                Assertions.assertEquals(result.getSampleCount(), file * 10 + 1);
+                Assertions.assertEquals(result.getAltitudeTrack().length, file * 10 + 1);
+                Assertions.assertEquals(result.getMinAltitude(), 0.0, 1e-3);
+                Assertions.assertEquals(result.getMaxAltitude(), result.getAltitudeTrack()[file * 10]);
+                Assertions.assertEquals(result.getMaxAltitude(), file * 10, file * 0.05);
+            }
+        } finally {
+            pool.shutdown();
+            for (Path path : files) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package BFVLib;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+class KalmanVarioTest {
+
+    @Test
+    void constantClimb() {
+        KalmanVario vario = new KalmanVario();
+        Random random = new Random(42);
+
+        Assertions.assertTrue(Double.isNaN(vario.getVerticalSpeed()));
+
+        // 1.5 m/s climb sampled every 20ms with 0.1m noise
+        double squaredError = 0;
+        int count = 0;
+        for (int i = 0; i < 50 * 30; i++) {
+            double altitude = 1000.0 + 1.5 * i * 0.02 + random.nextGaussian() * 0.1;
+            vario.update(altitude, 0.02);
+            if (i > 50 * 5) {
+                double error = vario.getVerticalSpeed() - 1.5;
+                squaredError += error * error;
+                count++;
+            }
+        }
+        double rms = Math.sqrt(squaredError / count);
+        Assertions.assertTrue(rms < 0.15, "rms error " + rms);
+        Assertions.assertEquals(vario.getAltitude(), 1000.0 + 1.5 * 1499 * 0.02, 0.1);
+    }
+
+    @Test
+    void stepResponse() {
+        KalmanVario vario = new KalmanVario();
+
+        // level flight then 2 m/s climb, vario should follow within 2 seconds
+        double altitude = 500.0;
+        for (int i = 0; i < 50 * 5; i++) {
+            vario.update(altitude, 0.02);
+        }
+        Assertions.assertEquals(vario.getVerticalSpeed(), 0.0, 1e-9);
+        for (int i = 0; i < 50 * 2; i++) {
+            altitude += 2.0 * 0.02;
+            vario.update(altitude, 0.02);
+        }
+        Assertions.assertEquals(vario.getVerticalSpeed(), 2.0, 0.2);
+    }
+
+    @Test
+    void reset() {
+        KalmanVario vario = new KalmanVario(0.2, 1.0);
+        Assertions.assertEquals(vario.getPositionNoise(), 0.2, 1e-12);
+        Assertions.assertEquals(vario.getAccelerationNoise(), 1.0, 1e-12);
+
+        vario.update(100.0, 0.02);
+        vario.update(101.0, 0.02);
+        vario.update(Double.NaN, 0.02);
+        Assertions.assertTrue(vario.getVerticalSpeed() > 0);
+
+        vario.reset();
+        Assertions.assertTrue(Double.isNaN(vario.getAltitude()));
+        vario.update(200.0, 0.02);
+        Assertions.assertEquals(vario.getAltitude(), 200.0);
+        Assertions.assertEquals(vario.getVerticalSpeed(), 0.0);
+    }
+}
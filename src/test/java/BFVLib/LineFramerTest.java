@@ -0,0 +1,96 @@
+package BFVLib;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+class LineFramerTest {
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    void feedWholeLines() {
+        BFV device = new BFV();
+        LineFramer framer = new LineFramer(device);
+
+        framer.feed(ByteBuffer.wrap(bytes("PRS 18BCD\r\nTMP 100\r\nBAT 3E8\r\n")));
+
+        Assertions.assertEquals(framer.getFrameCount(), 3);
+        Assertions.assertEquals(device.getAltitude(), 0.0);
+        Assertions.assertEquals(device.getTemperature(), 10);
+        Assertions.assertEquals(device.getBattery(), 1);
+    }
+
+    @Test
+    void feedAcrossChunkEdges() {
+        BFV device = new BFV();
+        LineFramer framer = new LineFramer(device);
+        byte[] stream = bytes("PRS 18BCD\r\nBFV 12\r\nTMP 235\r\n");
+
+        // feed one byte at a time to split every line over multiple chunks
+        for (int i = 0; i < stream.length; i++) {
+            framer.feed(stream, i, 1);
+        }
+        Assertions.assertEquals(framer.getFrameCount(), 3);
+        Assertions.assertEquals(device.getAltitude(), 0.0);
+        Assertions.assertEquals(device.getHwVersion(), "12");
+        Assertions.assertEquals(device.getTemperature(), 23.5);
+
+        // partial line stays buffered until terminator arrives
+        ByteBuffer direct = ByteBuffer.allocateDirect(16);
+        direct.put(bytes("BAT 3")).flip();
+        framer.feed(direct);
+        Assertions.assertFalse(device.isUpdatedBattery());
+        direct.clear();
+        direct.put(bytes("E8\n")).flip();
+        framer.feed(direct);
+        Assertions.assertEquals(device.getBattery(), 1);
+        Assertions.assertFalse(direct.hasRemaining());
+    }
+
+    @Test
+    void malformedFrames() {
+        BFV device = new BFV();
+        LineFramer framer = new LineFramer(device, 16);
+
+        framer.feed(ByteBuffer.wrap(bytes("PRS 1?BCD\r\nTMP 1000000000000000000000")));
+        framer.feed(ByteBuffer.wrap(bytes("0\r\nPRS 18BCD\r\n")));
+
+        Assertions.assertEquals(framer.getMalformedFrameCount(), 2);
+        Assertions.assertFalse(device.isUpdatedTemperature());
+        Assertions.assertEquals(device.getAltitude(), 0.0);
+    }
+
+    @Test
+    void arrivalTimeClearedWhenParserThrows() {
+        long[] arrivals = new long[2];
+        int[] count = new int[1];
+        LineParser parser = new LineParser() {
+            @Override
+            public void parseLine(byte[] line, int offset, int length) {
+                parseLine(line, offset, length, SampleClock.NO_TIME);
+            }
+
+            @Override
+            public void parseLine(byte[] line, int offset, int length, long arrivalNanos) {
+                arrivals[count[0]++] = arrivalNanos;
+                if (count[0] == 1) {
+                    throw new IllegalStateException("listener failed");
+                }
+            }
+        };
+        LineFramer framer = new LineFramer(parser, 16);
+
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> framer.feed(ByteBuffer.wrap(bytes("PRS 18BCD\n")), 1000L));
+        framer.feed(ByteBuffer.wrap(bytes("PRS 18BCD\n")));
+
+        Assertions.assertEquals(count[0], 2);
+        Assertions.assertEquals(arrivals[0], 1000L);
+        Assertions.assertEquals(arrivals[1], SampleClock.NO_TIME);
+    }
+}
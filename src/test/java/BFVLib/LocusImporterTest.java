@@ -0,0 +1,106 @@
+package BFVLib;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+class LocusImporterTest {
+    private static final String RECORDS = "05105E5F,02E34237,42CDB47F,415C01D8,0A105E5F,02C34237,425EB37F,415E0161";
+
+    @Test
+    void importFile() throws IOException {
+        StringBuilder file = new StringBuilder();
+        file.append(OutputDecodersTest.nmea("PMTKLOX,0,102")).append("\r\n");
+        for (int i = 0; i < 100; i++) {
+            file.append(OutputDecodersTest.nmea("PMTKLOX,1," + i + "," + RECORDS)).append("\r\n");
+        }
+        // invalid record checksum of the first record
+        file.append(OutputDecodersTest.nmea("PMTKLOX,1,100," + RECORDS.replace("415C01D8", "415C01D9"))).append("\n");
+        // invalid line checksum
+        file.append("$PMTKLOX,1,101,").append(RECORDS).append("*00\n");
+        file.append(OutputDecodersTest.nmea("PMTKLOX,2"));
+
+        Path path = Files.createTempFile("locus", ".mtk");
+        try {
+            Files.write(path, file.toString().getBytes(StandardCharsets.US_ASCII));
+            LocusMemorySink sink = new LocusMemorySink();
+            // small window so that lines cross window boundaries
+            LocusImporter importer = new LocusImporter(sink, 1500);
+
+            Assertions.assertEquals(importer.importFile(path), 201);
+            Assertions.assertEquals(sink.size(), 201);
+            Assertions.assertEquals(sink.getTime(200), 0x5F5E100AL);
+            Assertions.assertEquals(sink.getHeight(200), 0x015E);
+            Assertions.assertEquals(importer.getLineCount(), 104);
+            Assertions.assertEquals(importer.getMalformedLineCount(), 0);
+            Assertions.assertEquals(importer.getParser().getLineChecksumErrorCount(), 1);
+            Assertions.assertEquals(importer.getParser().getRecordChecksumErrorCount(), 1);
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    void importTwoFiles() throws IOException {
+        Path first = Files.createTempFile("locus", ".mtk");
+        Path second = Files.createTempFile("locus", ".mtk");
+        try {
+            Files.write(first, (OutputDecodersTest.nmea("PMTKLOX,0,1") + "\n"
+                    + OutputDecodersTest.nmea("PMTKLOX,1,0," + RECORDS) + "\n"
+                    + OutputDecodersTest.nmea("PMTKLOX,2") + "\n").getBytes(StandardCharsets.US_ASCII));
+            // second record of the second file is 256 seconds later, its checksum byte is adjusted
+            Files.write(second, (OutputDecodersTest.nmea("PMTKLOX,0,1") + "\n"
+                    + OutputDecodersTest.nmea("PMTKLOX,1,0," + RECORDS.replace("0A105E5F", "0A115E5F").replace("415E0161", "415E0160")) + "\n"
+                    + OutputDecodersTest.nmea("PMTKLOX,2") + "\n").getBytes(StandardCharsets.US_ASCII));
+            LocusMemorySink sink = new LocusMemorySink();
+            LocusImporter importer = new LocusImporter(sink, 1500);
+
+            Assertions.assertEquals(importer.importFile(first), 2);
+            Assertions.assertEquals(importer.importFile(second), 2);
+            // records of the first file are kept
+            Assertions.assertEquals(sink.size(), 4);
+            Assertions.assertEquals(sink.getTime(1), 0x5F5E100AL);
+            Assertions.assertEquals(sink.getTime(3), 0x5F5E110AL);
+
+            sink.clear();
+            Assertions.assertEquals(sink.size(), 0);
+        } finally {
+            Files.deleteIfExists(first);
+            Files.deleteIfExists(second);
+        }
+    }
+
+    @Test
+    void skipLongLine() throws IOException {
+        StringBuilder file = new StringBuilder();
+        for (int i = 0; i < 3000; i++) {
+            file.append('x');
+        }
+        file.append('\n').append(OutputDecodersTest.nmea("PMTKLOX,1,0," + RECORDS)).append('\n');
+
+        Path path = Files.createTempFile("locus", ".mtk");
+        try {
+            Files.write(path, file.toString().getBytes(StandardCharsets.US_ASCII));
+            LocusMemorySink sink = new LocusMemorySink();
+            LocusImporter importer = new LocusImporter(sink, 1100);
+
+            Assertions.assertEquals(importer.importFile(path), 2);
+            Assertions.assertEquals(importer.getMalformedLineCount(), 1);
+            Assertions.assertEquals(importer.getLineCount(), 2);
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    void rejectSmallWindow() {
+        LocusMemorySink sink = new LocusMemorySink();
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new LocusImporter(sink, 64));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new LocusImporter(sink, LocusImporter.MAX_LINE_LENGTH));
+    }
+}
@@ -0,0 +1,56 @@
+package BFVLib;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+class MS5611DecoderTest {
+
+    @Test
+    void datasheetExample() {
+        MS5611Decoder decoder = new MS5611Decoder();
+        Assertions.assertFalse(decoder.compensate(9085466, 8569150));
+
+        decoder.setCalibration(40127, 36924, 23317, 23282, 33464, 28312);
+        Assertions.assertTrue(decoder.compensate(9085466, 8569150));
+        Assertions.assertEquals(decoder.getTemperature(), 2007);
+        Assertions.assertEquals(decoder.getPressure(), 100009);
+    }
+
+    @Test
+    void secondOrderCompensation() {
+        MS5611Decoder decoder = new MS5611Decoder();
+        decoder.setCalibration(40127, 36924, 23317, 23282, 33464, 28312);
+
+        // dT = -300000: TEMP = 988, T2 = 41, OFF2 = 2560360, SENS2 = 1280180
+        Assertions.assertTrue(decoder.compensate(9085466, 8266784));
+        Assertions.assertEquals(decoder.getTemperature(), 947);
+        Assertions.assertEquals(decoder.getPressure(), 97955);
+
+        // dT = -1500000: TEMP = -3062 below -15 degrees, T2 = 1047, OFF2 = 81138518, SENS2 = 45448947
+        Assertions.assertTrue(decoder.compensate(9085466, 7066784));
+        Assertions.assertEquals(decoder.getTemperature(), -4109);
+        Assertions.assertEquals(decoder.getPressure(), 86724);
+    }
+
+    @Test
+    void parseLines() {
+        BFV device = new BFV();
+        MS5611Decoder decoder = device.getMS5611Decoder();
+
+        device.parseLine("MS5611 9085466 8569150");
+        Assertions.assertFalse(decoder.hasCalibration());
+        device.parseLine("MS5611 40127 36924 23317 23282 33464 28312\r\n");
+        Assertions.assertTrue(decoder.hasCalibration());
+        Assertions.assertEquals(decoder.getSampleCount(), 0);
+
+        device.parseLine("MS5611 9085466 8569150");
+        Assertions.assertEquals(decoder.getPressure(), 100009);
+        byte[] line = "MS5611 40127 36924 23317 23282 33464 28312 9085466 8569150".getBytes(StandardCharsets.US_ASCII);
+        Assertions.assertTrue(decoder.parseLine(line, 0, line.length));
+        Assertions.assertEquals(decoder.getTemperature(), 2007);
+        Assertions.assertEquals(decoder.getSampleCount(), 2);
+        Assertions.assertTrue(Double.isNaN(device.getAltitudeValue()));
+    }
+}
@@ -0,0 +1,119 @@
+package BFVLib;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class OutputDecodersTest {
+
+    /**
+     * Adds '$' and '*checksum' to sentence
+     */
+    static String nmea(String sentence) {
+        int checksum = 0;
+        for (char c : sentence.toCharArray()) {
+            checksum ^= c;
+        }
+        return String.format("$%s*%02X", sentence, checksum);
+    }
+
+    @Test
+    void forMode() {
+        Assertions.assertNull(OutputDecoders.forMode(BFV.OUTPUT_MODE_BLUEFLYVARIO));
+        Assertions.assertNull(OutputDecoders.forMode(BFV.OUTPUT_MODE_BFX));
+        Assertions.assertSame(OutputDecoders.forMode(BFV.OUTPUT_MODE_LK8EX1), OutputDecoders.LK8EX1);
+        Assertions.assertSame(OutputDecoders.forMode(BFV.OUTPUT_MODE_OPENVARIO), OutputDecoders.OPENVARIO);
+    }
+
+    @Test
+    void lk8ex1() {
+        BFV device = new BFV();
+        device.setOutputMode(BFV.OUTPUT_MODE_LK8EX1);
+
+        device.parseLine(nmea("LK8EX1,101325,99999,9999,25,1000,"));
+        Assertions.assertEquals(device.getAltitude(), 0.0);
+        Assertions.assertEquals(device.getTemperature(), 25.0);
+        Assertions.assertFalse(device.isUpdatedBattery());
+
+        device.parseLine(nmea("LK8EX1,999999,1234,9999,99,4.12,"));
+        Assertions.assertEquals(device.getAltitude(), 1234.0);
+        Assertions.assertEquals(device.getBattery(), 4.12);
+        Assertions.assertFalse(device.isUpdatedTemperature());
+
+        // corrupted checksum
+        device.parseLine("$LK8EX1,101325,99999,9999,25,1000,*00");
+        Assertions.assertFalse(device.isUpdatedAltitude());
+        Assertions.assertEquals(device.getChecksumErrorCount(), 1);
+
+        // native lines are still parsed
+        device.parseLine("TMP 100");
+        Assertions.assertEquals(device.getTemperature(), 10.0);
+    }
+
+    @Test
+    void lx() {
+        BFV device = new BFV();
+        device.setOutputMode(BFV.OUTPUT_MODE_LX);
+
+        device.parseLine(nmea("LXWP0,Y,,1665.5,1.71,,,,,,,,"));
+        Assertions.assertEquals(device.getAltitude(), 1665.5);
+    }
+
+    @Test
+    void flyNet() {
+        BFV device = new BFV();
+        device.setOutputMode(BFV.OUTPUT_MODE_FLYNET);
+
+        device.parseLine("_PRS 18BCD");
+        device.parseLine("_BAT 7");
+        Assertions.assertEquals(device.getAltitude(), 0.0);
+        Assertions.assertFalse(device.isUpdatedBattery());
+    }
+
+    @Test
+    void openVario() {
+        BFV device = new BFV();
+        device.setOutputMode(BFV.OUTPUT_MODE_OPENVARIO);
+
+        device.parseLine(nmea("POV,P,1013.25,T,-2.5,V,3.9"));
+        Assertions.assertEquals(device.getAltitude(), 0.0);
+        Assertions.assertEquals(device.getTemperature(), -2.5);
+        Assertions.assertEquals(device.getBattery(), 3.9);
+    }
+
+    /**
+     * Output mode is selected from outputMode parameter received in settings
+     */
+    @Test
+    void selectedFromSettings() {
+        BFV device = new BFV();
+        Assertions.assertEquals(device.getOutputMode(), BFV.OUTPUT_MODE_BLUEFLYVARIO);
+
+        device.parseLine("BST BOM");
+        device.parseLine("SET 0 1");
+        Assertions.assertEquals(device.getOutputMode(), BFV.OUTPUT_MODE_LK8EX1);
+
+        device.parseLine(nmea("LK8EX1,101325,99999,9999,99,999,"));
+        Assertions.assertEquals(device.getAltitude(), 0.0);
+    }
+
+    /**
+     * Output mode set by caller is kept when settings are received or values are reset
+     */
+    @Test
+    void selectedModeKept() {
+        BFV device = new BFV();
+        device.setOutputMode(BFV.OUTPUT_MODE_LK8EX1);
+
+        device.parseLine("BST BFK");
+        device.parseLine("SET 0 100");
+        Assertions.assertEquals(device.getOutputMode(), BFV.OUTPUT_MODE_LK8EX1);
+        device.resetAllValues();
+        Assertions.assertEquals(device.getOutputMode(), BFV.OUTPUT_MODE_LK8EX1);
+        device.parseLine("BST BOM");
+        device.parseLine("SET 0 0");
+        Assertions.assertEquals(device.getOutputMode(), BFV.OUTPUT_MODE_LK8EX1);
+
+        device.parseLine(nmea("LK8EX1,101325,99999,9999,99,999,"));
+        Assertions.assertEquals(device.getAltitude(), 0.0);
+    }
+}
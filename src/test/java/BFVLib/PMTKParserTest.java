@@ -0,0 +1,115 @@
+package BFVLib;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+class PMTKParserTest {
+    private static final String DATA_LINE = "$PMTKLOX,1,0,05105E5F,02E34237,42CDB47F,415C01D8,"
+            + "0A105E5F,02C34237,425EB37F,415E0161*27";
+
+    @Test
+    void decodeRecords() {
+        PMTKParser parser = new PMTKParser();
+        parser.parseLine(DATA_LINE);
+
+        Assertions.assertEquals(parser.getRecordCount(), 2);
+        Assertions.assertEquals(parser.getTimeStamp(), 0x5F5E100AL);
+        Assertions.assertEquals(parser.getFix(), 2);
+        Assertions.assertEquals(parser.getLatitude(), Float.intBitsToFloat(0x423742C3));
+        Assertions.assertEquals(parser.getLongitude(), Float.intBitsToFloat(0x417FB35E));
+        Assertions.assertEquals(parser.getHeight(), 0x015E);
+    }
+
+    @Test
+    void ignoreOtherLines() {
+        PMTKParser parser = new PMTKParser();
+        parser.parseLine("$PMTK001,622,3*36");
+        parser.parseLine("$PMTKLOX,1,0,05105E5F,02E3*00");
+        Assertions.assertEquals(parser.getRecordCount(), 0);
+    }
+
+    @Test
+    void memorySink() {
+        LocusMemorySink sink = new LocusMemorySink(1, true);
+        BFV device = new BFV();
+        device.setLocusSink(sink);
+        device.parseLine("$PMTKLOX,0,1*58");
+        device.parseLine(DATA_LINE);
+        device.parseLine("$PMTKLOX,2*47");
+
+        Assertions.assertEquals(sink.size(), 2);
+        Assertions.assertEquals(sink.getTime(0), 0x5F5E1005L);
+        Assertions.assertEquals(sink.getFix(0), 2);
+        Assertions.assertEquals(sink.getLatitude(0), Float.intBitsToFloat(0x423742E3));
+        Assertions.assertEquals(sink.getLongitude(0), Float.intBitsToFloat(0x417FB4CD));
+        Assertions.assertEquals(sink.getHeight(0), 0x015C);
+        Assertions.assertEquals(sink.getHeight(1), 0x015E);
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> sink.getTime(2));
+
+        device.parseLine("$PMTKLOX,0,1*58");
+        Assertions.assertEquals(sink.size(), 0);
+    }
+
+    @Test
+    void fileSinks() throws IOException {
+        Path csv = Files.createTempFile("locus", ".csv");
+        Path mtk = Files.createTempFile("locus", ".mtk");
+        try {
+            LocusCsvSink csvSink = new LocusCsvSink(csv);
+            LocusMtkSink mtkSink = new LocusMtkSink(mtk);
+            PMTKParser parser = new PMTKParser(new LocusSink() {
+                @Override
+                public void onFix(long time, int fix, float latitude, float longitude, int height) {
+                    csvSink.onFix(time, fix, latitude, longitude, height);
+                }
+
+                @Override
+                public void onStart() {
+                    csvSink.onStart();
+                    mtkSink.onStart();
+                }
+
+                @Override
+                public void onLine(byte[] line, int offset, int length) {
+                    mtkSink.onLine(line, offset, length);
+                }
+
+                @Override
+                public void onEnd() {
+                    csvSink.onEnd();
+                    mtkSink.onEnd();
+                }
+            });
+            parser.parseLine("$PMTKLOX,0,1*58");
+            parser.parseLine(DATA_LINE);
+            parser.parseLine("$PMTKLOX,2*47");
+
+            List<String> lines = Files.readAllLines(csv, StandardCharsets.US_ASCII);
+            Assertions.assertEquals(lines.size(), 2);
+            Assertions.assertEquals(lines.get(0), "1600000005,2020-09-13T12:26:45Z,2,45.815319,15.981641,348");
+            Assertions.assertNull(csvSink.getError());
+
+            lines = Files.readAllLines(mtk, StandardCharsets.US_ASCII);
+            Assertions.assertEquals(lines.size(), 3);
+            Assertions.assertEquals(lines.get(1), DATA_LINE);
+            Assertions.assertNull(mtkSink.getError());
+        } finally {
+            Files.deleteIfExists(csv);
+            Files.deleteIfExists(mtk);
+        }
+    }
+
+    @Test
+    void locusCsv() {
+        char[] out = new char[LocusCsv.MAX_LENGTH];
+        int length = LocusCsv.format(out, 1600000005L, 2, 45.5f, -15.25f, 348);
+        Assertions.assertEquals(new String(out, 0, length),
+                "1600000005,2020-09-13T12:26:45Z,2,45.500000,-15.250000,348");
+    }
+}
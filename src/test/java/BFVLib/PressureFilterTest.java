@@ -0,0 +1,127 @@
+package BFVLib;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class PressureFilterTest {
+
+    @Test
+    void medianRejectsSpikes() {
+        MedianFilter median = new MedianFilter(5);
+        double[] input = {100000, 100001, 0, 100002, 100003, 999999, 100004, 100005};
+        double[] output = new double[input.length];
+        for (int i = 0; i < input.length; i++) {
+            output[i] = median.filter(input[i]);
+        }
+        // no output until window fills
+        for (int i = 0; i < 4; i++) {
+            Assertions.assertTrue(Double.isNaN(output[i]));
+        }
+        Assertions.assertEquals(output[4], 100001.0);
+        Assertions.assertEquals(output[5], 100002.0);
+        Assertions.assertEquals(output[6], 100003.0);
+        Assertions.assertEquals(output[7], 100004.0);
+        Assertions.assertTrue(Double.isNaN(median.filter(Double.NaN)));
+
+        // spike right after reset is not passed on
+        median.reset();
+        Assertions.assertTrue(Double.isNaN(median.filter(100000.0)));
+        Assertions.assertTrue(Double.isNaN(median.filter(0.0)));
+        for (int i = 0; i < 2; i++) {
+            Assertions.assertTrue(Double.isNaN(median.filter(100000.0)));
+        }
+        Assertions.assertEquals(median.filter(100000.0), 100000.0);
+    }
+
+    @Test
+    void decimate() {
+        Decimator decimator = new Decimator(5);
+        Assertions.assertEquals(decimator.getDecimation(), 5);
+        int outputs = 0;
+        for (int i = 0; i < 100; i++) {
+            double output = decimator.filter(101325.0);
+            if (!Double.isNaN(output)) {
+                outputs++;
+                Assertions.assertEquals(output, 101325.0, 1e-6);
+            }
+        }
+        Assertions.assertEquals(outputs, 20);
+
+        // signal at input Nyquist frequency is removed
+        decimator.reset();
+        double output = Double.NaN;
+        for (int i = 0; i < 100; i++) {
+            double value = decimator.filter(i % 2 == 0 ? 1.0 : -1.0);
+            output = Double.isNaN(value) ? output : value;
+        }
+        Assertions.assertEquals(output, 0.0, 0.01);
+    }
+
+    @Test
+    void lowPass() {
+        PressureFilter[] filters = {new LowPassFilter(1, 50), new BiquadFilter(1, 50)};
+        for (PressureFilter filter : filters) {
+            Assertions.assertEquals(filter.filter(100000.0), 100000.0, 1e-6);
+            double output = 0;
+            for (int i = 0; i < 500; i++) {
+                output = filter.filter(100010.0);
+            }
+            Assertions.assertEquals(output, 100010.0, 1e-3);
+
+            // 20Hz is attenuated
+            double peak = 0;
+            for (int i = 0; i < 500; i++) {
+                output = filter.filter(100010.0 + Math.sin(2 * Math.PI * 20 * i / 50.0));
+                peak = Math.max(peak, Math.abs(output - 100010.0));
+            }
+            Assertions.assertTrue(peak < 0.1);
+        }
+    }
+
+    @Test
+    void chainInDevice() {
+        BFV device = new BFV();
+        FilterChain chain = new FilterChain(new MedianFilter(3), new Decimator(5), new BiquadFilter(1, 10));
+        Assertions.assertEquals(chain.getDecimation(), 5);
+        device.setPressureFilter(chain);
+        device.enableHistory(100);
+
+        // median outputs from third line on, decimator outputs every fifth median output
+        int[] pressure = {0x18BCD, 0x18BCD, 0x00001, 0x18BCD, 0x18BCD, 0x18BCD, 0x18BCD, 0x18BCD, 0x18BCD, 0x18BCD,
+                0x18BCD, 0x18BCD};
+        for (int value : pressure) {
+            device.parseLine("PRS " + Integer.toHexString(value).toUpperCase());
+        }
+        Assertions.assertEquals(device.getAltitudeHistory().count(), 2);
+        Assertions.assertEquals(device.getAltitudeValue(), device.getAltitudeConverter().toAltitude(0x18BCD), 1e-6);
+
+        device.setPressureFilter(null);
+        device.parseLine("PRS 18BCD");
+        Assertions.assertEquals(device.getAltitudeHistory().count(), 3);
+    }
+
+    @Test
+    void chainKeepsSampleClock() {
+        BFV device = new BFV();
+        device.setPressureFilter(new FilterChain(new Decimator(5)));
+        long period = Math.round(device.getSamplePeriod() * 1e9);
+
+        // 40 lines in cadence, then 2 lines dropped
+        long time = 0;
+        for (int i = 0; i < 80; i++) {
+            if (i == 40) {
+                time += 2 * period;
+            }
+            device.parseLine("PRS 18BCD", time);
+            time += period;
+        }
+        SampleClock clock = device.getSampleClock();
+        Assertions.assertEquals(clock.getPeriod(), period);
+        Assertions.assertEquals(clock.getSampleCount(), 80);
+        Assertions.assertEquals(clock.getDroppedCount(), 2);
+
+        // line received twice
+        device.parseLine("PRS 18BCD", time - period + period / 10);
+        Assertions.assertEquals(clock.getDuplicateCount(), 1);
+    }
+}
@@ -0,0 +1,63 @@
+package BFVLib;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class SampleClockTest {
+    private static final long PERIOD = 20000000L;
+    private static final long LATENCY = 5000000L;
+
+    @Test
+    void recoverCadenceFromBursts() {
+        SampleClock clock = new SampleClock();
+        // samples are delivered in bursts of 5 every 100ms
+        for (int i = 0; i < 200; i++) {
+            long sent = i * PERIOD;
+            long arrival = (i / 5 * 5 + 4) * PERIOD + LATENCY;
+            Assertions.assertEquals(clock.update(arrival, PERIOD), SampleClock.IN_CADENCE);
+            if (i >= 5) {
+                Assertions.assertEquals(clock.getTime(), sent + LATENCY, PERIOD / 10);
+            }
+        }
+        Assertions.assertEquals(clock.getSampleCount(), 200);
+        Assertions.assertEquals(clock.getDroppedCount(), 0);
+        Assertions.assertEquals(clock.getDuplicateCount(), 0);
+    }
+
+    @Test
+    void detectDroppedAndDuplicated() {
+        SampleClock clock = new SampleClock(8);
+        long arrival = 0;
+        for (int i = 0; i < 20; i++) {
+            arrival = i * PERIOD + LATENCY;
+            clock.update(arrival, PERIOD);
+        }
+        Assertions.assertEquals(clock.update(arrival, PERIOD), SampleClock.DUPLICATE);
+        Assertions.assertEquals(clock.getDuplicateCount(), 1);
+
+        // 3 samples lost
+        int result = SampleClock.IN_CADENCE;
+        int i = 23;
+        for (; i < 40 && result != SampleClock.AFTER_DROP; i++) {
+            result = clock.update(i * PERIOD + LATENCY, PERIOD);
+        }
+        Assertions.assertEquals(result, SampleClock.AFTER_DROP);
+        Assertions.assertEquals(clock.getDroppedCount(), 3);
+        Assertions.assertEquals(clock.update(i * PERIOD + LATENCY, PERIOD), SampleClock.IN_CADENCE);
+        Assertions.assertEquals(clock.getTime(), i * PERIOD + LATENCY, PERIOD / 10);
+    }
+
+    @Test
+    void parseWithArrivalTime() {
+        BFV device = new BFV();
+        LineFramer framer = new LineFramer(device);
+        byte[] chunk = "PRS 17318\r\nPRS 17318\r\nPRS 17319\r\n".getBytes(java.nio.charset.StandardCharsets.US_ASCII);
+        framer.feed(chunk, 0, chunk.length, 60000000L);
+        device.parseLine("PRS 1731A", 80000000L);
+        device.parseLine("PRS 1731A");
+
+        Assertions.assertEquals(device.getSampleClock().getSampleCount(), 4);
+        Assertions.assertEquals(device.getSampleClock().getArrivalTime(), 80000000L);
+        Assertions.assertEquals(device.getSampleClock().getPeriod(), PERIOD);
+    }
+}
@@ -0,0 +1,87 @@
+package BFVLib;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+class SampleHistoryTest {
+
+    @Test
+    void ring() {
+        SampleHistory history = new SampleHistory(3);
+        Assertions.assertEquals(history.length(), 0);
+        Assertions.assertTrue(Double.isNaN(history.latest()));
+
+        for (int i = 1; i <= 5; i++) {
+            history.append(i);
+        }
+        Assertions.assertEquals(history.length(), 3);
+        Assertions.assertEquals(history.count(), 5);
+        Assertions.assertEquals(history.latest(), 5.0);
+        Assertions.assertEquals(history.get(2), 3.0);
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> history.get(3));
+
+        history.clear();
+        Assertions.assertEquals(history.length(), 0);
+    }
+
+    /**
+     * Compare rolling statistics against brute force over random walk
+     */
+    @Test
+    void windows() {
+        SampleHistory history = new SampleHistory(1000);
+        RollingWindow small = history.addWindow(7);
+        RollingWindow large = history.addWindow(250);
+        Random random = new Random(7);
+
+        Assertions.assertTrue(Double.isNaN(small.mean()));
+        Assertions.assertTrue(Double.isNaN(small.min()));
+        Assertions.assertTrue(Double.isNaN(small.max()));
+
+        double value = 1000;
+        for (int i = 0; i < 5000; i++) {
+            value += random.nextGaussian();
+            history.append(value);
+
+            for (RollingWindow window : new RollingWindow[] {small, large}) {
+                int length = Math.min(i + 1, window.size());
+                Assertions.assertEquals(window.length(), length);
+                double sum = 0;
+                double min = Double.POSITIVE_INFINITY;
+                double max = Double.NEGATIVE_INFINITY;
+                for (int age = 0; age < length; age++) {
+                    sum += history.get(age);
+                    min = Math.min(min, history.get(age));
+                    max = Math.max(max, history.get(age));
+                }
+                Assertions.assertEquals(window.mean(), sum / length, 1e-9);
+                Assertions.assertEquals(window.min(), min);
+                Assertions.assertEquals(window.max(), max);
+            }
+        }
+        Assertions.assertTrue(large.isFull());
+    }
+
+    @Test
+    void bfvHistory() {
+        BFV device = new BFV();
+        Assertions.assertNull(device.getAltitudeHistory());
+
+        device.enableHistory(100);
+        RollingWindow window = device.getPressureHistory().addWindow(2);
+        device.parseLine("PRS 18BCD");
+        device.parseLine("PRS 18BCD");
+        device.parseLine("PRS 18BCF");
+
+        Assertions.assertEquals(device.getAltitudeHistory().length(), 3);
+        Assertions.assertEquals(device.getAltitudeHistory().get(1), 0.0);
+        Assertions.assertEquals(window.mean(), 101326.0);
+        Assertions.assertEquals(window.max(), 101327.0);
+
+        device.resetAllValues();
+        Assertions.assertEquals(device.getPressureHistory().length(), 0);
+        Assertions.assertEquals(window.length(), 0);
+    }
+}
@@ -0,0 +1,35 @@
+package BFVLib;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+class SettingsDecoderTest {
+
+    @Test
+    void decodeKeys() {
+        byte[] line = "BST BFK  BOF XYZ BFKX".getBytes(StandardCharsets.US_ASCII);
+        int[] ordinals = SettingsDecoder.decodeKeys(line, 4, line.length, null);
+
+        Assertions.assertArrayEquals(ordinals, new int[] {
+                CommandRegistry.POSITION_NOISE, CommandRegistry.OUTPUT_FREQUENCY, CodeTable.NOT_FOUND, CodeTable.NOT_FOUND});
+        Assertions.assertFalse(SettingsDecoder.isInOrder(ordinals));
+        Assertions.assertSame(SettingsDecoder.decodeKeys(line, 4, line.length, ordinals), ordinals);
+    }
+
+    @Test
+    void decodeValues() {
+        byte[] line = "SET 0 100 35 1".getBytes(StandardCharsets.US_ASCII);
+        int[] values = new int[3];
+
+        Assertions.assertTrue(SettingsDecoder.decodeValues(line, 6, line.length, values, 3));
+        Assertions.assertArrayEquals(values, new int[] {100, 35, 1});
+        Assertions.assertFalse(SettingsDecoder.decodeValues(line, 6, line.length, values, 2));
+        Assertions.assertFalse(SettingsDecoder.decodeValues(line, 10, line.length, values, 3));
+
+        byte[] malformed = "SET 0 100 3x5".getBytes(StandardCharsets.US_ASCII);
+        Assertions.assertThrows(NumberFormatException.class,
+                () -> SettingsDecoder.decodeValues(malformed, 6, malformed.length, values, 2));
+    }
+}
@@ -0,0 +1,86 @@
+package BFVLib;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class ToneGeneratorTest {
+    private static final int SAMPLE_RATE = 48000;
+
+    @Test
+    void liftBeeps() {
+        ToneGenerator tone = new ToneGenerator(SAMPLE_RATE);
+        tone.setVerticalSpeed(1.0);
+        float[] block = new float[SAMPLE_RATE / 50];
+        tone.fill(block, 0, block.length);
+
+        Assertions.assertTrue(tone.isLift());
+        Assertions.assertEquals(tone.getFrequency(), 1100.0, 1e-9);
+        // 1100Hz crosses zero 44 times in 20ms
+        Assertions.assertEquals(zeroCrossings(block), 44, 1);
+        Assertions.assertTrue(peak(block) <= 1.0f && peak(block) > 0.99f);
+
+        // tone is off for the second half of 250ms beep period
+        for (int i = 0; i < 8; i++) {
+            tone.fill(block, 0, block.length);
+        }
+        Assertions.assertEquals(peak(block), 0.0f);
+    }
+
+    @Test
+    void hysteresisAndSink() {
+        ToneGenerator tone = new ToneGenerator(SAMPLE_RATE);
+        short[] block = new short[480];
+
+        tone.setVerticalSpeed(0.1);
+        tone.fill(block, 0, block.length);
+        Assertions.assertFalse(tone.isLift());
+        tone.setVerticalSpeed(0.3);
+        tone.fill(block, 0, block.length);
+        Assertions.assertTrue(tone.isLift());
+        tone.setVerticalSpeed(0.1);
+        tone.fill(block, 0, block.length);
+        Assertions.assertTrue(tone.isLift());
+        tone.setVerticalSpeed(0.0);
+        tone.fill(block, 0, block.length);
+        Assertions.assertFalse(tone.isLift());
+        Assertions.assertEquals(tone.getFrequency(), 0.0);
+
+        tone.setVerticalSpeed(-3.0);
+        tone.fill(block, 0, block.length);
+        Assertions.assertTrue(tone.isSink());
+        Assertions.assertEquals(tone.getFrequency(), 100.0, 1e-9);
+    }
+
+    @Test
+    void configureFromDevice() {
+        BFV device = new BFV();
+        device.parseLine("BST BFQ BFI BVL");
+        device.parseLine("SET 0 1500 200 100");
+        ToneGenerator tone = new ToneGenerator(SAMPLE_RATE);
+        tone.configure(device.getAllParameters());
+        tone.setVerticalSpeed(2.0);
+
+        float[] block = new float[480];
+        tone.fill(block, 0, block.length);
+        Assertions.assertEquals(tone.getFrequency(), 1900.0, 1e-9);
+        Assertions.assertTrue(peak(block) <= (float) Math.sqrt(0.1));
+    }
+
+    private static int zeroCrossings(float[] block) {
+        int count = 0;
+        for (int i = 1; i < block.length; i++) {
+            if ((block[i - 1] < 0) != (block[i] < 0)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static float peak(float[] block) {
+        float peak = 0;
+        for (float value : block) {
+            peak = Math.max(peak, Math.abs(value));
+        }
+        return peak;
+    }
+}